@@ -0,0 +1,68 @@
+package com.battlesimulator.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.battlesimulator.domain.Army;
+import com.battlesimulator.domain.Clan;
+import com.battlesimulator.domain.IWarrior;
+
+/**
+ * Consultas sobre el ejército: la lista de vivos y los agregados
+ * incrementales (vivos, nivel).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ArmyBenchmark {
+
+  @Param({"10", "1000", "100000"})
+  public int armySize;
+
+  @Param({"object", "state"})
+  public String storage;
+
+  private Army army;
+
+  @Setup
+  public void setup() {
+    Clan clan = new Clan("A");
+    army = "state".equals(storage)
+        ? Fixtures.stateArmy("A-1", clan, armySize, 1)
+        : Fixtures.objectArmy("A-1", clan, armySize, 1);
+    // Un cuarto del ejército caído, como a mitad de batalla
+    for (int i = 0; i < armySize; i += 4) {
+      army.getWarrior(i).setHealth(0);
+    }
+  }
+
+  @Benchmark
+  public List<IWarrior> getWarriors() {
+    return army.getWarriors();
+  }
+
+  @Benchmark
+  public int getLevel() {
+    return army.getLevel();
+  }
+
+  @Benchmark
+  public boolean isDefeated() {
+    return army.isDefeated();
+  }
+}
@@ -0,0 +1,66 @@
+package com.battlesimulator.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.battlesimulator.domain.Clan;
+import com.battlesimulator.usecases.ClanCodec;
+
+/**
+ * CLAN_CONFIG de dos clanes: codificar en el host y decodificar en el cliente.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ClanCodecBenchmark {
+
+  @Param({"100", "10000", "50000"})
+  public int armySize;
+
+  @Param({"object", "state"})
+  public String storage;
+
+  private Clan clan1;
+  private Clan clan2;
+  private String encoded;
+
+  @Setup
+  public void setup() {
+    clan1 = clan("A", 1);
+    clan2 = clan("B", 2);
+    encoded = ClanCodec.encode(clan1, clan2);
+  }
+
+  private Clan clan(String name, long seed) {
+    if ("state".equals(storage)) {
+      return Fixtures.clan(name, armySize, seed);
+    }
+    Clan clan = new Clan(name);
+    clan.addArmy(Fixtures.objectArmy(name + "-1", clan, armySize, seed));
+    return clan;
+  }
+
+  @Benchmark
+  public String encode() {
+    return ClanCodec.encode(clan1, clan2);
+  }
+
+  @Benchmark
+  public Clan[] decode() {
+    return ClanCodec.decode(encoded);
+  }
+}
@@ -0,0 +1,84 @@
+package com.battlesimulator.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.battlesimulator.domain.Army;
+import com.battlesimulator.domain.Clan;
+import com.battlesimulator.domain.CombatRules;
+import com.battlesimulator.domain.DamageReport;
+import com.battlesimulator.domain.IWarrior;
+import com.battlesimulator.domain.Position;
+import com.battlesimulator.domain.WarriorType;
+
+/**
+ * Reglas de combate: un ataque completo y la consulta de multiplicadores.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CombatBenchmark {
+
+  /** "object" = guerreros Warrior, "state" = vistas de ArmyState. */
+  @Param({"object", "state"})
+  public String storage;
+
+  @Param({"1", "2", "4"})
+  public int distance;
+
+  private IWarrior attacker;
+  private IWarrior target;
+  private WarriorType[] types;
+  private int index;
+
+  @Setup
+  public void setup() {
+    Clan c1 = new Clan("A");
+    Clan c2 = new Clan("B");
+    Army a1 = "state".equals(storage) ? Fixtures.stateArmy("A-1", c1, 1, 1) : Fixtures.objectArmy("A-1", c1, 1, 1);
+    Army a2 = "state".equals(storage) ? Fixtures.stateArmy("B-1", c2, 1, 2) : Fixtures.objectArmy("B-1", c2, 1, 2);
+    attacker = a1.getWarrior(0);
+    target = a2.getWarrior(0);
+    attacker.setPosition(new Position(0, 0));
+    target.setPosition(new Position(0, distance));
+
+    types = WarriorType.values();
+  }
+
+  /**
+   * Ataque completo (daño base, distancia, elementos, escudo). El objetivo se
+   * restaura en la misma operación para que nunca muera.
+   */
+  @Benchmark
+  public DamageReport warriorAttack() {
+    DamageReport report = attacker.attack(target);
+    target.reset();
+    return report;
+  }
+
+  @Benchmark
+  public double distanceMultiplierByType() {
+    index = (index + 1) & 3;
+    return CombatRules.getDistanceMultiplier(types[index], distance);
+  }
+
+  /** Variante por guerreros: incluye el cálculo de distancia entre posiciones. */
+  @Benchmark
+  public double distanceMultiplierByWarriors() {
+    return CombatRules.getDistanceMultiplier(attacker, target);
+  }
+}
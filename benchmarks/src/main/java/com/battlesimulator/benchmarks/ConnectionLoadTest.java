@@ -0,0 +1,180 @@
+package com.battlesimulator.benchmarks;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+
+import com.battlesimulator.network.AbstractGameServer;
+import com.battlesimulator.network.Message;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Prueba de carga de conexiones: abre miles de sockets contra un servidor de
+ * juego (en este proceso o externo), un cliente emite CHAT y se mide cuánto
+ * tardan todos en recibirlos. Algunos clientes nunca leen, para comprobar que
+ * un cliente lento no frena el broadcast a los demás.
+ *
+ * java -cp benchmarks/target/benchmarks.jar com.battlesimulator.benchmarks.ConnectionLoadTest \
+ *   --connections 10000 --server blocking --messages 50 --slow 10
+ *
+ * Con --host/--port se conecta a un servidor ya iniciado. Con el servidor en
+ * el mismo proceso cada conexión usa dos descriptores (ulimit -n).
+ */
+public class ConnectionLoadTest {
+  private static final long TIMEOUT_MS = 120_000;
+
+  private int connections = 10_000;
+  private int messages = 50;
+  private int payloadBytes = 512;
+  private int slow = 10;
+  private String serverType = "blocking";
+  private String host;
+  private int port;
+
+  // Por cliente: líneas recibidas (la primera es el CONNECT)
+  private int[] lines;
+  private SocketChannel[] channels;
+  private long receivedLines;
+
+  public static void main(String[] args) throws Exception {
+    ConnectionLoadTest test = new ConnectionLoadTest();
+    for (int i = 0; i + 1 < args.length; i += 2) {
+      String value = args[i + 1];
+      switch (args[i]) {
+        case "--connections" -> test.connections = Integer.parseInt(value);
+        case "--messages" -> test.messages = Integer.parseInt(value);
+        case "--payload" -> test.payloadBytes = Integer.parseInt(value);
+        case "--slow" -> test.slow = Integer.parseInt(value);
+        case "--server" -> test.serverType = value;
+        case "--host" -> test.host = value;
+        case "--port" -> test.port = Integer.parseInt(value);
+        default -> throw new IllegalArgumentException("Opción desconocida: " + args[i]);
+      }
+    }
+    test.run();
+    System.exit(0);
+  }
+
+  private void run() throws Exception {
+    AbstractGameServer server = null;
+    if (host == null) {
+      System.setProperty(AbstractGameServer.SERVER_PROPERTY, serverType);
+      server = AbstractGameServer.create(new SilentListener());
+      server.start();
+      host = "localhost";
+      port = server.getActualPort();
+    }
+    System.out.printf("Servidor %s en %s:%d, %d conexiones (%d lentas)%n",
+        server != null ? server.getClass().getSimpleName() : "externo", host, port, connections, slow);
+
+    Selector selector = Selector.open();
+    lines = new int[connections];
+    channels = new SocketChannel[connections];
+    ByteBuffer readBuffer = ByteBuffer.allocate(64 * 1024);
+
+    long start = System.nanoTime();
+    for (int i = 0; i < connections; i++) {
+      SocketChannel ch = SocketChannel.open();
+      ch.setOption(StandardSocketOptions.TCP_NODELAY, true);
+      if (i < slow) {
+        // Búfer de recepción mínimo para que se llenen enseguida
+        ch.setOption(StandardSocketOptions.SO_RCVBUF, 4096);
+      }
+      ch.connect(new InetSocketAddress(host, port));
+      ch.configureBlocking(false);
+      channels[i] = ch;
+      if (i >= slow) {
+        ch.register(selector, SelectionKey.OP_READ, i);
+      }
+      // Atender lo que ya llegó para no llenar los búferes mientras se conecta
+      if ((i & 255) == 255) poll(selector, readBuffer, 0);
+    }
+    waitFor(selector, readBuffer, () -> countAtLeast(1) >= connections - slow);
+    long connectedMs = (System.nanoTime() - start) / 1_000_000;
+    System.out.printf("Conectados: %d en %d ms%s%n", countAtLeast(1), connectedMs,
+        server != null ? " (servidor: " + server.getConnectedPlayers() + ")" : "");
+
+    // El primer cliente rápido emite; el servidor retransmite a todos
+    SocketChannel sender = channels[slow];
+    ObjectMapper mapper = new ObjectMapper();
+    String payload = "x".repeat(payloadBytes);
+    long sendStart = System.nanoTime();
+    for (int m = 0; m < messages; m++) {
+      Message msg = new Message(Message.Type.CHAT, payload);
+      ByteBuffer data = ByteBuffer.wrap((mapper.writeValueAsString(msg) + "\n").getBytes(StandardCharsets.UTF_8));
+      while (data.hasRemaining()) {
+        sender.write(data);
+        if (data.hasRemaining()) poll(selector, readBuffer, 1);
+      }
+    }
+    int expected = 1 + messages;
+    boolean complete = waitFor(selector, readBuffer, () -> countAtLeast(expected) >= connections - slow);
+    double seconds = (System.nanoTime() - sendStart) / 1e9;
+
+    long delivered = receivedLines - (connections - slow);
+    System.out.printf("Entregados: %d de %d mensajes en %.2f s (%.0f msg/s)%s%n",
+        delivered, (long) messages * (connections - slow), seconds, delivered / seconds,
+        complete ? "" : " INCOMPLETO");
+    if (server != null) {
+      System.out.printf("Conexiones activas en el servidor: %d (lentas desconectadas: %d)%n",
+          server.getConnectedPlayers(), connections - server.getConnectedPlayers());
+    }
+
+    for (SocketChannel ch : channels) {
+      ch.close();
+    }
+    selector.close();
+    if (server != null) {
+      server.stop();
+    }
+  }
+
+  private int countAtLeast(int n) {
+    int count = 0;
+    for (int i = slow; i < connections; i++) {
+      if (lines[i] >= n) count++;
+    }
+    return count;
+  }
+
+  private boolean waitFor(Selector selector, ByteBuffer buffer, java.util.function.BooleanSupplier done)
+      throws IOException {
+    long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+    while (!done.getAsBoolean()) {
+      if (System.currentTimeMillis() > deadline) return false;
+      poll(selector, buffer, 100);
+    }
+    return true;
+  }
+
+  private void poll(Selector selector, ByteBuffer buffer, long timeoutMs) throws IOException {
+    if (timeoutMs == 0) selector.selectNow();
+    else selector.select(timeoutMs);
+    Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+    while (keys.hasNext()) {
+      SelectionKey key = keys.next();
+      keys.remove();
+      int index = (Integer) key.attachment();
+      SocketChannel ch = (SocketChannel) key.channel();
+      int n;
+      while ((n = ch.read(buffer.clear())) > 0) {
+        byte[] data = buffer.array();
+        for (int i = 0; i < n; i++) {
+          if (data[i] == '\n') {
+            lines[index]++;
+            receivedLines++;
+          }
+        }
+      }
+      if (n < 0) {
+        key.cancel();
+      }
+    }
+  }
+}
@@ -0,0 +1,87 @@
+package com.battlesimulator.benchmarks;
+
+import java.util.Random;
+
+import com.battlesimulator.domain.Army;
+import com.battlesimulator.domain.ArmyState;
+import com.battlesimulator.domain.Clan;
+import com.battlesimulator.domain.Element;
+import com.battlesimulator.domain.IWarrior;
+import com.battlesimulator.domain.MagicWarrior;
+import com.battlesimulator.domain.MagicWeapon;
+import com.battlesimulator.domain.MeleeWarrior;
+import com.battlesimulator.domain.MeleeWeapon;
+import com.battlesimulator.domain.RangedWarrior;
+import com.battlesimulator.domain.RangedWeapon;
+import com.battlesimulator.domain.WarriorType;
+
+/**
+ * Construcción de clanes y ejércitos reproducibles para los benchmarks.
+ * Los rangos de estadísticas son los mismos que usa ConfigDialog.
+ */
+final class Fixtures {
+  private static final Element[] ELEMENTS = {
+    Element.FIRE, Element.WATER, Element.EARTH, Element.ICE
+  };
+
+  private Fixtures() {
+  }
+
+  /**
+   * Ejército de objetos Warrior (la representación de la interfaz).
+   */
+  static Army objectArmy(String id, Clan clan, int warriors, long seed) {
+    Random rand = new Random(seed);
+    Army army = new Army();
+    army.setId(id);
+    army.setClan(clan);
+    for (int i = 1; i <= warriors; i++) {
+      IWarrior w = newWarrior(rand);
+      w.setArmyId(id);
+      w.setNumber(i);
+      w.setClan(clan);
+      army.addWarrior(w);
+    }
+    return army;
+  }
+
+  /**
+   * Ejército respaldado por ArmyState (la representación para simulaciones grandes).
+   */
+  static Army stateArmy(String id, Clan clan, int warriors, long seed) {
+    Random rand = new Random(seed);
+    ArmyState state = new ArmyState(id, clan, warriors);
+    for (int i = 0; i < warriors; i++) {
+      Element e = ELEMENTS[rand.nextInt(ELEMENTS.length)];
+      WarriorType type = WarriorType.fromOrdinal(rand.nextInt(3));
+      state.add(type, 70 + rand.nextInt(50), 5 + rand.nextInt(25), 5 + rand.nextInt(15),
+          e, 10 + rand.nextInt(15), e);
+    }
+    return state.toArmy();
+  }
+
+  /**
+   * Clan con un único ejército del tamaño indicado.
+   */
+  static Clan clan(String name, int warriors, long seed) {
+    Clan clan = new Clan(name);
+    clan.addArmy(stateArmy(name + "-1", clan, warriors, seed));
+    return clan;
+  }
+
+  static IWarrior newWarrior(Random rand) {
+    Element e = ELEMENTS[rand.nextInt(ELEMENTS.length)];
+    int health = 70 + rand.nextInt(50);
+    int shield = 5 + rand.nextInt(25);
+    int strength = 5 + rand.nextInt(15);
+    int damage = 10 + rand.nextInt(15);
+    switch (rand.nextInt(3)) {
+      case 0:
+        return new MeleeWarrior("Guerrero", health, shield, strength, e, new MeleeWeapon(damage, e));
+      case 1:
+        return new RangedWarrior("Arquero", health, shield, strength, e, new RangedWeapon(damage, e));
+      default:
+        return new MagicWarrior("Mago", health, shield, strength, e, new MagicWeapon(damage, e));
+    }
+  }
+}
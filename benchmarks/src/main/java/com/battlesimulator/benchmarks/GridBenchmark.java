@@ -0,0 +1,129 @@
+package com.battlesimulator.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.battlesimulator.domain.Army;
+import com.battlesimulator.domain.Clan;
+import com.battlesimulator.domain.DamageReport;
+import com.battlesimulator.domain.IWarrior;
+import com.battlesimulator.domain.Position;
+import com.battlesimulator.usecases.InteractiveBattle;
+
+/**
+ * Operaciones de InteractiveBattle sobre el tablero con ejércitos de
+ * distinto tamaño (guerreros por bando).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class GridBenchmark {
+
+  @Param({"10", "1000", "100000"})
+  public int armySize;
+
+  private InteractiveBattle battle;
+  private Army army1;
+  private Army army2;
+  private int cursor;
+
+  // Duelo fijo para performAttack
+  private IWarrior duelist1;
+  private IWarrior duelist2;
+  private Position home1;
+  private Position home2;
+
+  @Setup
+  public void setup() {
+    army1 = Fixtures.stateArmy("A-1", new Clan("A"), armySize, 1);
+    army2 = Fixtures.stateArmy("B-1", new Clan("B"), armySize, 2);
+    battle = new InteractiveBattle(army1, army2, InteractiveBattle.gridSizeFor(armySize * 2));
+    battle.setLoggingEnabled(false);
+    battle.setRandomSeed(42);
+    battle.initBattle();
+
+    // Coloca al primer guerrero enemigo junto al primero propio
+    duelist1 = army1.getWarrior(0);
+    duelist2 = army2.getWarrior(0);
+    Position adjacent = firstFreeNeighbour(duelist1);
+    if (adjacent == null) {
+      throw new IllegalStateException("Sin casilla libre junto al guerrero de prueba");
+    }
+    battle.moveWarrior(duelist2, adjacent);
+    home1 = duelist1.getPosition();
+    home2 = duelist2.getPosition();
+  }
+
+  private Position firstFreeNeighbour(IWarrior warrior) {
+    List<Position> free = battle.getValidMovePositions(warrior);
+    return free.isEmpty() ? null : free.get(0);
+  }
+
+  private IWarrior nextWarrior(Army army) {
+    int count = army.getWarriorCount();
+    for (int tries = 0; tries < count; tries++) {
+      cursor = cursor + 1 < count ? cursor + 1 : 0;
+      IWarrior w = army.getWarrior(cursor);
+      if (w.getPosition() != null) return w;
+    }
+    return army.getWarrior(0);
+  }
+
+  @Benchmark
+  public List<Position> getValidMovePositions() {
+    return battle.getValidMovePositions(nextWarrior(army1));
+  }
+
+  /**
+   * Mueve a un guerrero del ejército en turno; si está rodeado, pasa el turno.
+   */
+  @Benchmark
+  public boolean performMove() {
+    IWarrior w = nextWarrior(battle.getCurrentTurnArmy());
+    List<Position> free = battle.getValidMovePositions(w);
+    if (free.isEmpty()) {
+      battle.nextTurn();
+      return false;
+    }
+    return battle.performMove(w, free.get(0));
+  }
+
+  /**
+   * Los dos duelistas se atacan por turnos. La víctima se restaura después de
+   * cada golpe para que el escenario sea el mismo en todas las invocaciones.
+   */
+  @Benchmark
+  public DamageReport performAttack() {
+    boolean firstAttacks = battle.getCurrentTurnArmy() == army1;
+    IWarrior attacker = firstAttacks ? duelist1 : duelist2;
+    IWarrior victim = firstAttacks ? duelist2 : duelist1;
+    Position attackerHome = firstAttacks ? home1 : home2;
+    Position victimHome = firstAttacks ? home2 : home1;
+
+    DamageReport report = battle.performAttack(attacker, victim);
+    victim.reset();
+    if (report.isKilled()) {
+      // El atacante ocupó la casilla de la víctima: deshacerlo
+      battle.moveWarrior(attacker, attackerHome);
+      battle.moveWarrior(victim, victimHome);
+    } else {
+      victim.setPosition(victimHome);
+    }
+    return report;
+  }
+}
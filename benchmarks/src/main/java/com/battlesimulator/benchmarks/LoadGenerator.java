@@ -0,0 +1,364 @@
+package com.battlesimulator.benchmarks;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.battlesimulator.domain.Clan;
+import com.battlesimulator.domain.Position;
+import com.battlesimulator.network.AbstractGameServer;
+import com.battlesimulator.network.CompressionStats;
+import com.battlesimulator.network.GameClient;
+import com.battlesimulator.network.LatencyHistogram;
+import com.battlesimulator.network.Message;
+import com.battlesimulator.usecases.BattleProtocol;
+import com.battlesimulator.usecases.ClanCodec;
+
+/**
+ * Generador de carga del protocolo multijugador: miles de bots (cada uno un
+ * GameClient, con su negociación de formato y sus latidos) entran de
+ * --room-size en --room-size en salas propias, envían su CLAN_CONFIG y
+ * después, cada --think ms de media, un ATTACK, MOVE, TURN_END o CHAT. El
+ * servidor retransmite cada acción a la sala, emisor incluido: el bot
+ * reconoce la suya por el seq y mide la latencia de ida y vuelta.
+ *
+ * java -cp benchmarks/target/benchmarks.jar com.battlesimulator.benchmarks.LoadGenerator \
+ *   --bots 2000 --room-size 2 --think 200 --duration 30 --server nio
+ *
+ * Con --host/--port se conecta a un servidor ya iniciado. Un mensaje que no
+ * vuelve antes del final cuenta como perdido.
+ *
+ * --spectators N reparte N espectadores entre las salas (SPECTATE, con
+ * --spectator-delay segundos de retraso si se indica) que solo cuentan lo
+ * que reciben y cuánto tarda desde que se creó el mensaje.
+ */
+public class LoadGenerator {
+  private static final long JOIN_TIMEOUT_MS = 60_000;
+  private static final long DRAIN_TIMEOUT_MS = 5_000;
+  // Reparto de acciones en cada turno de un bot (suman 100)
+  private static final int ATTACK_WEIGHT = 35;
+  private static final int MOVE_WEIGHT = 35;
+  private static final int TURN_END_WEIGHT = 20;
+
+  private int bots = 1000;
+  private int roomSize = 2;
+  private long thinkMs = 200;
+  private int durationSeconds = 30;
+  private int clanWarriors = 30;
+  private String serverType = "blocking";
+  private int spectators;
+  private int spectatorDelaySeconds;
+  private String host;
+  private int port;
+
+  private final LatencyHistogram latency = new LatencyHistogram();
+  private final Map<Message.Type, AtomicLong> sentByType = new EnumMap<>(Message.Type.class);
+  private final AtomicLong sent = new AtomicLong();
+  private final AtomicLong echoed = new AtomicLong();
+  private final AtomicLong received = new AtomicLong();
+  private final AtomicLong connectFailures = new AtomicLong();
+  private final AtomicLong errors = new AtomicLong();
+  private final AtomicLong disconnects = new AtomicLong();
+  private final LatencyHistogram spectatorLatency = new LatencyHistogram();
+  private final AtomicLong spectatorReceived = new AtomicLong();
+  private volatile boolean running;
+
+  public static void main(String[] args) throws Exception {
+    LoadGenerator generator = new LoadGenerator();
+    for (int i = 0; i + 1 < args.length; i += 2) {
+      String value = args[i + 1];
+      switch (args[i]) {
+        case "--bots" -> generator.bots = Integer.parseInt(value);
+        case "--room-size" -> generator.roomSize = Integer.parseInt(value);
+        case "--think" -> generator.thinkMs = Long.parseLong(value);
+        case "--duration" -> generator.durationSeconds = Integer.parseInt(value);
+        case "--clan-warriors" -> generator.clanWarriors = Integer.parseInt(value);
+        case "--server" -> generator.serverType = value;
+        case "--spectators" -> generator.spectators = Integer.parseInt(value);
+        case "--spectator-delay" -> generator.spectatorDelaySeconds = Integer.parseInt(value);
+        case "--host" -> generator.host = value;
+        case "--port" -> generator.port = Integer.parseInt(value);
+        default -> throw new IllegalArgumentException("Opción desconocida: " + args[i]);
+      }
+    }
+    generator.run();
+    System.exit(0);
+  }
+
+  private void run() throws Exception {
+    for (Message.Type type : new Message.Type[] {
+        Message.Type.CLAN_CONFIG, Message.Type.ATTACK, Message.Type.MOVE, Message.Type.TURN_END, Message.Type.CHAT}) {
+      sentByType.put(type, new AtomicLong());
+    }
+    AbstractGameServer server = null;
+    if (host == null) {
+      System.setProperty(AbstractGameServer.SERVER_PROPERTY, serverType);
+      server = AbstractGameServer.create(new SilentListener());
+      server.start();
+      host = "localhost";
+      port = server.getActualPort();
+    }
+    System.out.printf("Servidor %s en %s:%d, %d bots en salas de %d, reflexión %d ms, %d s%n",
+        server != null ? server.getClass().getSimpleName() : "externo", host, port,
+        bots, roomSize, thinkMs, durationSeconds);
+
+    // Conexión y entrada en las salas
+    List<Bot> connected = new CopyOnWriteArrayList<>();
+    CountDownLatch joined = new CountDownLatch(bots);
+    long start = System.nanoTime();
+    for (int i = 0; i < bots; i++) {
+      Bot bot = new Bot(i, joined);
+      if (bot.client.connect(host, port)) {
+        connected.add(bot);
+      } else {
+        connectFailures.incrementAndGet();
+        joined.countDown();
+      }
+    }
+    for (Bot bot : connected) {
+      bot.join("load-" + bot.index / roomSize);
+    }
+    boolean allJoined = joined.await(JOIN_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+    System.out.printf("Conectados: %d en %d ms%s%n", connected.size(),
+        (System.nanoTime() - start) / 1_000_000, allJoined ? "" : " (no todos entraron en su sala)");
+    List<Spectator> watching = watch((bots + roomSize - 1) / roomSize);
+
+    // Turnos de los bots: pocos hilos para todos, con la espera entre acciones programada
+    running = true;
+    ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(
+        Math.max(2, Runtime.getRuntime().availableProcessors()));
+    long runStart = System.nanoTime();
+    for (Bot bot : connected) {
+      bot.send(Message.Type.CLAN_CONFIG, bot.clanConfig());
+      scheduler.schedule(() -> bot.play(scheduler), think(), TimeUnit.MILLISECONDS);
+    }
+    for (int s = 1; s <= durationSeconds; s++) {
+      Thread.sleep(1000);
+      System.out.printf(Locale.ROOT, "[%3ds] enviados=%d recibidos=%d latencia %s%n",
+          s, sent.get(), received.get(), latency);
+    }
+    running = false;
+    scheduler.shutdown();
+    scheduler.awaitTermination(5, TimeUnit.SECONDS);
+    double seconds = (System.nanoTime() - runStart) / 1e9;
+
+    // Esperar a que vuelvan los mensajes aún en vuelo
+    long deadline = System.currentTimeMillis() + DRAIN_TIMEOUT_MS;
+    while (echoed.get() < sent.get() && System.currentTimeMillis() < deadline) {
+      Thread.sleep(50);
+    }
+    report(seconds, connected.size(), connected.isEmpty() ? null : connected.get(0).client.getCompressionStats());
+    if (!watching.isEmpty()) {
+      System.out.printf(Locale.ROOT, "Espectadores: %d, recibidos %d (%.0f msg/s), desde la creación %s%n",
+          watching.size(), spectatorReceived.get(), spectatorReceived.get() / seconds, spectatorLatency);
+    }
+
+    for (Bot bot : connected) {
+      bot.client.disconnect();
+    }
+    for (Spectator spectator : watching) {
+      spectator.client.disconnect();
+    }
+    if (server != null) {
+      server.stop();
+    }
+  }
+
+  // Los espectadores entran de uno en uno en cada sala, en orden
+  private List<Spectator> watch(int rooms) throws InterruptedException {
+    List<Spectator> watching = new CopyOnWriteArrayList<>();
+    if (spectators <= 0 || rooms <= 0) return watching;
+    CountDownLatch accepted = new CountDownLatch(spectators);
+    long start = System.nanoTime();
+    for (int i = 0; i < spectators; i++) {
+      Spectator spectator = new Spectator(accepted);
+      if (spectator.client.connect(host, port)) {
+        watching.add(spectator);
+        spectator.client.spectate("load-" + i % rooms, spectatorDelaySeconds);
+      } else {
+        connectFailures.incrementAndGet();
+        accepted.countDown();
+      }
+    }
+    boolean all = accepted.await(JOIN_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+    System.out.printf("Espectadores: %d en %d ms%s%n", watching.size(),
+        (System.nanoTime() - start) / 1_000_000, all ? "" : " (no todos confirmados)");
+    return watching;
+  }
+
+  private long think() {
+    return (long) (thinkMs * (0.5 + ThreadLocalRandom.current().nextDouble()));
+  }
+
+  private void report(double seconds, int connected, CompressionStats compression) {
+    long lost = sent.get() - echoed.get();
+    long attempted = bots + sent.get();
+    long failed = connectFailures.get() + errors.get() + lost;
+    System.out.println();
+    System.out.printf(Locale.ROOT, "Bots: %d conectados, %d fallos de conexión, %d desconexiones, %d errores%n",
+        connected, connectFailures.get(), disconnects.get(), errors.get());
+    System.out.printf(Locale.ROOT, "Enviados: %d en %.1f s (%.0f msg/s) %s%n",
+        sent.get(), seconds, sent.get() / seconds, sentByType);
+    System.out.printf(Locale.ROOT, "Recibidos: %d (%.0f msg/s), propios de vuelta: %d, perdidos: %d%n",
+        received.get(), received.get() / seconds, echoed.get(), lost);
+    System.out.printf(Locale.ROOT, "Latencia ida y vuelta: media %.2f ms, p50<=%.0f ms, p90<=%.0f ms, p99<=%.0f ms, p99.9<=%.0f ms, máx %.1f ms%n",
+        latency.getMeanMillis(), latency.percentileMillis(50), latency.percentileMillis(90),
+        latency.percentileMillis(99), latency.percentileMillis(99.9), latency.getMaxMillis());
+    if (compression != null && compression.getCompressedFrames() + compression.getIncompressibleFrames() > 0) {
+      System.out.println("Compresión (proceso): " + compression);
+    }
+    System.out.printf(Locale.ROOT, "Tasa de error: %.3f%% (%d de %d)%n",
+        attempted == 0 ? 0 : 100.0 * failed / attempted, failed, attempted);
+  }
+
+  private class Spectator implements GameClient.MessageListener {
+    final GameClient client;
+    private final CountDownLatch accepted;
+    private volatile boolean watching;
+
+    Spectator(CountDownLatch accepted) {
+      this.accepted = accepted;
+      this.client = new GameClient(this);
+    }
+
+    @Override
+    public void onMessageReceived(Message message) {
+      if (message.getType() == Message.Type.SPECTATE && !watching) {
+        watching = true;
+        accepted.countDown();
+        return;
+      }
+      if (message.getSeq() != 0) {
+        // Mismo proceso que los bots: el timestamp sirve de reloj común
+        spectatorReceived.incrementAndGet();
+        spectatorLatency.record(TimeUnit.MILLISECONDS.toNanos(
+            Math.max(0, System.currentTimeMillis() - message.getTimestamp())));
+      }
+    }
+
+    @Override
+    public void onConnected(String playerId) {}
+
+    @Override
+    public void onDisconnected() {
+      if (running) {
+        disconnects.incrementAndGet();
+      }
+    }
+
+    @Override
+    public void onError(String errorMessage) {
+      errors.incrementAndGet();
+    }
+  }
+
+  private class Bot implements GameClient.MessageListener {
+    final int index;
+    final GameClient client;
+    private final CountDownLatch joined;
+    private final Random random;
+    // Envíos aún sin retransmitir: seq -> System.nanoTime() del envío
+    private final Map<Long, Long> inFlight = new ConcurrentHashMap<>();
+    private volatile boolean inRoom;
+    private long version;
+
+    Bot(int index, CountDownLatch joined) {
+      this.index = index;
+      this.joined = joined;
+      this.random = new Random(index);
+      this.client = new GameClient(this);
+    }
+
+    void join(String room) {
+      client.joinRoom(room);
+    }
+
+    void play(ScheduledExecutorService scheduler) {
+      if (!running || !client.isConnected()) return;
+      int roll = ThreadLocalRandom.current().nextInt(100);
+      int battle = random.nextInt(4);
+      if (roll < ATTACK_WEIGHT) {
+        // Mismo formato que BattleProtocol.attack
+        int base = 10 + random.nextInt(30);
+        int damage = Math.max(1, base - random.nextInt(10));
+        send(Message.Type.ATTACK, String.format(Locale.ROOT, "%d|%d|%d|%d|%d|%d|%b|%.2f|%d|%d|%d",
+            battle, random.nextInt(30), 30 + random.nextInt(30), base, damage, random.nextInt(120),
+            random.nextInt(10) == 0, 0.5 + random.nextInt(3) * 0.25, 1 + random.nextInt(8),
+            random.nextInt(30), 1 + random.nextInt(3)));
+      } else if (roll < ATTACK_WEIGHT + MOVE_WEIGHT) {
+        int row = random.nextInt(12);
+        int col = random.nextInt(12);
+        send(Message.Type.MOVE, BattleProtocol.move(battle, random.nextInt(60),
+            new Position(row, col), new Position(row, Math.min(11, col + 1))));
+      } else if (roll < ATTACK_WEIGHT + MOVE_WEIGHT + TURN_END_WEIGHT) {
+        send(Message.Type.TURN_END, battle + "|" + (++version) + "|" + Long.toHexString(random.nextLong()));
+      } else {
+        send(Message.Type.CHAT, "bot " + index + " turno " + version);
+      }
+      if (running) {
+        scheduler.schedule(() -> play(scheduler), think(), TimeUnit.MILLISECONDS);
+      }
+    }
+
+    void send(Message.Type type, String data) {
+      Message msg = new Message(type, data, client.getPlayerId());
+      msg.setUsername("bot-" + index);
+      // El seq lo pone el cliente; se reserva antes para reconocer el eco
+      client.assignSeq(msg);
+      inFlight.put(msg.getSeq(), System.nanoTime());
+      client.sendMessage(msg);
+      sent.incrementAndGet();
+      sentByType.get(type).incrementAndGet();
+    }
+
+    // Mismo formato que el CLAN_CONFIG de la interfaz (ClanCodec)
+    String clanConfig() {
+      Clan clan = Fixtures.clan("Bots" + index, clanWarriors, index);
+      clan.setRgb(random.nextInt(0x1000000));
+      return ClanCodec.encode(clan);
+    }
+
+    @Override
+    public void onMessageReceived(Message message) {
+      received.incrementAndGet();
+      if (message.getType() == Message.Type.JOIN_ROOM && !inRoom) {
+        inRoom = true;
+        joined.countDown();
+        return;
+      }
+      if (message.getSeq() != 0 && client.getPlayerId() != null
+          && client.getPlayerId().equals(message.getPlayerId())) {
+        Long sentAt = inFlight.remove(message.getSeq());
+        if (sentAt != null) {
+          latency.record(System.nanoTime() - sentAt);
+          echoed.incrementAndGet();
+        }
+      }
+    }
+
+    @Override
+    public void onConnected(String playerId) {}
+
+    @Override
+    public void onDisconnected() {
+      if (running) {
+        disconnects.incrementAndGet();
+      }
+    }
+
+    @Override
+    public void onError(String errorMessage) {
+      errors.incrementAndGet();
+    }
+  }
+}
@@ -0,0 +1,16 @@
+package com.battlesimulator.benchmarks;
+
+import com.battlesimulator.domain.Clan;
+import com.battlesimulator.network.AbstractGameServer;
+
+/**
+ * Listener vacío para los servidores que arrancan las pruebas de carga.
+ */
+class SilentListener implements AbstractGameServer.ServerListener {
+  @Override public void onPlayerConnected(String playerId) {}
+  @Override public void onPlayerDisconnected(String playerId) {}
+  @Override public void onClanConfigured(String playerId, Clan clan) {}
+  @Override public void onWarStartRequested() {}
+  @Override public void onAttackReceived(String playerId, String attackData) {}
+  @Override public void onChatMessage(String playerId, String message) {}
+}
@@ -0,0 +1,61 @@
+package com.battlesimulator.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.battlesimulator.domain.Clan;
+import com.battlesimulator.usecases.WarEngine;
+
+/**
+ * Guerra completa sin interfaz (WarEngine con políticas greedy). Cada
+ * medición es una guerra entera sobre copias recién creadas de los clanes;
+ * con 100000 guerreros por bando una sola guerra tarda minutos.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Thread)
+public class WarBenchmark {
+
+  @Param({"10", "1000", "100000"})
+  public int armySize;
+
+  private Clan template1;
+  private Clan template2;
+  private Clan clan1;
+  private Clan clan2;
+  private long seed;
+
+  @Setup(Level.Trial)
+  public void createTemplates() {
+    template1 = Fixtures.clan("A", armySize, 1);
+    template2 = Fixtures.clan("B", armySize, 2);
+  }
+
+  // Fuera de la medición: cada guerra empieza con los clanes intactos
+  @Setup(Level.Invocation)
+  public void copyClans() {
+    clan1 = template1.copy();
+    clan2 = template2.copy();
+    seed++;
+  }
+
+  @Benchmark
+  public Clan simulateWar() {
+    return new WarEngine(clan1, clan2, seed).simulate();
+  }
+}
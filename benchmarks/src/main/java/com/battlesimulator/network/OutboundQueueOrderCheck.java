@@ -0,0 +1,216 @@
+package com.battlesimulator.network;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Comprueba que OutboundQueue no cambia el orden que ve el cliente al fusionar
+ * BATTLE_UPDATE: se encolan secuencias como las del servidor autoritativo
+ * (ATTACK o MOVE seguido de su delta, BATTLE_END, chat...) vaciando la cola a
+ * ratos, y sobre lo entregado se verifica que:
+ * - lo que no se fusiona ni se descarta sale en el mismo orden relativo,
+ * - antes de cada uno de ellos que dependa de las batallas (todo salvo chat y
+ *   control de la conexión) el cliente tiene, por batalla, la misma versión
+ *   que tenía el servidor al enviarlo,
+ * - los deltas de cada batalla encadenan y terminan en la misma versión.
+ *
+ * java -cp benchmarks/target/benchmarks.jar com.battlesimulator.network.OutboundQueueOrderCheck \
+ *   --rounds 2000 --battles 3
+ *
+ * Sale con código 1 si algún orden no se conserva.
+ */
+public class OutboundQueueOrderCheck {
+  private static final MessageCodec CODEC = MessageCodec.BINARY;
+
+  private int rounds = 2000;
+  private int battles = 3;
+  private int steps = 200;
+  private long seed = 1;
+
+  // Lo encolado y lo entregado en la ronda actual
+  private final List<Message> sent = new ArrayList<>();
+  private final List<Message> delivered = new ArrayList<>();
+  private long coalesced;
+  private long coalescedInQueue;
+
+  public static void main(String[] args) throws Exception {
+    OutboundQueueOrderCheck check = new OutboundQueueOrderCheck();
+    for (int i = 0; i + 1 < args.length; i += 2) {
+      String value = args[i + 1];
+      switch (args[i]) {
+        case "--rounds" -> check.rounds = Integer.parseInt(value);
+        case "--battles" -> check.battles = Integer.parseInt(value);
+        case "--steps" -> check.steps = Integer.parseInt(value);
+        case "--seed" -> check.seed = Long.parseLong(value);
+        default -> throw new IllegalArgumentException("Opción desconocida: " + args[i]);
+      }
+    }
+    String failure = check.run();
+    if (failure != null) {
+      System.out.println("FALLO: " + failure);
+      System.exit(1);
+    }
+    System.out.printf("Orden conservado en %d rondas (%d mensajes fusionados o descartados)%n",
+        check.rounds, check.coalesced);
+    System.exit(0);
+  }
+
+  private String run() throws IOException {
+    String failure = fixedCases();
+    for (int r = 0; failure == null && r < rounds; r++) {
+      failure = randomRound(new Random(seed + r));
+      if (failure != null) failure = "ronda " + r + ": " + failure;
+    }
+    return failure;
+  }
+
+  // Casos concretos: qué se fusiona y qué no
+  private String fixedCases() throws IOException {
+    OutboundQueue queue = start();
+    offer(queue, update(0, 0, 1), false);
+    offer(queue, new Message(Message.Type.ATTACK, "0|0|1"), false);
+    offer(queue, update(0, 1, 2), false);
+    drain(queue);
+    if (delivered.size() != 3) return "se fusionaron dos deltas separados por un ATTACK";
+    String failure = verify();
+    if (failure != null) return failure;
+
+    queue = start();
+    offer(queue, update(0, 0, 1), false);
+    offer(queue, new Message(Message.Type.BATTLE_END, "0|A1"), false);
+    offer(queue, update(0, 1, 2), false);
+    drain(queue);
+    if (delivered.size() != 3) return "se fusionaron dos deltas separados por un BATTLE_END";
+    failure = verify();
+    if (failure != null) return failure;
+
+    queue = start();
+    offer(queue, update(0, 0, 1), false);
+    offer(queue, new Message(Message.Type.MOVE, "0|0|0|0|1|1"), true);
+    offer(queue, update(1, 0, 1), false);
+    offer(queue, new Message(Message.Type.CHAT, "hola"), false);
+    offer(queue, update(0, 1, 2), false);
+    drain(queue);
+    if (delivered.size() != 3) {
+      return "no se fusionaron dos deltas separados solo por MOVE, otra batalla y CHAT";
+    }
+    return verify();
+  }
+
+  private String randomRound(Random random) throws IOException {
+    OutboundQueue queue = start();
+    long[] versions = new long[battles];
+    boolean[] over = new boolean[battles];
+    for (int step = 0; step < steps; step++) {
+      int b = random.nextInt(battles);
+      int roll = random.nextInt(100);
+      if (roll < 5) {
+        offer(queue, new Message(Message.Type.CHAT, "chat " + step), false);
+      } else if (roll < 8) {
+        offer(queue, new Message(Message.Type.PING, Long.toString(step)), false);
+      } else if (roll < 10) {
+        offer(queue, new Message(Message.Type.SYNC_RESPONSE, "0|" + step), false);
+      } else if (!over[b]) {
+        // Acción del jugador (ATTACK o MOVE) y el delta que produce
+        if (random.nextBoolean()) {
+          offer(queue, new Message(Message.Type.ATTACK, b + "|0|1"), false);
+        } else {
+          offer(queue, new Message(Message.Type.MOVE, b + "|0|0|0|1|" + step), true);
+        }
+        offer(queue, update(b, versions[b], versions[b] + 1), false);
+        versions[b]++;
+        if (random.nextInt(40) == 0) {
+          offer(queue, new Message(Message.Type.BATTLE_END, b + "|A" + b), false);
+          over[b] = true;
+        }
+      }
+      if (random.nextInt(25) == 0) drain(queue);
+    }
+    drain(queue);
+    return verify();
+  }
+
+  private OutboundQueue start() {
+    sent.clear();
+    delivered.clear();
+    coalescedInQueue = 0;
+    return new OutboundQueue();
+  }
+
+  private void offer(OutboundQueue queue, Message message, boolean replaceable) {
+    sent.add(message);
+    queue.offer(new OutboundMessage(message, replaceable), CODEC);
+  }
+
+  private void drain(OutboundQueue queue) throws IOException {
+    for (java.nio.ByteBuffer buffer : queue.drain()) {
+      byte[] frame = buffer.array();
+      int end = CODEC.frameEnd(frame, 0, frame.length, 0);
+      delivered.add(CODEC.decode(frame, 0, end));
+    }
+    coalesced += queue.getCoalesced() - coalescedInQueue;
+    coalescedInQueue = queue.getCoalesced();
+  }
+
+  private String verify() {
+    // Versión por batalla en el servidor antes de cada mensaje que debe llegar tal cual
+    List<String> expected = new ArrayList<>();
+    Map<String, Long> server = new HashMap<>();
+    for (Message m : sent) {
+      if (m.getType() == Message.Type.BATTLE_UPDATE) {
+        server.put(battleOf(m), versionOf(m));
+      } else if (m.getType() != Message.Type.MOVE) {
+        expected.add(describe(m, server));
+      }
+    }
+    List<String> actual = new ArrayList<>();
+    Map<String, Long> client = new HashMap<>();
+    for (Message m : delivered) {
+      if (m.getType() == Message.Type.BATTLE_UPDATE) {
+        String battle = battleOf(m);
+        long since = Long.parseLong(m.getData().split("\\|")[6]);
+        long current = client.getOrDefault(battle, 0L);
+        if (since != current) {
+          return "el delta de la batalla " + battle + " empieza en " + since + " y el cliente está en " + current;
+        }
+        client.put(battle, versionOf(m));
+      } else if (m.getType() != Message.Type.MOVE) {
+        actual.add(describe(m, client));
+      }
+    }
+    if (!expected.equals(actual)) {
+      return "orden o versiones distintos:\n  esperado " + expected + "\n  recibido " + actual;
+    }
+    if (!server.equals(client)) {
+      return "versiones finales distintas: servidor " + server + ", cliente " + client;
+    }
+    return null;
+  }
+
+  // index|clan1Army|army1Id|clan2Army|army2Id|descripción|since|version|turno|slot|celda|vida|escudo|arma
+  private static Message update(int battle, long since, long version) {
+    return new Message(Message.Type.BATTLE_UPDATE, battle + "|1|A" + battle + "|2|B" + battle + "|batalla|"
+        + since + "|" + version + "|1|" + (version % 4) + "|5|" + (100 - version) + "|10|1");
+  }
+
+  private static String battleOf(Message m) {
+    return m.getData().substring(0, m.getData().indexOf('|'));
+  }
+
+  private static long versionOf(Message m) {
+    return Long.parseLong(m.getData().split("\\|")[7]);
+  }
+
+  // Chat y control pueden adelantar a un delta fusionado: de ellos solo cuenta el orden
+  private static String describe(Message m, Map<String, Long> versions) {
+    String text = m.getType() + "(" + m.getData() + ")";
+    return switch (m.getType()) {
+      case CHAT, PING, PONG, ACK -> text;
+      default -> text + " @" + versions;
+    };
+  }
+}
@@ -2,34 +2,97 @@ package com.battlesimulator.domain;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
 
 public class Army {
   private final List<IWarrior> warriors = new ArrayList<>();
   private boolean hasFought = false;
   private String id;
   private Clan clan;
+  // Se mantienen al día con cada cambio de vida de sus guerreros
+  private int aliveCount;
+  private long totalHealth;
+  // Almacén por arreglos si el ejército se creó con ArmyState.toArmy()
+  private ArmyState state;
 
   public void addWarrior(IWarrior warrior) {
     warriors.add(warrior);
+    warrior.setArmy(this);
+    if (warrior.isAlive()) {
+      aliveCount++;
+      totalHealth += warrior.getHealth();
+    }
+  }
+
+  /**
+   * Notificación de un guerrero de este ejército cuya vida cambió.
+   */
+  void onHealthChanged(int oldHealth, int newHealth) {
+    totalHealth += Math.max(0, newHealth) - Math.max(0, oldHealth);
+    if (oldHealth > 0 && newHealth <= 0) {
+      aliveCount--;
+    } else if (oldHealth <= 0 && newHealth > 0) {
+      aliveCount++;
+    }
   }
 
   public List<IWarrior> getWarriors() {
-    return warriors.stream().filter(IWarrior::isAlive).collect(Collectors.toCollection(ArrayList::new));
+    List<IWarrior> alive = new ArrayList<>(aliveCount);
+    for (IWarrior w : warriors) {
+      if (w.isAlive()) alive.add(w);
+    }
+    return alive;
   }
 
   public List<IWarrior> getAllWarriors() {
     return new ArrayList<>(warriors);
   }
 
+  // Acceso por índice sin copiar la lista (usado por la simulación sin interfaz)
+  public int getWarriorCount() {
+    return warriors.size();
+  }
+
+  public IWarrior getWarrior(int index) {
+    return warriors.get(index);
+  }
+
+  public int getAliveCount() {
+    return aliveCount;
+  }
+
+  public long getTotalHealth() {
+    return totalHealth;
+  }
+
   public boolean isDefeated() {
-    return getWarriors().isEmpty();
+    return aliveCount == 0;
   }
 
   public int getLevel() {
-    List<IWarrior> alive = getWarriors();
-    int totalHealth = alive.stream().mapToInt(IWarrior::getHealth).sum();
-    return alive.size() * 10 + totalHealth / 10;
+    return (int) (aliveCount * 10L + totalHealth / 10);
+  }
+
+  void setState(ArmyState state) {
+    this.state = state;
+  }
+
+  /**
+   * Copia el ejército en estado inicial para el clan indicado, sin tocar los
+   * guerreros originales. Los ejércitos por arreglos se copian arreglo a arreglo.
+   */
+  public Army copy(Clan newClan) {
+    if (state != null) {
+      return state.copy(newClan).toArmy();
+    }
+    Army copy = new Army();
+    copy.setId(id);
+    copy.setClan(newClan);
+    for (IWarrior w : warriors) {
+      IWarrior c = w.copy();
+      c.setClan(newClan);
+      copy.addWarrior(c);
+    }
+    return copy;
   }
 
   public void setHasFought(boolean fought) {
@@ -55,4 +118,4 @@ public class Army {
   public Clan getClan() {
     return clan;
   }
-}
\ No newline at end of file
+}
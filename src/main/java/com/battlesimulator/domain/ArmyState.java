@@ -0,0 +1,485 @@
+package com.battlesimulator.domain;
+
+import java.util.Arrays;
+
+/**
+ * Almacén de un ejército en arreglos paralelos (structure-of-arrays) para
+ * simulaciones masivas. Cada guerrero es un índice; las vistas IWarrior/IWeapon
+ * leen y escriben directamente sobre los arreglos, de modo que Army,
+ * InteractiveBattle y los motores funcionan igual que con objetos Warrior.
+ *
+ * El tipo de un guerrero define también su arma (melee-espada, ranged-arco,
+ * magic-varita), igual que en ConfigDialog.
+ */
+public class ArmyState {
+  private static final Element[] ELEMENTS = Element.values();
+
+  private final String armyId;
+  private final Clan clan;
+  private Army army;
+  private int size;
+
+  private int[] health;
+  private int[] initialHealth;
+  private int[] shield;
+  private int[] initialShield;
+  private int[] strength;
+  private byte[] element;
+  // Ordinal de WarriorType
+  private byte[] type;
+  private int[] weaponLevel;
+  private int[] weaponDamage;
+  private int[] weaponInitialDamage;
+  private byte[] weaponElement;
+  private Position[] position;
+  // Bit i encendido = guerrero i vivo
+  private long[] live;
+  private int aliveCount;
+  private long totalHealth;
+  private Unit[] views;
+
+  public ArmyState(String armyId, Clan clan, int capacity) {
+    this.armyId = armyId;
+    this.clan = clan;
+    allocate(Math.max(capacity, 1));
+  }
+
+  private void allocate(int capacity) {
+    health = Arrays.copyOf(health == null ? new int[0] : health, capacity);
+    initialHealth = Arrays.copyOf(initialHealth == null ? new int[0] : initialHealth, capacity);
+    shield = Arrays.copyOf(shield == null ? new int[0] : shield, capacity);
+    initialShield = Arrays.copyOf(initialShield == null ? new int[0] : initialShield, capacity);
+    strength = Arrays.copyOf(strength == null ? new int[0] : strength, capacity);
+    element = Arrays.copyOf(element == null ? new byte[0] : element, capacity);
+    type = Arrays.copyOf(type == null ? new byte[0] : type, capacity);
+    weaponLevel = Arrays.copyOf(weaponLevel == null ? new int[0] : weaponLevel, capacity);
+    weaponDamage = Arrays.copyOf(weaponDamage == null ? new int[0] : weaponDamage, capacity);
+    weaponInitialDamage = Arrays.copyOf(weaponInitialDamage == null ? new int[0] : weaponInitialDamage, capacity);
+    weaponElement = Arrays.copyOf(weaponElement == null ? new byte[0] : weaponElement, capacity);
+    position = Arrays.copyOf(position == null ? new Position[0] : position, capacity);
+    live = Arrays.copyOf(live == null ? new long[0] : live, (capacity + 63) >>> 6);
+    views = Arrays.copyOf(views == null ? new Unit[0] : views, capacity);
+  }
+
+  /**
+   * Agrega un guerrero y devuelve su índice.
+   */
+  public int add(WarriorType warriorType, int hp, int sh, int str, Element elem, int wDamage, Element wElement) {
+    if (size == health.length) {
+      allocate(size * 2);
+    }
+    int i = size++;
+    type[i] = (byte) warriorType.ordinal();
+    health[i] = initialHealth[i] = hp;
+    shield[i] = initialShield[i] = sh;
+    strength[i] = str;
+    element[i] = (byte) elem.ordinal();
+    weaponLevel[i] = 1;
+    weaponDamage[i] = weaponInitialDamage[i] = wDamage;
+    weaponElement[i] = (byte) wElement.ordinal();
+    if (hp > 0) {
+      setLive(i, true);
+      totalHealth += hp;
+    }
+    return i;
+  }
+
+  /**
+   * Crea un Army cuyos guerreros son vistas sobre este almacén.
+   */
+  public Army toArmy() {
+    Army army = new Army();
+    army.setId(armyId);
+    army.setClan(clan);
+    army.setState(this);
+    this.army = army;
+    for (int i = 0; i < size; i++) {
+      army.addWarrior(view(i));
+    }
+    return army;
+  }
+
+  /**
+   * Nuevo almacén con los mismos guerreros en estado inicial.
+   */
+  public ArmyState copy(Clan newClan) {
+    ArmyState copy = new ArmyState(armyId, newClan, size);
+    for (int i = 0; i < size; i++) {
+      copy.add(WarriorType.fromOrdinal(type[i]), initialHealth[i], initialShield[i], strength[i],
+          ELEMENTS[element[i]], weaponInitialDamage[i], ELEMENTS[weaponElement[i]]);
+      Unit u = views[i];
+      if (u != null && (u.number != 0 || u.ownArmyId != null)) {
+        Unit c = (Unit) copy.view(i);
+        c.number = u.number;
+        c.ownArmyId = u.ownArmyId;
+      }
+    }
+    return copy;
+  }
+
+  /**
+   * Vista IWarrior del guerrero i. Se crea una sola vez por índice para que
+   * las comparaciones por identidad sigan funcionando.
+   */
+  public IWarrior view(int i) {
+    Unit u = views[i];
+    if (u == null) {
+      u = new Unit(i);
+      views[i] = u;
+    }
+    return u;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public int aliveCount() {
+    return aliveCount;
+  }
+
+  public long totalHealth() {
+    return totalHealth;
+  }
+
+  public boolean isAlive(int i) {
+    return (live[i >>> 6] & (1L << i)) != 0;
+  }
+
+  /**
+   * Primer guerrero vivo con índice >= from, o -1 si no queda ninguno.
+   */
+  public int nextAlive(int from) {
+    if (from >= size) return -1;
+    int word = from >>> 6;
+    long bits = live[word] & (-1L << from);
+    while (true) {
+      if (bits != 0) {
+        int i = (word << 6) + Long.numberOfTrailingZeros(bits);
+        return i < size ? i : -1;
+      }
+      if (++word >= live.length) return -1;
+      bits = live[word];
+    }
+  }
+
+  public int getHealth(int i) {
+    return health[i];
+  }
+
+  public int getShield(int i) {
+    return shield[i];
+  }
+
+  public WarriorType getType(int i) {
+    return WarriorType.fromOrdinal(type[i]);
+  }
+
+  public int getWeaponLevel(int i) {
+    return weaponLevel[i];
+  }
+
+  /**
+   * Restaura a todos los guerreros a su estado inicial. Si el almacén está
+   * envuelto en un Army se reinicia guerrero a guerrero para que sus
+   * contadores se mantengan.
+   */
+  public void resetAll() {
+    if (army != null) {
+      for (int i = 0; i < size; i++) {
+        view(i).reset();
+      }
+      return;
+    }
+    System.arraycopy(initialHealth, 0, health, 0, size);
+    System.arraycopy(initialShield, 0, shield, 0, size);
+    System.arraycopy(weaponInitialDamage, 0, weaponDamage, 0, size);
+    Arrays.fill(weaponLevel, 0, size, 1);
+    Arrays.fill(position, 0, size, null);
+    Arrays.fill(live, 0L);
+    aliveCount = 0;
+    totalHealth = 0;
+    for (int i = 0; i < size; i++) {
+      if (health[i] > 0) {
+        setLive(i, true);
+        totalHealth += health[i];
+      }
+    }
+  }
+
+  private void setLive(int i, boolean alive) {
+    long mask = 1L << i;
+    boolean was = (live[i >>> 6] & mask) != 0;
+    if (alive && !was) {
+      live[i >>> 6] |= mask;
+      aliveCount++;
+    } else if (!alive && was) {
+      live[i >>> 6] &= ~mask;
+      aliveCount--;
+    }
+  }
+
+  private void updateHealth(int i, int newHealth, Army owner) {
+    int oldHealth = health[i];
+    totalHealth += newHealth - oldHealth;
+    health[i] = newHealth;
+    setLive(i, newHealth > 0);
+    if (owner != null) {
+      owner.onHealthChanged(oldHealth, newHealth);
+    }
+  }
+
+  private int weaponAttack(int i) {
+    int base = weaponDamage[i] * weaponLevel[i];
+    return switch (WarriorType.fromOrdinal(type[i])) {
+      case RANGED -> (int) (base * 0.8);
+      case MAGIC -> base + 10;
+      default -> base;
+    };
+  }
+
+  /**
+   * Vista de un guerrero del almacén. Las reglas replican Warrior y sus subclases.
+   * Id de ejército, número, clan y ejército son los del almacén salvo que se
+   * cambien en la vista: el cambio queda en ella y no afecta a las demás.
+   */
+  private final class Unit implements IWarrior {
+    private final int i;
+    private final UnitWeapon weapon;
+    // 0 / null = el valor del almacén (número = índice + 1)
+    private int number;
+    private String ownArmyId;
+    private Clan ownClan;
+    private Army ownArmy;
+
+    Unit(int i) {
+      this.i = i;
+      this.weapon = new UnitWeapon(i);
+    }
+
+    @Override
+    public DamageReport attack(IWarrior target) {
+      WarriorType t = WarriorType.fromOrdinal(type[i]);
+      int baseDamage = t == WarriorType.RANGED ? weaponAttack(i) + strength[i] / 2 : weaponAttack(i) + strength[i];
+      int distance = CombatRules.calculateDistance(position[i], target.getPosition());
+      double distanceMultiplier = CombatRules.getDistanceMultiplier(t, distance);
+      CombatRules.AttackEfficiency efficiency = CombatRules.getAttackEfficiency(distanceMultiplier);
+      return target.takeDamageWithDistance(baseDamage, ELEMENTS[weaponElement[i]], distanceMultiplier, distance, efficiency);
+    }
+
+    @Override
+    public DamageReport takeDamage(int damage, Element attackElement) {
+      return takeDamageWithDistance(damage, attackElement, 1.0, 0, CombatRules.AttackEfficiency.NORMAL);
+    }
+
+    @Override
+    public DamageReport takeDamageWithDistance(int baseDamage, Element attackElement, double distanceMultiplier,
+                                               int distance, CombatRules.AttackEfficiency efficiency) {
+      double elementMultiplier = attackElement.getDamageMultiplier(ELEMENTS[element[i]]);
+      int effectiveDamage = (int) (baseDamage * elementMultiplier * distanceMultiplier);
+      int absorbed = Math.min(shield[i], effectiveDamage);
+      int finalDamage = effectiveDamage - absorbed;
+      shield[i] -= absorbed;
+      int newHealth = health[i] - finalDamage;
+      boolean killed = newHealth <= 0;
+      if (killed) {
+        newHealth = 0;
+        weapon.upgrade();
+      }
+      updateHealth(i, newHealth, ownArmy);
+      return new DamageReport(baseDamage, elementMultiplier, distanceMultiplier,
+                              effectiveDamage, absorbed, finalDamage, killed, distance, efficiency);
+    }
+
+    @Override
+    public boolean isAlive() {
+      return health[i] > 0;
+    }
+
+    private String armyId() {
+      return ownArmyId != null ? ownArmyId : armyId;
+    }
+
+    @Override
+    public String getName() {
+      return armyId() + getNumber();
+    }
+
+    @Override
+    public int getHealth() {
+      return health[i];
+    }
+
+    @Override
+    public IWeapon getWeapon() {
+      return weapon;
+    }
+
+    @Override
+    public Position getPosition() {
+      return position[i];
+    }
+
+    @Override
+    public void setPosition(Position p) {
+      position[i] = p;
+    }
+
+    @Override
+    public String getId() {
+      return armyId() + getNumber();
+    }
+
+    @Override
+    public Clan getClan() {
+      return ownClan != null ? ownClan : clan;
+    }
+
+    @Override
+    public int getNumber() {
+      return number != 0 ? number : i + 1;
+    }
+
+    @Override
+    public int getStrength() {
+      return strength[i];
+    }
+
+    @Override
+    public int getShield() {
+      return shield[i];
+    }
+
+    @Override
+    public Element getElement() {
+      return ELEMENTS[element[i]];
+    }
+
+    @Override
+    public void setArmyId(String id) {
+      ownArmyId = id;
+    }
+
+    @Override
+    public void setNumber(int n) {
+      number = n != i + 1 ? n : 0;
+    }
+
+    @Override
+    public void setClan(Clan c) {
+      ownClan = c;
+    }
+
+    @Override
+    public IWarrior copy() {
+      IWeapon w = weapon.copy();
+      Element e = ELEMENTS[element[i]];
+      IWarrior c = switch (WarriorType.fromOrdinal(type[i])) {
+        case RANGED -> new RangedWarrior(getName(), initialHealth[i], initialShield[i], strength[i], e, w);
+        case MAGIC -> new MagicWarrior(getName(), initialHealth[i], initialShield[i], strength[i], e, w);
+        default -> new MeleeWarrior(getName(), initialHealth[i], initialShield[i], strength[i], e, w);
+      };
+      c.setArmyId(armyId());
+      c.setNumber(getNumber());
+      c.setClan(getClan());
+      return c;
+    }
+
+    @Override
+    public void setArmy(Army a) {
+      ownArmy = a;
+    }
+
+    @Override
+    public Army getArmy() {
+      return ownArmy;
+    }
+
+    @Override
+    public void reset() {
+      shield[i] = initialShield[i];
+      position[i] = null;
+      weapon.reset();
+      updateHealth(i, initialHealth[i], ownArmy);
+    }
+
+    @Override
+    public void setHealth(int hp) {
+      updateHealth(i, Math.max(0, hp), ownArmy);
+    }
+
+    @Override
+    public void setShield(int sh) {
+      shield[i] = Math.max(0, sh);
+    }
+
+    @Override
+    public WarriorType getType() {
+      return WarriorType.fromOrdinal(type[i]);
+    }
+  }
+
+  private final class UnitWeapon implements IWeapon {
+    private final int i;
+
+    UnitWeapon(int i) {
+      this.i = i;
+    }
+
+    @Override
+    public int attack() {
+      return weaponAttack(i);
+    }
+
+    @Override
+    public Element getElement() {
+      return ELEMENTS[weaponElement[i]];
+    }
+
+    @Override
+    public void upgrade() {
+      weaponLevel[i]++;
+      weaponDamage[i] += 5;
+    }
+
+    @Override
+    public int getLevel() {
+      return weaponLevel[i];
+    }
+
+    @Override
+    public int getInitialDamage() {
+      return weaponInitialDamage[i];
+    }
+
+    @Override
+    public String getType() {
+      return switch (WarriorType.fromOrdinal(type[i])) {
+        case RANGED -> "Arco";
+        case MAGIC -> "Varita mágica";
+        default -> "Espada";
+      };
+    }
+
+    @Override
+    public String getName() {
+      return getType() + " de " + getElement().toString().toLowerCase();
+    }
+
+    @Override
+    public IWeapon copy() {
+      Element e = ELEMENTS[weaponElement[i]];
+      return switch (WarriorType.fromOrdinal(type[i])) {
+        case RANGED -> new RangedWeapon(weaponInitialDamage[i], e);
+        case MAGIC -> new MagicWeapon(weaponInitialDamage[i], e);
+        default -> new MeleeWeapon(weaponInitialDamage[i], e);
+      };
+    }
+
+    @Override
+    public void reset() {
+      weaponLevel[i] = 1;
+      weaponDamage[i] = weaponInitialDamage[i];
+    }
+  }
+}
@@ -3,12 +3,12 @@ package com.battlesimulator.domain;
 import java.awt.Color;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
 
 public class Clan {
   private final String name;
   private final List<Army> armies = new ArrayList<>();
-  private Color color = Color.WHITE;
+  // Se guarda como RGB empaquetado para no cargar AWT en simulaciones sin interfaz
+  private int rgb = 0xFFFFFF;
 
   public Clan(String name) {
     this.name = name;
@@ -21,7 +21,31 @@ public class Clan {
   }
 
   public List<Army> getActiveArmies() {
-    return armies.stream().filter(a -> !a.isDefeated()).collect(Collectors.toCollection(ArrayList::new));
+    List<Army> active = new ArrayList<>(armies.size());
+    for (Army a : armies) {
+      if (!a.isDefeated()) active.add(a);
+    }
+    return active;
+  }
+
+  public int getActiveArmyCount() {
+    int count = 0;
+    for (Army a : armies) {
+      if (!a.isDefeated()) count++;
+    }
+    return count;
+  }
+
+  /**
+   * Copia el clan con todos sus ejércitos en estado inicial.
+   */
+  public Clan copy() {
+    Clan copy = new Clan(name);
+    copy.rgb = rgb;
+    for (Army a : armies) {
+      copy.addArmy(a.copy(copy));
+    }
+    return copy;
   }
 
   public List<Army> getAllArmies() {
@@ -29,7 +53,10 @@ public class Clan {
   }
 
   public boolean isDefeated() {
-    return getActiveArmies().isEmpty();
+    for (Army a : armies) {
+      if (!a.isDefeated()) return false;
+    }
+    return true;
   }
 
   public String getName() {
@@ -37,10 +64,18 @@ public class Clan {
   }
 
   public void setColor(Color color) {
-    this.color = color;
+    this.rgb = color.getRGB() & 0xFFFFFF;
   }
 
   public Color getColor() {
-    return color;
+    return new Color(rgb);
+  }
+
+  public void setRgb(int rgb) {
+    this.rgb = rgb & 0xFFFFFF;
+  }
+
+  public int getRgb() {
+    return rgb;
   }
 }
\ No newline at end of file
@@ -56,16 +56,42 @@ public class CombatRules {
     return Math.sqrt(dx * dx + dy * dy);
   }
   
+  // Distancia más lejana con multiplicador distinto de cero (rango máximo de RANGED)
+  private static final int TABLE_DISTANCES = RANGED_MAX_RANGE + 1;
+  
+  // Tablas precalculadas indexadas por [WarriorType.ordinal()][distancia]
+  private static final int[] MAX_RANGE = new int[WarriorType.values().length];
+  private static final double[][] MULTIPLIERS = new double[WarriorType.values().length][TABLE_DISTANCES];
+  private static final AttackEfficiency[][] EFFICIENCY = new AttackEfficiency[WarriorType.values().length][TABLE_DISTANCES];
+  // Multiplicador fuera de la tabla: 0 salvo para DEFAULT, que no depende de la distancia
+  private static final double[] BEYOND_TABLE = new double[WarriorType.values().length];
+  
+  static {
+    for (WarriorType type : WarriorType.values()) {
+      int t = type.ordinal();
+      MAX_RANGE[t] = switch (type) {
+        case MELEE -> MELEE_MAX_RANGE;
+        case RANGED -> RANGED_MAX_RANGE;
+        case MAGIC -> MAGIC_MAX_RANGE;
+        case DEFAULT -> 3;
+      };
+      for (int d = 0; d < TABLE_DISTANCES; d++) {
+        MULTIPLIERS[t][d] = computeMultiplier(type, d);
+        EFFICIENCY[t][d] = getAttackEfficiency(MULTIPLIERS[t][d]);
+      }
+      BEYOND_TABLE[t] = computeMultiplier(type, TABLE_DISTANCES);
+    }
+  }
+  
   /**
    * Obtiene el rango máximo de ataque para un tipo de guerrero.
    */
+  public static int getMaxRange(WarriorType type) {
+    return MAX_RANGE[type.ordinal()];
+  }
+  
   public static int getMaxRange(String warriorType) {
-    return switch (warriorType.toLowerCase()) {
-      case "melee" -> MELEE_MAX_RANGE;
-      case "ranged" -> RANGED_MAX_RANGE;
-      case "magic" -> MAGIC_MAX_RANGE;
-      default -> 3;
-    };
+    return getMaxRange(WarriorType.fromKey(warriorType));
   }
   
   /**
@@ -73,8 +99,7 @@ public class CombatRules {
    */
   public static boolean isInRange(IWarrior attacker, IWarrior target) {
     int distance = calculateDistance(attacker.getPosition(), target.getPosition());
-    int maxRange = getMaxRange(attacker.getWarriorType());
-    return distance <= maxRange && distance > 0;
+    return distance <= getMaxRange(attacker.getType()) && distance > 0;
   }
   
   /**
@@ -82,13 +107,25 @@ public class CombatRules {
    */
   public static double getDistanceMultiplier(IWarrior attacker, IWarrior target) {
     int distance = calculateDistance(attacker.getPosition(), target.getPosition());
-    String type = attacker.getWarriorType().toLowerCase();
-    
+    return getDistanceMultiplier(attacker.getType(), distance);
+  }
+  
+  /**
+   * Multiplicador por tabla: una lectura de arreglo, sin trabajo con cadenas.
+   */
+  public static double getDistanceMultiplier(WarriorType type, int distance) {
+    int t = type.ordinal();
+    if (distance < 0) return MULTIPLIERS[t][0];
+    if (distance >= TABLE_DISTANCES) return BEYOND_TABLE[t];
+    return MULTIPLIERS[t][distance];
+  }
+  
+  private static double computeMultiplier(WarriorType type, int distance) {
     return switch (type) {
-      case "melee" -> getMeleeMultiplier(distance);
-      case "ranged" -> getRangedMultiplier(distance);
-      case "magic" -> getMagicMultiplier(distance);
-      default -> 1.0;
+      case MELEE -> getMeleeMultiplier(distance);
+      case RANGED -> getRangedMultiplier(distance);
+      case MAGIC -> getMagicMultiplier(distance);
+      case DEFAULT -> 1.0;
     };
   }
   
@@ -123,8 +160,16 @@ public class CombatRules {
    * Obtiene la categoría de eficiencia del ataque.
    */
   public static AttackEfficiency getAttackEfficiency(IWarrior attacker, IWarrior target) {
-    double multiplier = getDistanceMultiplier(attacker, target);
-    
+    int distance = calculateDistance(attacker.getPosition(), target.getPosition());
+    int t = attacker.getType().ordinal();
+    if (distance >= 0 && distance < TABLE_DISTANCES) return EFFICIENCY[t][distance];
+    return getAttackEfficiency(getDistanceMultiplier(attacker.getType(), distance));
+  }
+  
+  /**
+   * Categoría de eficiencia para un multiplicador ya calculado.
+   */
+  public static AttackEfficiency getAttackEfficiency(double multiplier) {
     if (multiplier <= 0) return AttackEfficiency.OUT_OF_RANGE;
     if (multiplier >= 1.4) return AttackEfficiency.OPTIMAL;
     if (multiplier >= 1.0) return AttackEfficiency.NORMAL;
@@ -135,11 +180,11 @@ public class CombatRules {
    * Obtiene una descripción del rango para mostrar en UI.
    */
   public static String getRangeDescription(String warriorType) {
-    return switch (warriorType.toLowerCase()) {
-      case "melee" -> "⚔️ Melee: Óptimo 1-2, Max 5";
-      case "ranged" -> "🏹 Ranged: Óptimo 5-8, Max 10";
-      case "magic" -> "✨ Magic: Óptimo 3-5, Max 8";
-      default -> "Rango desconocido";
+    return switch (WarriorType.fromKey(warriorType)) {
+      case MELEE -> "⚔️ Melee: Óptimo 1-2, Max 5";
+      case RANGED -> "🏹 Ranged: Óptimo 5-8, Max 10";
+      case MAGIC -> "✨ Magic: Óptimo 3-5, Max 8";
+      case DEFAULT -> "Rango desconocido";
     };
   }
   
@@ -147,11 +192,11 @@ public class CombatRules {
    * Verifica si una posición está en el rango óptimo.
    */
   public static boolean isOptimalRange(String warriorType, int distance) {
-    return switch (warriorType.toLowerCase()) {
-      case "melee" -> distance >= MELEE_OPTIMAL_MIN && distance <= MELEE_OPTIMAL_MAX;
-      case "ranged" -> distance >= RANGED_OPTIMAL_MIN && distance <= RANGED_OPTIMAL_MAX;
-      case "magic" -> distance >= MAGIC_OPTIMAL_MIN && distance <= MAGIC_OPTIMAL_MAX;
-      default -> false;
+    return switch (WarriorType.fromKey(warriorType)) {
+      case MELEE -> distance >= MELEE_OPTIMAL_MIN && distance <= MELEE_OPTIMAL_MAX;
+      case RANGED -> distance >= RANGED_OPTIMAL_MIN && distance <= RANGED_OPTIMAL_MAX;
+      case MAGIC -> distance >= MAGIC_OPTIMAL_MIN && distance <= MAGIC_OPTIMAL_MAX;
+      case DEFAULT -> false;
     };
   }
   
@@ -159,12 +204,7 @@ public class CombatRules {
    * Verifica si una posición está penalizada.
    */
   public static boolean isPenalizedRange(String warriorType, int distance) {
-    double mult = switch (warriorType.toLowerCase()) {
-      case "melee" -> getMeleeMultiplier(distance);
-      case "ranged" -> getRangedMultiplier(distance);
-      case "magic" -> getMagicMultiplier(distance);
-      default -> 1.0;
-    };
+    double mult = getDistanceMultiplier(WarriorType.fromKey(warriorType), distance);
     return mult > 0 && mult < 1.0;
   }
   
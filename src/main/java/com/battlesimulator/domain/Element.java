@@ -14,19 +14,26 @@ public enum Element {
     };
   }
 
+  // Matrices [ordinal][ordinal] precalculadas desde las reglas de elementos
+  private static final double[][] DAMAGE = ElementRules.loadDamageMatrix();
+  private static final double[][] SHIELD = invert(DAMAGE);
+
+  private static double[][] invert(double[][] damage) {
+    double[][] shield = new double[damage.length][];
+    for (int i = 0; i < damage.length; i++) {
+      shield[i] = new double[damage[i].length];
+      for (int j = 0; j < damage[i].length; j++) {
+        shield[i][j] = 1.0 / damage[i][j];
+      }
+    }
+    return shield;
+  }
+
   public double getDamageMultiplier(Element targetElement) {
-    if (this == FIRE && targetElement == ICE)
-      return 1.5;
-    if (this == ICE && targetElement == FIRE)
-      return 1.5;
-    if (this == WATER && targetElement == FIRE)
-      return 1.5;
-    if (this == FIRE && targetElement == WATER)
-      return 0.5;
-    return 1.0;
+    return DAMAGE[ordinal()][targetElement.ordinal()];
   }
 
   public double getShieldMultiplier(Element attackElement) {
-    return 1.0 / getDamageMultiplier(attackElement);
+    return SHIELD[ordinal()][attackElement.ordinal()];
   }
-}
\ No newline at end of file
+}
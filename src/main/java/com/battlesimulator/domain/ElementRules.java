@@ -0,0 +1,86 @@
+package com.battlesimulator.domain;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Properties;
+
+/**
+ * Carga la matriz de interacción entre elementos desde un archivo de reglas
+ * (ATACANTE.DEFENSOR = multiplicador). Si no hay archivo se usan los valores
+ * de fábrica para no dejar el juego sin reglas.
+ */
+final class ElementRules {
+  static final String RULES_PROPERTY = "battlesimulator.elementRules";
+  static final String DEFAULT_RESOURCE = "/rules/elements.properties";
+
+  private ElementRules() {
+  }
+
+  /**
+   * Matriz [atacante.ordinal()][defensor.ordinal()] de multiplicadores de daño.
+   */
+  static double[][] loadDamageMatrix() {
+    Element[] elements = Element.values();
+    double[][] matrix = new double[elements.length][elements.length];
+    for (double[] row : matrix) {
+      Arrays.fill(row, 1.0);
+    }
+
+    Properties rules = readRules();
+    if (rules == null) {
+      matrix[Element.FIRE.ordinal()][Element.ICE.ordinal()] = 1.5;
+      matrix[Element.ICE.ordinal()][Element.FIRE.ordinal()] = 1.5;
+      matrix[Element.WATER.ordinal()][Element.FIRE.ordinal()] = 1.5;
+      matrix[Element.FIRE.ordinal()][Element.WATER.ordinal()] = 0.5;
+      return matrix;
+    }
+
+    for (String key : rules.stringPropertyNames()) {
+      String[] pair = key.split("\\.");
+      Element attacker = pair.length == 2 ? find(pair[0]) : null;
+      Element defender = pair.length == 2 ? find(pair[1]) : null;
+      if (attacker == null || defender == null) {
+        System.err.println("Regla de elementos ignorada: " + key);
+        continue;
+      }
+      try {
+        double value = Double.parseDouble(rules.getProperty(key).trim());
+        if (value <= 0) {
+          throw new NumberFormatException("debe ser positivo");
+        }
+        matrix[attacker.ordinal()][defender.ordinal()] = value;
+      } catch (NumberFormatException e) {
+        System.err.println("Multiplicador inválido para " + key + ": " + e.getMessage());
+      }
+    }
+    return matrix;
+  }
+
+  private static Properties readRules() {
+    String path = System.getProperty(RULES_PROPERTY);
+    try (InputStream in = path != null ? new FileInputStream(path)
+        : ElementRules.class.getResourceAsStream(DEFAULT_RESOURCE)) {
+      if (in == null) return null;
+      Properties rules = new Properties();
+      try (Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8)) {
+        rules.load(reader);
+      }
+      return rules;
+    } catch (IOException e) {
+      System.err.println("No se pudieron cargar las reglas de elementos: " + e.getMessage());
+      return null;
+    }
+  }
+
+  private static Element find(String name) {
+    for (Element e : Element.values()) {
+      if (e.name().equalsIgnoreCase(name.trim())) return e;
+    }
+    return null;
+  }
+}
@@ -32,22 +32,34 @@ public interface IWarrior {
 
   int getShield();
 
+  // Elemento del guerrero (el de su arma va en getWeapon().getElement())
+  Element getElement();
+
   void setArmyId(String armyId);
 
   void setNumber(int number);
 
   void setClan(Clan clan);
 
+  // Ejército al que pertenece; recibe los cambios de vida para sus contadores
+  void setArmy(Army army);
+
+  Army getArmy();
+
   void reset();
+
+  // Copia independiente en estado inicial, sin posición ni ejército
+  IWarrior copy();
   
   // Para sincronización en multijugador - establece health directamente sin recalcular daño
   void setHealth(int health);
   
+  // Igual que setHealth, para el escudo que consumen los ataques
+  void setShield(int shield);
+  
+  WarriorType getType();
+  
   default String getWarriorType() {
-    String className = this.getClass().getSimpleName();
-    if (className.contains("Melee")) return "melee";
-    if (className.contains("Ranged")) return "ranged";
-    if (className.contains("Magic")) return "magic";
-    return "default";
+    return getType().getKey();
   }
 }
\ No newline at end of file
@@ -9,9 +9,15 @@ public interface IWeapon {
 
   int getLevel();
 
+  // Daño con el que se creó, sin las mejoras por nivel
+  int getInitialDamage();
+
   String getType();
 
   String getName();
 
   void reset();
+
+  // Copia independiente en estado inicial (nivel 1, daño inicial)
+  IWeapon copy();
 }
\ No newline at end of file
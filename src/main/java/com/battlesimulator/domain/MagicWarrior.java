@@ -5,6 +5,16 @@ public class MagicWarrior extends Warrior {
     super(name, health, shield, strength, element, weapon);
   }
 
+  @Override
+  public WarriorType getType() {
+    return WarriorType.MAGIC;
+  }
+
+  @Override
+  public IWarrior copy() {
+    return copyIdentity(new MagicWarrior(name, initialHealth, initialShield, strength, element, weapon.copy()));
+  }
+
   @Override
   protected int calculateBaseDamage() {
     return weapon.attack() + strength;
@@ -5,6 +5,11 @@ public class MagicWeapon extends Weapon {
     super(damage, element);
   }
 
+  @Override
+  public IWeapon copy() {
+    return new MagicWeapon(initialDamage, element);
+  }
+
   @Override
   public String getType() {
     return "Varita mágica";
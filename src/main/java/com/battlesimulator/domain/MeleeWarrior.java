@@ -5,6 +5,16 @@ public class MeleeWarrior extends Warrior {
     super(name, health, shield, strength, element, weapon);
   }
 
+  @Override
+  public WarriorType getType() {
+    return WarriorType.MELEE;
+  }
+
+  @Override
+  public IWarrior copy() {
+    return copyIdentity(new MeleeWarrior(name, initialHealth, initialShield, strength, element, weapon.copy()));
+  }
+
   @Override
   protected int calculateBaseDamage() {
     return weapon.attack() + strength;
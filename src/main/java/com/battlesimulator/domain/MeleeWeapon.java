@@ -5,6 +5,11 @@ public class MeleeWeapon extends Weapon {
     super(damage, element);
   }
 
+  @Override
+  public IWeapon copy() {
+    return new MeleeWeapon(initialDamage, element);
+  }
+
   @Override
   public String getType() {
     return "Espada";
@@ -5,6 +5,16 @@ public class RangedWarrior extends Warrior {
     super(name, health, shield, strength, element, weapon);
   }
 
+  @Override
+  public WarriorType getType() {
+    return WarriorType.RANGED;
+  }
+
+  @Override
+  public IWarrior copy() {
+    return copyIdentity(new RangedWarrior(name, initialHealth, initialShield, strength, element, weapon.copy()));
+  }
+
   @Override
   protected int calculateBaseDamage() {
     return weapon.attack() + (strength / 2);
@@ -5,6 +5,11 @@ public class RangedWeapon extends Weapon {
     super(damage, element);
   }
 
+  @Override
+  public IWeapon copy() {
+    return new RangedWeapon(initialDamage, element);
+  }
+
   @Override
   public String getType() {
     return "Arco";
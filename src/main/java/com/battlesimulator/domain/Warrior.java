@@ -14,6 +14,7 @@ public abstract class Warrior implements IWarrior {
   protected String armyId;
   protected int number;
   protected Clan clan;
+  protected Army army;
 
   public Warrior(String name, int health, int shield, int strength, Element element, IWeapon weapon) {
     this.name = name;
@@ -30,10 +31,10 @@ public abstract class Warrior implements IWarrior {
   public DamageReport attack(IWarrior target) {
     int baseDamage = calculateBaseDamage();
     
-    // Calcular distancia y multiplicador de distancia
+    // Calcular distancia y multiplicador de distancia (una sola vez, por tabla)
     int distance = CombatRules.calculateDistance(this.position, target.getPosition());
-    double distanceMultiplier = CombatRules.getDistanceMultiplier(this, target);
-    CombatRules.AttackEfficiency efficiency = CombatRules.getAttackEfficiency(this, target);
+    double distanceMultiplier = CombatRules.getDistanceMultiplier(getType(), distance);
+    CombatRules.AttackEfficiency efficiency = CombatRules.getAttackEfficiency(distanceMultiplier);
     
     // Aplicar daño con multiplicador de distancia
     return target.takeDamageWithDistance(baseDamage, weapon.getElement(), distanceMultiplier, distance, efficiency);
@@ -41,6 +42,14 @@ public abstract class Warrior implements IWarrior {
 
   protected abstract int calculateBaseDamage();
 
+  // Copia a la instancia nueva los datos de identificación (no el ejército)
+  protected IWarrior copyIdentity(Warrior copy) {
+    copy.armyId = armyId;
+    copy.number = number;
+    copy.clan = clan;
+    return copy;
+  }
+
   @Override
   public DamageReport takeDamage(int baseDamage, Element attackElement) {
     // Método de compatibilidad - sin modificador de distancia
@@ -60,13 +69,14 @@ public abstract class Warrior implements IWarrior {
     int absorbed = Math.min(shield, effectiveDamage);
     int finalDamage = effectiveDamage - absorbed;
     shield -= absorbed;
-    health -= finalDamage;
-    boolean killed = health <= 0;
+    int newHealth = health - finalDamage;
+    boolean killed = newHealth <= 0;
     if (killed) {
-      health = 0;
+      newHealth = 0;
       defeats++;
       weapon.upgrade();
     }
+    changeHealth(newHealth);
     return new DamageReport(baseDamage, elementMultiplier, distanceMultiplier, 
                            effectiveDamage, absorbed, finalDamage, killed, distance, efficiency);
   }
@@ -131,6 +141,25 @@ public abstract class Warrior implements IWarrior {
     this.clan = clan;
   }
 
+  @Override
+  public void setArmy(Army army) {
+    this.army = army;
+  }
+
+  @Override
+  public Army getArmy() {
+    return army;
+  }
+
+  // Todo cambio de vida pasa por aquí para mantener los contadores del ejército
+  private void changeHealth(int newHealth) {
+    int oldHealth = health;
+    health = newHealth;
+    if (army != null) {
+      army.onHealthChanged(oldHealth, newHealth);
+    }
+  }
+
   @Override
   public int getStrength() {
     return strength;
@@ -141,9 +170,14 @@ public abstract class Warrior implements IWarrior {
     return shield;
   }
 
+  @Override
+  public Element getElement() {
+    return element;
+  }
+
   @Override
   public void reset() {
-    health = initialHealth;
+    changeHealth(initialHealth);
     shield = initialShield;
     defeats = 0;
     weapon.reset();
@@ -152,6 +186,11 @@ public abstract class Warrior implements IWarrior {
   
   @Override
   public void setHealth(int health) {
-    this.health = Math.max(0, health);
+    changeHealth(Math.max(0, health));
+  }
+
+  @Override
+  public void setShield(int shield) {
+    this.shield = Math.max(0, shield);
   }
 }
\ No newline at end of file
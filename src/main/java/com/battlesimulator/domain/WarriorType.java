@@ -0,0 +1,40 @@
+package com.battlesimulator.domain;
+
+/**
+ * Tipo de guerrero. El ordinal indexa las tablas precalculadas de CombatRules.
+ */
+public enum WarriorType {
+  MELEE("melee"),
+  RANGED("ranged"),
+  MAGIC("magic"),
+  DEFAULT("default");
+
+  private static final WarriorType[] VALUES = values();
+
+  private final String key;
+
+  WarriorType(String key) {
+    this.key = key;
+  }
+
+  /**
+   * Clave en minúsculas usada por la interfaz, los iconos y la red.
+   */
+  public String getKey() {
+    return key;
+  }
+
+  public static WarriorType fromOrdinal(int ordinal) {
+    return VALUES[ordinal];
+  }
+
+  /**
+   * Convierte una clave ("melee", "Ranged"...) sin crear cadenas nuevas.
+   */
+  public static WarriorType fromKey(String key) {
+    for (WarriorType t : VALUES) {
+      if (t.key.equalsIgnoreCase(key)) return t;
+    }
+    return DEFAULT;
+  }
+}
@@ -28,6 +28,11 @@ public abstract class Weapon implements IWeapon {
     return level;
   }
 
+  @Override
+  public int getInitialDamage() {
+    return initialDamage;
+  }
+
   @Override
   public String getName() {
     return getType() + " de " + element.toString().toLowerCase();
@@ -0,0 +1,832 @@
+package com.battlesimulator.network;
+
+import com.battlesimulator.domain.Clan;
+import com.battlesimulator.usecases.AuthoritativeWar;
+import com.battlesimulator.usecases.ClanCodec;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lógica común de los servidores de juego: registro de clientes, salas,
+ * envío y enrutamiento de mensajes. Las subclases solo aportan la E/S de red.
+ * Cada cliente está en una sala (al conectarse, la sala por defecto) y sus
+ * mensajes solo llegan a esa sala, así un proceso aloja muchas partidas.
+ */
+public abstract class AbstractGameServer {
+  public static final int PORT = 5555;
+  protected static final int PORT_ATTEMPTS = 5;
+  // Cola de conexiones pendientes de aceptar (la de 50 por defecto se llena
+  // con ráfagas de cientos de clientes y el SYN se reintenta tras segundos)
+  protected static final int ACCEPT_BACKLOG = 1024;
+  // -Dbattlesimulator.server=nio elige NioGameServer al crear partidas
+  public static final String SERVER_PROPERTY = "battlesimulator.server";
+  // -Dbattlesimulator.authoritative=false vuelve al modo relé: el host simula
+  // la guerra y el servidor solo retransmite
+  public static final String AUTHORITATIVE_PROPERTY = "battlesimulator.authoritative";
+  // Sala de la partida del host; la usan broadcast(Message) y startWar sin id
+  public static final String DEFAULT_ROOM = "default";
+  static final int MAX_ROOM_ID_LENGTH = 64;
+  // -Dbattlesimulator.heartbeatMs=N: cada cuánto se envía PING (0 lo desactiva)
+  public static final String HEARTBEAT_PROPERTY = "battlesimulator.heartbeatMs";
+  static final long DEFAULT_HEARTBEAT_MS = 5000;
+  // -Dbattlesimulator.debug=true escribe en el log cada mensaje recibido y
+  // retransmitido; sin él no pasan por System.out, que es sincronizado
+  public static final String DEBUG_PROPERTY = "battlesimulator.debug";
+  private static final boolean DEBUG = Boolean.getBoolean(DEBUG_PROPERTY);
+  // Latidos sin recibir nada tras los que la conexión se da por muerta
+  static final int HEARTBEAT_MISSES = 3;
+  // Cada cuántos latidos se escribe el resumen de latencia en el log
+  private static final int LATENCY_LOG_EVERY = 12;
+  // Tiempo que se guarda la sesión de un cliente caído para que pueda volver
+  static final long SESSION_GRACE_MS = 60000;
+  // Retraso máximo que puede pedir un espectador y cada cuánto se envía lo
+  // que vence en los feeds diferidos
+  static final long MAX_SPECTATOR_DELAY_MS = TimeUnit.MINUTES.toMillis(5);
+  static final long SPECTATOR_TICK_MS = 50;
+
+  // Sesiones por id de jugador (también las de clientes caídos que aún pueden volver)
+  protected final Map<String, ClientSession> clients = new ConcurrentHashMap<>();
+  // Sesión de cada conexión abierta (por id de conexión) y de cada token
+  private final Map<String, ClientSession> sessionsByTransport = new ConcurrentHashMap<>();
+  private final Map<String, ClientSession> sessionsByToken = new ConcurrentHashMap<>();
+  // Salas por id de partida y sala actual de cada cliente
+  private final Map<String, GameRoom> rooms = new ConcurrentHashMap<>();
+  private final Map<String, GameRoom> clientRooms = new ConcurrentHashMap<>();
+  // Último mensaje recibido y latencia de cada cliente
+  private final Map<String, ConnectionHealth> health = new ConcurrentHashMap<>();
+  // Latencia de todas las conexiones juntas
+  private final LatencyHistogram latency = new LatencyHistogram();
+  private Thread heartbeat;
+  private Thread spectatorPump;
+  protected final ServerListener listener;
+  protected volatile boolean running = false;
+
+  public interface ServerListener {
+    void onPlayerConnected(String playerId);
+    void onPlayerDisconnected(String playerId);
+    void onClanConfigured(String playerId, Clan clan);
+    void onWarStartRequested();
+    void onAttackReceived(String playerId, String attackData);
+    void onChatMessage(String playerId, String message);
+  }
+
+  protected interface PortBinder {
+    void bind(int port) throws IOException;
+  }
+
+  protected AbstractGameServer(ServerListener listener) {
+    this.listener = listener;
+    rooms.put(DEFAULT_ROOM, new GameRoom(DEFAULT_ROOM, listener, true));
+  }
+
+  /**
+   * Crea el servidor indicado por la propiedad del sistema (por defecto el
+   * de hilo por cliente).
+   */
+  public static AbstractGameServer create(ServerListener listener) {
+    if ("nio".equalsIgnoreCase(System.getProperty(SERVER_PROPERTY))) {
+      return new NioGameServer(listener);
+    }
+    return new GameServer(listener);
+  }
+
+  public static boolean isAuthoritative() {
+    return Boolean.parseBoolean(System.getProperty(AUTHORITATIVE_PROPERTY, "true"));
+  }
+
+  /**
+   * Intervalo entre latidos en ms; 0 si están desactivados. Cliente y
+   * servidor usan el mismo.
+   */
+  public static long heartbeatMillis() {
+    try {
+      return Math.max(0, Long.parseLong(System.getProperty(HEARTBEAT_PROPERTY, String.valueOf(DEFAULT_HEARTBEAT_MS))));
+    } catch (NumberFormatException e) {
+      return DEFAULT_HEARTBEAT_MS;
+    }
+  }
+
+  private static final class ConnectionHealth {
+    final LatencyHistogram latency = new LatencyHistogram();
+    volatile long lastReceived = System.nanoTime();
+  }
+
+  /**
+   * Empieza a simular la guerra de la sala por defecto en el servidor.
+   */
+  public void startWar(Clan clan1, Clan clan2, String hostPlayerId) {
+    startWar(DEFAULT_ROOM, clan1, clan2, hostPlayerId);
+  }
+
+  /**
+   * Empieza a simular en el servidor la guerra de la sala indicada. El
+   * jugador hostPlayerId controla clan1 y cualquier otro jugador clan2.
+   */
+  public void startWar(String matchId, Clan clan1, Clan clan2, String hostPlayerId) {
+    GameRoom room = rooms.get(matchId);
+    if (room == null) {
+      throw new IllegalArgumentException("Sala inexistente: " + matchId);
+    }
+    room.startWar(new AuthoritativeWar(clan1, clan2, System.nanoTime()), hostPlayerId);
+    System.out.println("[SERVER] Guerra autoritativa iniciada en " + matchId + ": " + clan1.getName() + " vs " + clan2.getName());
+  }
+
+  /**
+   * Abre una sala con su propio listener. A diferencia de las que crean los
+   * clientes con JOIN_ROOM, se mantiene aunque quede vacía hasta closeRoom.
+   * @return false si ya existía una sala con ese id
+   */
+  public boolean openRoom(String matchId, ServerListener roomListener) {
+    return rooms.putIfAbsent(matchId, new GameRoom(matchId, roomListener, true)) == null;
+  }
+
+  /**
+   * Cierra la sala; sus jugadores vuelven a la sala por defecto y sus
+   * espectadores pasan a ver esa sala.
+   */
+  public void closeRoom(String matchId) {
+    if (DEFAULT_ROOM.equals(matchId)) return;
+    GameRoom room = rooms.remove(matchId);
+    if (room == null) return;
+    for (Map.Entry<String, GameRoom> entry : clientRooms.entrySet()) {
+      ClientSession client = clients.get(entry.getKey());
+      if (entry.getValue() == room && client != null) {
+        if (room.isSpectator(client)) {
+          spectate(client, DEFAULT_ROOM);
+        } else {
+          joinRoom(client, DEFAULT_ROOM);
+        }
+      }
+    }
+  }
+
+  public Set<String> getRoomIds() {
+    return new HashSet<>(rooms.keySet());
+  }
+
+  public abstract void start() throws IOException;
+
+  public abstract void stop();
+
+  public abstract int getActualPort();
+
+  // Intenta PORT, PORT+1... y devuelve el primer puerto que se pudo enlazar
+  protected int bindFirstFree(PortBinder binder) throws IOException {
+    int port = PORT;
+    IOException lastException = null;
+    for (int attempts = 0; attempts < PORT_ATTEMPTS; attempts++, port++) {
+      try {
+        binder.bind(port);
+        System.out.println("Servidor iniciado en puerto " + port);
+        return port;
+      } catch (IOException e) {
+        lastException = e;
+        System.err.println("Puerto " + port + " ocupado, intentando puerto " + (port + 1));
+      }
+    }
+    throw new IOException("No se pudo iniciar el servidor después de " + PORT_ATTEMPTS + " intentos", lastException);
+  }
+
+  protected String newClientId() {
+    return UUID.randomUUID().toString().substring(0, 8);
+  }
+
+  // Secreto con el que el cliente reanuda su sesión tras un corte
+  private static String newSessionToken() {
+    return UUID.randomUUID().toString().replace("-", "");
+  }
+
+  /**
+   * Envía a todos los de la sala por defecto; el mensaje se codifica una
+   * sola vez por formato.
+   */
+  public void broadcast(Message message) {
+    broadcast(DEFAULT_ROOM, message);
+  }
+
+  public void broadcast(String matchId, Message message) {
+    GameRoom room = rooms.get(matchId);
+    if (room != null) {
+      room.broadcast(message);
+    }
+  }
+
+  public void sendToPlayer(String playerId, Message message) {
+    ClientSession client = clients.get(playerId);
+    if (client != null) {
+      client.send(new OutboundMessage(message));
+    }
+  }
+
+  public int getConnectedPlayers() {
+    return clients.size();
+  }
+
+  public int getConnectedPlayers(String matchId) {
+    GameRoom room = rooms.get(matchId);
+    return room != null ? room.size() : 0;
+  }
+
+  public int getSpectatorCount(String matchId) {
+    GameRoom room = rooms.get(matchId);
+    return room != null ? room.spectatorCount() : 0;
+  }
+
+  public Set<String> getPlayerIds() {
+    return new HashSet<>(clients.keySet());
+  }
+
+  /**
+   * Tiempos de ida y vuelta medidos con PING/PONG en todas las conexiones.
+   */
+  public LatencyHistogram getLatencyHistogram() {
+    return latency;
+  }
+
+  /**
+   * Compresión de los mensajes grandes (de todo el proceso, ver CompressionStats).
+   */
+  public CompressionStats getCompressionStats() {
+    return CompressionStats.GLOBAL;
+  }
+
+  /**
+   * Tiempos de ida y vuelta de un jugador; null si no está conectado.
+   */
+  public LatencyHistogram getLatencyHistogram(String playerId) {
+    ConnectionHealth h = health.get(playerId);
+    return h != null ? h.latency : null;
+  }
+
+  /**
+   * Arranca el hilo que envía PING a cada cliente y desconecta a los que
+   * llevan HEARTBEAT_MISSES latidos sin enviar nada (conexiones muertas que
+   * de otro modo solo se detectan al fallar una escritura).
+   */
+  protected void startHeartbeat() {
+    long interval = heartbeatMillis();
+    if (interval <= 0) return;
+    heartbeat = NetworkThreads.start("GameServer-Heartbeat", () -> {
+      long timeout = TimeUnit.MILLISECONDS.toNanos(interval * HEARTBEAT_MISSES);
+      int beats = 0;
+      try {
+        while (running) {
+          Thread.sleep(interval);
+          pingAll(timeout);
+          if (++beats % LATENCY_LOG_EVERY == 0 && !clients.isEmpty()) {
+            System.out.println("[SERVER] Latencia (" + clients.size() + " clientes): " + latency);
+            if (CompressionStats.GLOBAL.getCompressedFrames() > 0) {
+              System.out.println("[SERVER] Compresión: " + CompressionStats.GLOBAL);
+            }
+          }
+        }
+      } catch (InterruptedException e) {
+        // stop()
+      }
+    });
+  }
+
+  protected void stopHeartbeat() {
+    if (heartbeat != null) {
+      heartbeat.interrupt();
+      heartbeat = null;
+    }
+  }
+
+  /**
+   * Arranca, si no lo está, el hilo que envía lo que vence en los feeds
+   * diferidos de los espectadores. Termina con el servidor.
+   */
+  private synchronized void startSpectatorPump() {
+    if (spectatorPump != null) return;
+    spectatorPump = NetworkThreads.start("GameServer-Spectators", () -> {
+      try {
+        while (running) {
+          Thread.sleep(SPECTATOR_TICK_MS);
+          long now = System.nanoTime();
+          for (GameRoom room : rooms.values()) {
+            if (room.hasDelayedSpectators()) {
+              for (ClientSession client : room.releaseDelayed(now)) {
+                System.err.println("[SERVER] Espectador " + client.getId() + " perdió mensajes del diferido; desconectado");
+                endSession(client);
+              }
+            }
+          }
+        }
+      } catch (InterruptedException e) {
+        // stop()
+      }
+    });
+  }
+
+  private synchronized void stopSpectatorPump() {
+    if (spectatorPump != null) {
+      spectatorPump.interrupt();
+      spectatorPump = null;
+    }
+  }
+
+  private void pingAll(long timeoutNanos) {
+    long now = System.nanoTime();
+    long grace = TimeUnit.MILLISECONDS.toNanos(SESSION_GRACE_MS);
+    for (ClientSession client : clients.values()) {
+      ClientConnection transport = client.getTransport();
+      if (transport == null) {
+        if (now - client.getDetachedAt() > grace) {
+          System.out.println("[SERVER] Sesión de " + client.getId() + " expirada");
+          endSession(client);
+        }
+        continue;
+      }
+      ConnectionHealth h = health.get(client.getId());
+      if (h == null) continue;
+      if (now - h.lastReceived > timeoutNanos) {
+        System.err.println("[SERVER] Cliente " + client.getId() + " no responde; desconectado");
+        unregister(transport);
+        continue;
+      }
+      // Confirmación acumulada de lo aplicado desde el último latido
+      long ack = client.pendingAck();
+      if (ack > 0) {
+        client.send(new OutboundMessage(new Message(Message.Type.ACK, String.valueOf(ack), "SERVER")));
+      }
+      client.send(new OutboundMessage(new Message(Message.Type.PING, String.valueOf(now), "SERVER")));
+    }
+  }
+
+  /**
+   * Da de alta una conexión nueva con su propia sesión y le envía
+   * CONNECT "playerId|token".
+   */
+  protected void register(ClientConnection transport) {
+    ClientSession client = new ClientSession(transport.getId(), newSessionToken(), transport);
+    sessionsByTransport.put(transport.getId(), client);
+    sessionsByToken.put(client.getToken(), client);
+    client.send(new OutboundMessage(new Message(Message.Type.CONNECT, client.getId() + "|" + client.getToken(), "SERVER")));
+    health.put(client.getId(), new ConnectionHealth());
+    clients.put(client.getId(), client);
+    System.out.println("Cliente conectado: " + client.getId());
+    enterRoom(client, DEFAULT_ROOM);
+  }
+
+  /**
+   * Da de baja una conexión caída. Su sesión sigue en la sala durante
+   * SESSION_GRACE_MS por si el cliente vuelve con RESUME (hace falta el
+   * latido para que luego expire); solo la baja definitiva notifica al
+   * listener.
+   */
+  protected void unregister(ClientConnection transport) {
+    ClientSession client = sessionsByTransport.remove(transport.getId());
+    if (client == null || client.getTransport() != transport) {
+      transport.close(); // Ya dada de baja o reanudada en otra conexión
+      return;
+    }
+    if (running && heartbeatMillis() > 0) {
+      if (client.detach(transport)) {
+        System.out.println("Cliente desconectado: " + client.getId() + " (sesión guardada)");
+      } else {
+        transport.close();
+      }
+    } else {
+      endSession(client);
+    }
+  }
+
+  /**
+   * Baja definitiva del jugador: sale de su sala y su token deja de valer.
+   */
+  private void endSession(ClientSession client) {
+    boolean removed;
+    synchronized (client) {
+      removed = clients.remove(client.getId(), client);
+      sessionsByToken.remove(client.getToken(), client);
+      ClientConnection transport = client.getTransport();
+      if (transport != null) {
+        sessionsByTransport.remove(transport.getId(), client);
+      }
+      client.close();
+    }
+    if (removed) {
+      ConnectionHealth h = health.remove(client.getId());
+      if (h != null && h.latency.getCount() > 0) {
+        System.out.println("Latencia de " + client.getId() + ": " + h.latency);
+      }
+      leaveRoom(client);
+    }
+  }
+
+  /**
+   * RESUME "token|recibidos" por una conexión nueva: la sesión guardada pasa
+   * a esa conexión (con su id de jugador, su sala y su bando) y recibe lo
+   * que se perdió. La confirmación "playerId|token|seq" indica el último
+   * mensaje del cliente aplicado, para que reenvíe solo lo posterior. La
+   * sesión provisional de la conexión nueva desaparece.
+   */
+  private void resume(ClientConnection transport, ClientSession temporary, String data) {
+    String[] parts = data != null ? data.split("\\|") : new String[0];
+    ClientSession client = parts.length == 2 ? sessionsByToken.get(parts[0]) : null;
+    long received = -1;
+    try {
+      received = parts.length == 2 ? Long.parseLong(parts[1]) : -1;
+    } catch (NumberFormatException e) {
+      // Se rechaza abajo
+    }
+    if (client == null || client == temporary || received < 0) {
+      System.err.println("[SERVER] RESUME rechazado de " + temporary.getId());
+      temporary.send(new OutboundMessage(new Message(Message.Type.RESUME, null, "SERVER")));
+      return;
+    }
+    synchronized (client) {
+      if (clients.get(client.getId()) != client) {
+        temporary.send(new OutboundMessage(new Message(Message.Type.RESUME, null, "SERVER")));
+        return; // Expiró mientras tanto
+      }
+      // La conexión deja la sesión provisional sin cerrarse
+      temporary.handOver();
+      sessionsByToken.remove(temporary.getToken(), temporary);
+      clients.remove(temporary.getId(), temporary);
+      health.remove(temporary.getId());
+      leaveRoom(temporary);
+
+      ClientConnection old = client.getTransport();
+      Message ack = new Message(Message.Type.RESUME,
+          client.getId() + "|" + client.getToken() + "|" + client.getLastReceivedSeq(), "SERVER");
+      if (!client.resume(transport, received, ack)) {
+        System.err.println("[SERVER] " + client.getId() + " perdió demasiados mensajes para reanudar");
+        transport.send(new OutboundMessage(new Message(Message.Type.RESUME, null, "SERVER")));
+        sessionsByTransport.remove(transport.getId(), temporary);
+        endSession(client);
+        return;
+      }
+      sessionsByTransport.put(transport.getId(), client);
+      if (old != null && old != transport) {
+        sessionsByTransport.remove(old.getId(), client);
+      }
+      health.computeIfAbsent(client.getId(), id -> new ConnectionHealth()).lastReceived = System.nanoTime();
+    }
+    System.out.println("Cliente " + client.getId() + " reconectado (había recibido " + received + " mensajes)");
+  }
+
+  protected void closeAll() {
+    stopSpectatorPump();
+    for (ClientSession client : clients.values()) {
+      client.close();
+    }
+    for (ClientSession client : sessionsByTransport.values()) {
+      client.close();
+    }
+    clients.clear();
+    sessionsByTransport.clear();
+    sessionsByToken.clear();
+    clientRooms.clear();
+    health.clear();
+    rooms.values().removeIf(room -> !room.isPersistent());
+  }
+
+  /**
+   * Pasa al cliente a la sala indicada (creándola si no existe) y le
+   * confirma el cambio con JOIN_ROOM "sala|jugadores".
+   */
+  private void joinRoom(ClientSession client, String matchId) {
+    if (matchId == null || matchId.isBlank() || matchId.length() > MAX_ROOM_ID_LENGTH) {
+      System.err.println("[SERVER] Id de sala inválido de " + client.getId() + ": " + matchId);
+      return;
+    }
+    GameRoom current = clientRooms.get(client.getId());
+    if (current == null || !current.getId().equals(matchId)) {
+      leaveRoom(client);
+      enterRoom(client, matchId);
+    }
+    Message ack = new Message(Message.Type.JOIN_ROOM, matchId + "|" + getConnectedPlayers(matchId));
+    ack.setPlayerId(client.getId());
+    client.send(new OutboundMessage(ack));
+  }
+
+  /**
+   * SPECTATE "sala" o "sala|segundos": el cliente pasa a ver la sala (la
+   * crea si no existe) sin jugar en ella. Recibe cada difusión de la sala,
+   * con el retraso pedido si lo hay, y si el servidor simula la guerra
+   * empieza por su instantánea. Se confirma con SPECTATE
+   * "sala|jugadores|espectadores".
+   */
+  private void spectate(ClientSession client, String data) {
+    String[] parts = data != null ? data.split("\\|") : new String[0];
+    String matchId = parts.length > 0 ? parts[0].trim() : null;
+    long delayMillis = -1;
+    try {
+      delayMillis = parts.length > 1 ? TimeUnit.SECONDS.toMillis(Long.parseLong(parts[1].trim())) : 0;
+    } catch (NumberFormatException e) {
+      // Se rechaza abajo
+    }
+    if (matchId == null || matchId.isBlank() || matchId.length() > MAX_ROOM_ID_LENGTH
+        || parts.length > 2 || delayMillis < 0 || delayMillis > MAX_SPECTATOR_DELAY_MS) {
+      System.err.println("[SERVER] SPECTATE inválido de " + client.getId() + ": " + data);
+      return;
+    }
+    leaveRoom(client);
+    long delay = delayMillis;
+    GameRoom room = rooms.compute(matchId, (id, existing) -> {
+      GameRoom r = existing != null ? existing : new GameRoom(id, null, false);
+      Message ack = new Message(Message.Type.SPECTATE, id + "|" + r.size() + "|" + (r.spectatorCount() + 1));
+      ack.setPlayerId(client.getId());
+      client.send(new OutboundMessage(ack));
+      AuthoritativeWar war = r.getWar();
+      if (war != null) {
+        // Con el bloqueo de la guerra no se difunde nada entre la
+        // instantánea y el alta: el espectador no pierde ni repite deltas
+        synchronized (war) {
+          r.addSpectator(client, delay, new OutboundMessage(war.syncResponse()));
+        }
+      } else {
+        r.addSpectator(client, delay, null);
+      }
+      return r;
+    });
+    clientRooms.put(client.getId(), room);
+    if (delay > 0) {
+      startSpectatorPump();
+    }
+    System.out.println("[SERVER] " + client.getId() + " ve " + matchId
+        + (delay > 0 ? " con " + delay / 1000 + " s de retraso" : "")
+        + " (" + room.spectatorCount() + " espectadores)");
+  }
+
+  /**
+   * Lo único que puede enviar un espectador: control de la conexión, cambiar
+   * de sala y pedir la instantánea.
+   */
+  private static boolean allowedForSpectator(Message.Type type) {
+    switch (type) {
+      case CONNECT:
+      case RESUME:
+      case DISCONNECT:
+      case JOIN_ROOM:
+      case SPECTATE:
+      case SYNC_REQUEST:
+        return true;
+      default:
+        return false;
+    }
+  }
+
+  private void enterRoom(ClientSession client, String matchId) {
+    // compute bloquea la entrada de esa sala: no se puede borrar mientras se entra
+    GameRoom room = rooms.compute(matchId, (id, existing) -> {
+      GameRoom r = existing != null ? existing : new GameRoom(id, null, false);
+      r.add(client);
+      return r;
+    });
+    clientRooms.put(client.getId(), room);
+    if (room.getListener() != null) {
+      room.getListener().onPlayerConnected(client.getId());
+    }
+  }
+
+  // Las salas creadas por clientes se borran al quedar vacías
+  private void leaveRoom(ClientSession client) {
+    GameRoom room = clientRooms.remove(client.getId());
+    if (room == null) return;
+    boolean[] removed = new boolean[1];
+    rooms.computeIfPresent(room.getId(), (id, existing) -> {
+      if (existing != room) return existing;
+      removed[0] = room.remove(client);
+      return room.isEmpty() && !room.isPersistent() ? null : room;
+    });
+    if (!removed[0]) {
+      removed[0] = room.remove(client); // Sala ya cerrada
+    }
+    if (removed[0] && room.getListener() != null) {
+      room.getListener().onPlayerDisconnected(client.getId());
+    }
+  }
+
+  private GameRoom roomOf(ClientSession client) {
+    GameRoom room = clientRooms.get(client.getId());
+    return room != null ? room : rooms.get(DEFAULT_ROOM);
+  }
+
+  protected void handleMessage(ClientConnection transport, Message msg) {
+    ClientSession client = sessionsByTransport.get(transport.getId());
+    if (client == null) return; // Conexión ya dada de baja
+    String clientId = client.getId();
+    ConnectionHealth h = health.get(clientId);
+    if (h != null) {
+      h.lastReceived = System.nanoTime();
+    }
+    // Los latidos no pasan por el log ni por la sala
+    if (msg.getType() == Message.Type.PING) {
+      client.send(new OutboundMessage(new Message(Message.Type.PONG, msg.getData(), "SERVER")));
+      return;
+    }
+    if (msg.getType() == Message.Type.PONG) {
+      recordPong(h, msg.getData());
+      return;
+    }
+    if (msg.getType() == Message.Type.ACK) {
+      acknowledge(client, msg.getData());
+      return;
+    }
+    // Un reenvío tras reanudar no debe aplicarse dos veces
+    if (!client.accept(msg)) {
+      System.err.println("[SERVER] " + msg.getType() + " repetido de " + clientId + " (seq " + msg.getSeq() + "); descartado");
+      return;
+    }
+    // Guardar el playerId original si ya viene establecido
+    String originalPlayerId = msg.getPlayerId();
+    // Si no tiene playerId, usar el clientId del handler
+    if (originalPlayerId == null || originalPlayerId.isEmpty()) {
+      msg.setPlayerId(clientId);
+    }
+    if (DEBUG) {
+      System.out.println("[SERVER] Mensaje recibido de " + clientId + ": " + msg.getType() + " playerId=" + msg.getPlayerId());
+    }
+    GameRoom room = roomOf(client);
+    ServerListener roomListener = room.getListener();
+    AuthoritativeWar war = room.getWar();
+    boolean spectator = room.isSpectator(client);
+    if (spectator && !allowedForSpectator(msg.getType())) {
+      System.err.println("[SERVER] " + msg.getType() + " de espectador " + clientId + " rechazado");
+      return;
+    }
+
+    switch (msg.getType()) {
+      case CONNECT:
+        // Negociación del formato: "codec:binary"
+        MessageCodec codec = MessageCodec.requestedBy(msg);
+        if (codec != null) {
+          client.upgrade(codec);
+        }
+        break;
+      case RESUME:
+        resume(transport, client, msg.getData());
+        break;
+      case JOIN_ROOM:
+        joinRoom(client, msg.getData() != null ? msg.getData().trim() : null);
+        break;
+      case SPECTATE:
+        spectate(client, msg.getData());
+        break;
+      case CLAN_CONFIG:
+        if (roomListener != null) {
+          notifyClans(roomListener, clientId, msg.getData());
+        }
+        if (room != rooms.get(DEFAULT_ROOM)) {
+          // En las salas sin host local los clanes viajan entre jugadores
+          room.broadcast(msg);
+        }
+        break;
+      case START_WAR:
+        if (roomListener != null) {
+          roomListener.onWarStartRequested();
+        }
+        if (room != rooms.get(DEFAULT_ROOM)) {
+          room.broadcast(msg);
+        }
+        break;
+      case ATTACK:
+        if (roomListener != null) {
+          roomListener.onAttackReceived(clientId, msg.getData());
+        }
+        if (war != null) {
+          applyWarAction(room, war, client, msg);
+        } else {
+          // Broadcast a la sala
+          room.broadcast(msg);
+        }
+        break;
+      case MOVE:
+        if (war != null) {
+          applyWarAction(room, war, client, msg);
+        } else {
+          // Broadcast movimiento a la sala
+          if (DEBUG) {
+            System.out.println("[SERVER] Retransmitiendo MOVE: " + msg.getData());
+          }
+          room.broadcast(msg);
+        }
+        break;
+      case BATTLE_UPDATE:
+      case BATTLE_END:
+      case WAR_END:
+      case SYNC_RESPONSE:
+        // Con guerra en el servidor el estado solo sale de aquí
+        if (war == null) {
+          room.broadcast(msg);
+        }
+        break;
+      case SYNC_REQUEST:
+        if (war != null && spectator) {
+          // Con retraso: la instantánea actual adelantaría la partida
+          room.sendToSpectator(client, new OutboundMessage(war.syncResponse()));
+        } else if (war != null) {
+          client.send(new OutboundMessage(war.syncResponse()));
+        } else {
+          // El host responde con la instantánea; quien no la pidió la ignora
+          room.broadcast(msg);
+        }
+        break;
+      case TURN_END:
+        if (war != null) {
+          // El servidor comprueba el turno; al jugador que se desvió le
+          // reenvía la instantánea de esa batalla
+          if (!war.matchesTurn(msg.getData())) {
+            System.err.println("[SERVER] Turno de " + clientId + " desincronizado: " + msg.getData());
+            sendSnapshot(client, war, msg.getData());
+          }
+        } else {
+          // Retransmitir fin de turno
+          if (DEBUG) {
+            System.out.println("[SERVER] Retransmitiendo TURN_END de " + msg.getUsername());
+          }
+          room.broadcast(msg);
+        }
+        break;
+      case CHAT:
+        if (roomListener != null) {
+          roomListener.onChatMessage(clientId, msg.getData());
+        }
+        room.broadcast(msg);
+        break;
+      case DISCONNECT:
+        // Salida voluntaria: la sesión no se guarda
+        endSession(client);
+        break;
+      default:
+        break;
+    }
+  }
+
+  /**
+   * Valida y aplica en el servidor un ATTACK o MOVE y difunde el resultado
+   * (la acción con los datos del servidor y el delta de la batalla). Una
+   * acción inválida no se difunde: el emisor recibe la instantánea de la
+   * batalla para deshacer lo que predijo.
+   */
+  private void applyWarAction(GameRoom room, AuthoritativeWar war, ClientSession client, Message msg) {
+    int clanIndex = room.clanOf(client);
+    // Bajo el bloqueo de la guerra para que los deltas salgan en orden
+    synchronized (war) {
+      try {
+        String result = msg.getType() == Message.Type.ATTACK
+            ? war.attack(clanIndex, msg.getData())
+            : war.move(clanIndex, msg.getData());
+        msg.setPlayerId(client.getId());
+        msg.setData(result);
+        room.broadcast(new OutboundMessage(msg, msg.getType() == Message.Type.MOVE));
+        for (Message update : war.drainUpdates()) {
+          room.broadcast(update);
+        }
+      } catch (IllegalArgumentException e) {
+        System.err.println("[SERVER] " + msg.getType() + " rechazado de " + client.getId() + ": " + e.getMessage());
+        sendSnapshot(client, war, msg.getData());
+      }
+    }
+  }
+
+  // Un CLAN_CONFIG lleva los clanes del host; el listener recibe cada uno
+  private void notifyClans(ServerListener roomListener, String clientId, String data) {
+    Clan[] clans;
+    try {
+      clans = ClanCodec.decode(data);
+    } catch (IllegalArgumentException e) {
+      System.err.println("[SERVER] CLAN_CONFIG inválido de " + clientId + ": " + e.getMessage());
+      return;
+    }
+    for (Clan clan : clans) {
+      roomListener.onClanConfigured(clientId, clan);
+    }
+  }
+
+  private void acknowledge(ClientSession client, String data) {
+    try {
+      client.acknowledge(Long.parseLong(data));
+    } catch (NumberFormatException | NullPointerException e) {
+      // ACK mal formado: el journal se recorta igual por capacidad
+    }
+  }
+
+  private void recordPong(ConnectionHealth h, String data) {
+    if (h == null || data == null) return;
+    try {
+      long rtt = System.nanoTime() - Long.parseLong(data);
+      if (rtt >= 0) {
+        h.latency.record(rtt);
+        latency.record(rtt);
+      }
+    } catch (NumberFormatException e) {
+      // PONG que no responde a un PING nuestro
+    }
+  }
+
+  private void sendSnapshot(ClientSession client, AuthoritativeWar war, String data) {
+    Message snapshot = war.battleSnapshot(data);
+    if (snapshot != null) {
+      client.send(new OutboundMessage(snapshot));
+    }
+  }
+}
@@ -0,0 +1,421 @@
+package com.battlesimulator.network;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Formato binario compacto. Cada trama es:
+ *
+ *   varint longitud | flags | varint tipo | varlong seq | varlong timestamp
+ *   | [playerId] | [username] | [data]
+ *
+ * Los textos van como varint longitud + UTF-8. Si data tiene campos separados
+ * por '|' (ATTACK, MOVE...), cada campo se guarda con una etiqueta: los
+ * enteros (índice de batalla, slots, filas, columnas, vida) como varint, los
+ * booleanos en la propia etiqueta y los decimales de dos cifras como entero
+ * escalado. Al decodificar se reconstruye exactamente el mismo texto.
+ *
+ * Con umbral de compresión (codec "binary-deflate"), si lo que sigue a flags
+ * ocupa más que el umbral se envía comprimido con Deflate:
+ *
+ *   varint longitud | flags + COMPRESSED | varint longitudOriginal | deflate(resto)
+ *
+ * Cualquier instancia sabe leer tramas comprimidas; el umbral solo decide
+ * cuáles se comprimen al codificar.
+ */
+class BinaryMessageCodec implements MessageCodec {
+  static final int MAX_FRAME_BYTES = FrameBuffer.MAX_FRAME_BYTES;
+
+  private static final int HAS_PLAYER = 1;
+  private static final int HAS_USERNAME = 2;
+  private static final int HAS_DATA = 4;
+  private static final int DATA_FIELDS = 8;
+  private static final int COMPRESSED = 16;
+  // Compresores reutilizados (cada uno reserva memoria nativa); los que no
+  // caben en el pool se liberan
+  private static final int CODER_POOL = 8;
+  private static final BlockingQueue<Deflater> DEFLATERS = new ArrayBlockingQueue<>(CODER_POOL);
+  private static final BlockingQueue<Inflater> INFLATERS = new ArrayBlockingQueue<>(CODER_POOL);
+
+  private static final int FIELD_INT = 0;
+  private static final int FIELD_TEXT = 1;
+  private static final int FIELD_TRUE = 2;
+  private static final int FIELD_FALSE = 3;
+  private static final int FIELD_DECIMAL2 = 4;
+
+  private static final Message.Type[] TYPES = Message.Type.values();
+
+  private final String name;
+  // Bytes a partir de los que se comprime; 0 = nunca
+  private final int compressThreshold;
+
+  BinaryMessageCodec() {
+    this("binary", 0);
+  }
+
+  BinaryMessageCodec(String name, int compressThreshold) {
+    this.name = name;
+    this.compressThreshold = compressThreshold;
+  }
+
+  @Override
+  public String getName() {
+    return name;
+  }
+
+  @Override
+  public byte[] encode(Message msg) {
+    Writer w = new Writer();
+    String data = msg.getData();
+    boolean fields = data != null && data.indexOf('|') >= 0;
+    int flags = (msg.getPlayerId() != null ? HAS_PLAYER : 0)
+        | (msg.getUsername() != null ? HAS_USERNAME : 0)
+        | (data != null ? HAS_DATA : 0)
+        | (fields ? DATA_FIELDS : 0);
+    w.writeByte(flags);
+    w.writeVarLong(msg.getType() != null ? msg.getType().ordinal() : 0);
+    w.writeVarLong(msg.getSeq());
+    w.writeVarLong(msg.getTimestamp());
+    if (msg.getPlayerId() != null) w.writeString(msg.getPlayerId());
+    if (msg.getUsername() != null) w.writeString(msg.getUsername());
+    if (fields) {
+      writeFields(w, data);
+    } else if (data != null) {
+      w.writeString(data);
+    }
+    if (compressThreshold > 0 && w.len - 1 > compressThreshold) {
+      byte[] frame = compress(w);
+      if (frame != null) return frame;
+    }
+    return w.toFrame();
+  }
+
+  /**
+   * Trama con todo lo posterior a flags comprimido, o null si no se reduce.
+   */
+  private static byte[] compress(Writer w) {
+    long start = System.nanoTime();
+    int rawLength = w.len - 1;
+    byte[] out = new byte[rawLength];
+    int outLength = 0;
+    Deflater deflater = DEFLATERS.poll();
+    if (deflater == null) {
+      deflater = new Deflater(Deflater.BEST_SPEED);
+    }
+    try {
+      deflater.setInput(w.buf, 1, rawLength);
+      deflater.finish();
+      while (!deflater.finished() && outLength < out.length) {
+        outLength += deflater.deflate(out, outLength, out.length - outLength);
+      }
+      if (!deflater.finished()) {
+        CompressionStats.GLOBAL.recordDeflate(rawLength, -1, System.nanoTime() - start);
+        return null;
+      }
+    } finally {
+      deflater.reset();
+      if (!DEFLATERS.offer(deflater)) deflater.end();
+    }
+    Writer c = new Writer(outLength + 8);
+    c.writeByte(w.buf[0] | COMPRESSED);
+    c.writeVarLong(rawLength);
+    c.writeBytes(out, 0, outLength);
+    byte[] frame = c.toFrame();
+    CompressionStats.GLOBAL.recordDeflate(rawLength, outLength, System.nanoTime() - start);
+    return frame;
+  }
+
+  private static byte[] inflate(Reader r) {
+    long start = System.nanoTime();
+    long rawLength = r.readVarLong();
+    if (rawLength < 0 || rawLength > MAX_FRAME_BYTES) {
+      throw new IllegalStateException("Longitud descomprimida inválida: " + rawLength);
+    }
+    byte[] raw = new byte[(int) rawLength];
+    Inflater inflater = INFLATERS.poll();
+    if (inflater == null) {
+      inflater = new Inflater();
+    }
+    try {
+      inflater.setInput(r.buf, r.pos, r.end - r.pos);
+      int n = 0;
+      while (n < raw.length && !inflater.finished()) {
+        int k = inflater.inflate(raw, n, raw.length - n);
+        if (k == 0 && (inflater.needsInput() || inflater.needsDictionary())) break;
+        n += k;
+      }
+      if (n != raw.length || !inflater.finished()) {
+        throw new IllegalStateException("Trama comprimida truncada");
+      }
+    } catch (DataFormatException e) {
+      throw new IllegalStateException("Trama comprimida inválida: " + e.getMessage());
+    } finally {
+      inflater.reset();
+      if (!INFLATERS.offer(inflater)) inflater.end();
+    }
+    CompressionStats.GLOBAL.recordInflate(System.nanoTime() - start);
+    return raw;
+  }
+
+  private static void writeFields(Writer w, String data) {
+    int count = 1;
+    for (int i = 0; i < data.length(); i++) {
+      if (data.charAt(i) == '|') count++;
+    }
+    w.writeVarLong(count);
+    int start = 0;
+    while (true) {
+      int end = data.indexOf('|', start);
+      String field = end < 0 ? data.substring(start) : data.substring(start, end);
+      writeField(w, field);
+      if (end < 0) break;
+      start = end + 1;
+    }
+  }
+
+  private static void writeField(Writer w, String field) {
+    if (field.equals("true")) {
+      w.writeByte(FIELD_TRUE);
+      return;
+    }
+    if (field.equals("false")) {
+      w.writeByte(FIELD_FALSE);
+      return;
+    }
+    Long integer = parseCanonicalLong(field);
+    if (integer != null) {
+      w.writeByte(FIELD_INT);
+      w.writeVarLong(zigZag(integer));
+      return;
+    }
+    Long hundredths = parseDecimal2(field);
+    if (hundredths != null) {
+      w.writeByte(FIELD_DECIMAL2);
+      w.writeVarLong(zigZag(hundredths));
+      return;
+    }
+    w.writeByte(FIELD_TEXT);
+    w.writeString(field);
+  }
+
+  // Solo si Long.toString devuelve el mismo texto (sin ceros ni '+' delante)
+  private static Long parseCanonicalLong(String s) {
+    int n = s.length();
+    if (n == 0 || n > 18) return null;
+    int i = s.charAt(0) == '-' ? 1 : 0;
+    if (i == n || (s.charAt(i) == '0' && n > i + 1) || (i == 1 && s.equals("-0"))) return null;
+    for (int k = i; k < n; k++) {
+      char c = s.charAt(k);
+      if (c < '0' || c > '9') return null;
+    }
+    return Long.parseLong(s);
+  }
+
+  // "1.50" -> 150, solo si formatDecimal2 lo reconstruye igual
+  private static Long parseDecimal2(String s) {
+    int dot = s.indexOf('.');
+    if (dot < 1 || dot != s.length() - 3) return null;
+    Long whole = parseCanonicalLong(s.substring(0, dot));
+    char d1 = s.charAt(dot + 1);
+    char d2 = s.charAt(dot + 2);
+    if (whole == null || d1 < '0' || d1 > '9' || d2 < '0' || d2 > '9') return null;
+    long cents = (d1 - '0') * 10 + (d2 - '0');
+    long value = s.charAt(0) == '-' ? whole * 100 - cents : whole * 100 + cents;
+    return formatDecimal2(value).equals(s) ? value : null;
+  }
+
+  private static String formatDecimal2(long hundredths) {
+    long abs = Math.abs(hundredths);
+    long cents = abs % 100;
+    return (hundredths < 0 ? "-" : "") + (abs / 100) + "." + (cents < 10 ? "0" : "") + cents;
+  }
+
+  @Override
+  public int frameEnd(byte[] buf, int off, int len, int scanned) throws IOException {
+    long length = 0;
+    int shift = 0;
+    for (int i = off, end = off + len; i < end; i++) {
+      int b = buf[i];
+      length |= (long) (b & 0x7F) << shift;
+      if ((b & 0x80) == 0) {
+        if (length > MAX_FRAME_BYTES) {
+          throw new IOException("Trama binaria demasiado grande: " + length + " bytes");
+        }
+        long frameEnd = i + 1 + length;
+        return frameEnd <= end ? (int) frameEnd : -1;
+      }
+      shift += 7;
+      if (shift > 35) throw new IOException("Longitud de trama inválida");
+    }
+    return -1;
+  }
+
+  @Override
+  public Message decode(byte[] buf, int off, int end) {
+    try {
+      Reader r = new Reader(buf, off, end);
+      r.readVarLong(); // longitud, ya validada por frameEnd
+      int flags = r.readByte();
+      if ((flags & COMPRESSED) != 0) {
+        byte[] raw = inflate(r);
+        r = new Reader(raw, 0, raw.length);
+      }
+      int type = (int) r.readVarLong();
+      Message msg = new Message();
+      msg.setType(type < TYPES.length ? TYPES[type] : null);
+      msg.setSeq(r.readVarLong());
+      msg.setTimestamp(r.readVarLong());
+      if ((flags & HAS_PLAYER) != 0) msg.setPlayerId(r.readString());
+      if ((flags & HAS_USERNAME) != 0) msg.setUsername(r.readString());
+      if ((flags & DATA_FIELDS) != 0) {
+        msg.setData(readFields(r));
+      } else if ((flags & HAS_DATA) != 0) {
+        msg.setData(r.readString());
+      }
+      return msg.getType() != null ? msg : null;
+    } catch (RuntimeException e) {
+      System.err.println("Trama binaria inválida: " + e);
+      return null;
+    }
+  }
+
+  private static String readFields(Reader r) {
+    int count = r.readCount();
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < count; i++) {
+      if (i > 0) sb.append('|');
+      int tag = r.readByte();
+      switch (tag) {
+        case FIELD_INT -> sb.append(unZigZag(r.readVarLong()));
+        case FIELD_TRUE -> sb.append("true");
+        case FIELD_FALSE -> sb.append("false");
+        case FIELD_DECIMAL2 -> sb.append(formatDecimal2(unZigZag(r.readVarLong())));
+        case FIELD_TEXT -> sb.append(r.readString());
+        default -> throw new IllegalStateException("Campo desconocido " + tag);
+      }
+    }
+    return sb.toString();
+  }
+
+  private static long zigZag(long v) {
+    return (v << 1) ^ (v >> 63);
+  }
+
+  private static long unZigZag(long v) {
+    return (v >>> 1) ^ -(v & 1);
+  }
+
+  /**
+   * Cuerpo de la trama en construcción; toFrame antepone la longitud.
+   */
+  static final class Writer {
+    private byte[] buf;
+    private int len;
+
+    Writer() {
+      this(64);
+    }
+
+    Writer(int capacity) {
+      buf = new byte[capacity];
+    }
+
+    void writeByte(int b) {
+      ensure(1);
+      buf[len++] = (byte) b;
+    }
+
+    void writeVarLong(long v) {
+      ensure(10);
+      while ((v & ~0x7FL) != 0) {
+        buf[len++] = (byte) ((v & 0x7F) | 0x80);
+        v >>>= 7;
+      }
+      buf[len++] = (byte) v;
+    }
+
+    void writeString(String s) {
+      byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+      writeVarLong(bytes.length);
+      ensure(bytes.length);
+      System.arraycopy(bytes, 0, buf, len, bytes.length);
+      len += bytes.length;
+    }
+
+    void writeBytes(byte[] bytes, int off, int length) {
+      ensure(length);
+      System.arraycopy(bytes, off, buf, len, length);
+      len += length;
+    }
+
+    private void ensure(int extra) {
+      if (len + extra > buf.length) {
+        buf = Arrays.copyOf(buf, Math.max(buf.length * 2, len + extra));
+      }
+    }
+
+    byte[] toFrame() {
+      int prefix = 1;
+      for (int v = len; (v & ~0x7F) != 0; v >>>= 7) prefix++;
+      byte[] frame = new byte[prefix + len];
+      int p = 0;
+      int v = len;
+      while ((v & ~0x7F) != 0) {
+        frame[p++] = (byte) ((v & 0x7F) | 0x80);
+        v >>>= 7;
+      }
+      frame[p++] = (byte) v;
+      System.arraycopy(buf, 0, frame, p, len);
+      return frame;
+    }
+  }
+
+  static final class Reader {
+    private final byte[] buf;
+    private int pos;
+    private final int end;
+
+    Reader(byte[] buf, int off, int end) {
+      this.buf = buf;
+      this.pos = off;
+      this.end = end;
+    }
+
+    int readByte() {
+      if (pos >= end) throw new IllegalStateException("Trama truncada");
+      return buf[pos++] & 0xFF;
+    }
+
+    long readVarLong() {
+      long v = 0;
+      for (int shift = 0; shift < 64; shift += 7) {
+        int b = readByte();
+        v |= (long) (b & 0x7F) << shift;
+        if ((b & 0x80) == 0) return v;
+      }
+      throw new IllegalStateException("Varint demasiado largo");
+    }
+
+    // Cada elemento ocupa al menos un byte: una cantidad mayor que lo que
+    // queda de la trama es falsa y no debe dimensionar nada
+    int readCount() {
+      long n = readVarLong();
+      if (n < 0 || n > end - pos) throw new IllegalStateException("Cantidad inválida: " + n);
+      return (int) n;
+    }
+
+    String readString() {
+      long length = readVarLong();
+      if (length < 0 || length > end - pos) throw new IllegalStateException("Texto truncado");
+      String s = new String(buf, pos, (int) length, StandardCharsets.UTF_8);
+      pos += (int) length;
+      return s;
+    }
+  }
+}
@@ -0,0 +1,29 @@
+package com.battlesimulator.network;
+
+/**
+ * Conexión de un cliente vista desde el servidor, independiente de cómo se
+ * haga la E/S (hilo por cliente o selector NIO).
+ */
+interface ClientConnection {
+  String getId();
+
+  /**
+   * Encola el mensaje codificado con el formato actual de la conexión.
+   */
+  void send(OutboundMessage message);
+
+  /**
+   * Cambia al codec pedido por el cliente: lo siguiente que se lea ya viene
+   * en ese formato, y lo siguiente que se escriba después de la confirmación
+   * (enviada aún en el formato anterior) también.
+   */
+  void upgrade(MessageCodec codec);
+
+  /**
+   * A partir de ahora, lo que salga de la cola (o se envíe ya cerrada) se
+   * anota en esa sesión para poder reenviarlo si la conexión se corta.
+   */
+  void journalTo(ClientSession session);
+
+  void close();
+}
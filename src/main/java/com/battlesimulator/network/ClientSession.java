@@ -0,0 +1,250 @@
+package com.battlesimulator.network;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Jugador conectado al servidor: su id, su token de sesión y la conexión
+ * por la que le llegan los mensajes en este momento. Si la conexión se
+ * corta, la sesión sigue en su sala y anota lo que se le envía; al volver
+ * con RESUME "token|recibidos" se le reenvía todo lo que no llegó a leer.
+ *
+ * Cliente y servidor cuentan los mismos mensajes (isJournaled): el cliente
+ * los que procesa y el servidor los que salen de la cola de la conexión.
+ * Con ACK "recibidos" el cliente confirma lo ya procesado y se suelta del
+ * journal. En sentido contrario la sesión recuerda el último seq del
+ * cliente que se aplicó: lo repetido o atrasado se descarta, así reenviar
+ * tras reanudar es seguro.
+ */
+final class ClientSession {
+  // Mensajes anotados como máximo; si el cliente perdió más no puede volver
+  // (tampoco cabrían de una vez en su cola de salida)
+  static final int JOURNAL_CAPACITY = OutboundQueue.MAX_FRAMES;
+
+  private final String id;
+  private final String token;
+  // Lectura: envíos; escritura: cambio de conexión (el orden no se mezcla)
+  private final ReadWriteLock switching = new ReentrantReadWriteLock();
+  private volatile ClientConnection transport;
+  private volatile long detachedAt;
+
+  // Protegido por journal
+  private final ArrayDeque<Message> journal = new ArrayDeque<>();
+  // Número del último mensaje anotado; el primero del journal es recorded - size + 1
+  private long recorded;
+
+  // Protegido por this: último seq del cliente aplicado y el último confirmado con ACK
+  private long lastReceivedSeq;
+  private long ackedSeq;
+
+  ClientSession(String id, String token, ClientConnection transport) {
+    this.id = id;
+    this.token = token;
+    this.transport = transport;
+    transport.journalTo(this);
+  }
+
+  /**
+   * Mensajes que cuentan para reanudar: los de control de la conexión
+   * (CONNECT, latidos, RESUME) no se reenvían.
+   */
+  static boolean isJournaled(Message message) {
+    switch (message.getType()) {
+      case CONNECT:
+      case PING:
+      case PONG:
+      case RESUME:
+      case ACK:
+        return false;
+      default:
+        return true;
+    }
+  }
+
+  String getId() {
+    return id;
+  }
+
+  String getToken() {
+    return token;
+  }
+
+  ClientConnection getTransport() {
+    return transport;
+  }
+
+  boolean isDetached() {
+    return transport == null;
+  }
+
+  long getDetachedAt() {
+    return detachedAt;
+  }
+
+  /**
+   * Envía por la conexión actual; sin conexión, solo lo anota para
+   * reenviarlo al volver.
+   */
+  void send(OutboundMessage message) {
+    switching.readLock().lock();
+    try {
+      ClientConnection t = transport;
+      if (t != null) {
+        t.send(message);
+      } else {
+        record(message.getMessage());
+      }
+    } finally {
+      switching.readLock().unlock();
+    }
+  }
+
+  void upgrade(MessageCodec codec) {
+    ClientConnection t = transport;
+    if (t != null) {
+      t.upgrade(codec);
+    }
+  }
+
+  /**
+   * Anota un mensaje que salió (o debía salir) hacia el cliente. Lo llaman
+   * las colas de salida al vaciarse, en el orden en que se escriben.
+   */
+  void record(Message message) {
+    if (!isJournaled(message)) return;
+    synchronized (journal) {
+      journal.addLast(message);
+      recorded++;
+      if (journal.size() > JOURNAL_CAPACITY) {
+        journal.removeFirst();
+      }
+    }
+  }
+
+  /**
+   * El cliente ya procesó hasta el mensaje número received: deja de
+   * guardarlos para reenviar.
+   */
+  void acknowledge(long received) {
+    synchronized (journal) {
+      long first = recorded - journal.size() + 1;
+      for (long n = Math.min(received, recorded); first <= n; first++) {
+        journal.removeFirst();
+      }
+    }
+  }
+
+  /**
+   * Registra el seq de un mensaje del cliente.
+   * @return false si no supera al último aplicado (repetido o atrasado)
+   */
+  synchronized boolean accept(Message message) {
+    long seq = message.getSeq();
+    if (seq <= 0 || !isJournaled(message)) return true;
+    if (seq <= lastReceivedSeq) return false;
+    lastReceivedSeq = seq;
+    return true;
+  }
+
+  synchronized long getLastReceivedSeq() {
+    return lastReceivedSeq;
+  }
+
+  /**
+   * Último seq aplicado si hay que confirmárselo al cliente, o -1 si ya se hizo.
+   */
+  synchronized long pendingAck() {
+    if (lastReceivedSeq <= ackedSeq) return -1;
+    ackedSeq = lastReceivedSeq;
+    return ackedSeq;
+  }
+
+  /**
+   * Suelta la conexión si sigue siendo la actual: lo que quedaba en su cola
+   * se anota al cerrarla y lo que llegue después se anota directamente.
+   * @return false si la sesión ya estaba en otra conexión
+   */
+  boolean detach(ClientConnection from) {
+    switching.writeLock().lock();
+    try {
+      if (transport != from) return false;
+      transport = null;
+      detachedAt = System.nanoTime();
+      from.close();
+      return true;
+    } finally {
+      switching.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Pasa la sesión a la conexión nueva: confirma con ack y le reenvía los
+   * mensajes posteriores al número received, antes que cualquier envío
+   * nuevo.
+   * @return false si el cliente perdió mensajes que ya no están anotados
+   */
+  boolean resume(ClientConnection to, long received, Message ack) {
+    switching.writeLock().lock();
+    try {
+      ClientConnection old = transport;
+      if (old != null && old != to) {
+        old.close(); // Aún no sabíamos que estaba muerta
+      }
+      List<Message> missed;
+      synchronized (journal) {
+        long first = recorded - journal.size() + 1;
+        if (received < first - 1 || received > recorded) {
+          transport = null;
+          detachedAt = System.nanoTime();
+          return false;
+        }
+        // Se vuelven a anotar al salir por la conexión nueva, con los mismos números
+        int count = (int) (recorded - received);
+        missed = new ArrayList<>(journal).subList(journal.size() - count, journal.size());
+        for (int i = 0; i < count; i++) {
+          journal.removeLast();
+        }
+        recorded = received;
+      }
+      to.journalTo(this);
+      transport = to;
+      to.send(new OutboundMessage(ack));
+      for (Message message : missed) {
+        to.send(new OutboundMessage(message));
+      }
+      return true;
+    } finally {
+      switching.writeLock().unlock();
+    }
+  }
+
+  /**
+   * La conexión pasa a otra sesión (la que reanuda): esta deja de usarla
+   * sin cerrarla.
+   */
+  void handOver() {
+    switching.writeLock().lock();
+    try {
+      transport = null;
+      detachedAt = System.nanoTime();
+    } finally {
+      switching.writeLock().unlock();
+    }
+  }
+
+  void close() {
+    switching.writeLock().lock();
+    try {
+      ClientConnection t = transport;
+      transport = null;
+      if (t != null) {
+        t.close();
+      }
+    } finally {
+      switching.writeLock().unlock();
+    }
+  }
+}
@@ -0,0 +1,83 @@
+package com.battlesimulator.network;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Contadores de la compresión de tramas binarias: cuántas se comprimieron,
+ * cuánto ocuparon antes y después y el tiempo de CPU de comprimir y
+ * descomprimir. Son de todo el proceso (los codecs son únicos), así que en
+ * el host suman lo del servidor y lo de su propio cliente.
+ */
+public final class CompressionStats {
+  static final CompressionStats GLOBAL = new CompressionStats();
+
+  private final AtomicLong compressedFrames = new AtomicLong();
+  // Tramas que superaban el umbral pero no se reducían: van sin comprimir
+  private final AtomicLong incompressibleFrames = new AtomicLong();
+  private final AtomicLong rawBytes = new AtomicLong();
+  private final AtomicLong compressedBytes = new AtomicLong();
+  private final AtomicLong deflateNanos = new AtomicLong();
+  private final AtomicLong inflatedFrames = new AtomicLong();
+  private final AtomicLong inflateNanos = new AtomicLong();
+
+  CompressionStats() {
+  }
+
+  void recordDeflate(int raw, int compressed, long nanos) {
+    deflateNanos.addAndGet(nanos);
+    if (compressed < 0) {
+      incompressibleFrames.incrementAndGet();
+      return;
+    }
+    compressedFrames.incrementAndGet();
+    rawBytes.addAndGet(raw);
+    compressedBytes.addAndGet(compressed);
+  }
+
+  void recordInflate(long nanos) {
+    inflatedFrames.incrementAndGet();
+    inflateNanos.addAndGet(nanos);
+  }
+
+  public long getCompressedFrames() {
+    return compressedFrames.get();
+  }
+
+  public long getIncompressibleFrames() {
+    return incompressibleFrames.get();
+  }
+
+  public long getRawBytes() {
+    return rawBytes.get();
+  }
+
+  public long getCompressedBytes() {
+    return compressedBytes.get();
+  }
+
+  // Tamaño comprimido / original de las tramas comprimidas (1 si no hay)
+  public double getRatio() {
+    long raw = rawBytes.get();
+    return raw == 0 ? 1 : (double) compressedBytes.get() / raw;
+  }
+
+  public double getDeflateMillis() {
+    return deflateNanos.get() / 1e6;
+  }
+
+  public long getInflatedFrames() {
+    return inflatedFrames.get();
+  }
+
+  public double getInflateMillis() {
+    return inflateNanos.get() / 1e6;
+  }
+
+  @Override
+  public String toString() {
+    return String.format(Locale.ROOT, "comprimidas=%d (%d KB -> %d KB, ratio %.2f, %.1f ms) sin reducir=%d descomprimidas=%d (%.1f ms)",
+        getCompressedFrames(), getRawBytes() / 1024, getCompressedBytes() / 1024, getRatio(), getDeflateMillis(),
+        getIncompressibleFrames(), getInflatedFrames(), getInflateMillis());
+  }
+}
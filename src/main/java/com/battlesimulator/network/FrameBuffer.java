@@ -0,0 +1,83 @@
+package com.battlesimulator.network;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * Bytes recibidos pendientes de formar mensajes completos. Lo usan tanto las
+ * conexiones bloqueantes (leyendo de un InputStream) como las NIO (copiando
+ * desde el búfer del selector). El codec se indica en cada llamada a next,
+ * así el cambio de JSON a binario ocurre justo entre dos mensajes.
+ */
+final class FrameBuffer {
+  // Límite de un mensaje (CLAN_CONFIG de ejércitos grandes incluido)
+  static final int MAX_FRAME_BYTES = 64 * 1024 * 1024;
+  private static final int INITIAL_SIZE = 4096;
+
+  private byte[] buf = new byte[INITIAL_SIZE];
+  private int start;
+  private int end;
+  // Bytes de la trama incompleta ya revisados (evita volver a recorrer
+  // una línea JSON enorme cada vez que llega un trozo)
+  private int scanned;
+
+  void append(byte[] src, int off, int len) throws IOException {
+    ensure(len);
+    System.arraycopy(src, off, buf, end, len);
+    end += len;
+  }
+
+  /**
+   * Lee lo que haya disponible del stream (bloquea si no hay nada).
+   * @return bytes leídos, o -1 al final del stream
+   */
+  int readFrom(InputStream in) throws IOException {
+    ensure(INITIAL_SIZE);
+    int n = in.read(buf, end, buf.length - end);
+    if (n > 0) end += n;
+    return n;
+  }
+
+  /**
+   * Siguiente mensaje completo, o null si faltan bytes. Las tramas que no se
+   * pueden decodificar se descartan.
+   */
+  Message next(MessageCodec codec) throws IOException {
+    while (end > start) {
+      int frameEnd = codec.frameEnd(buf, start, end - start, scanned);
+      if (frameEnd < 0) {
+        if (end - start > MAX_FRAME_BYTES) {
+          throw new IOException("Mensaje demasiado grande (" + (end - start) + " bytes)");
+        }
+        scanned = end - start;
+        return null;
+      }
+      Message msg = codec.decode(buf, start, frameEnd);
+      start = frameEnd;
+      scanned = 0;
+      if (start == end) {
+        start = end = 0;
+        // No retener búferes enormes después de un CLAN_CONFIG grande
+        if (buf.length > 1024 * 1024) buf = new byte[INITIAL_SIZE];
+      }
+      if (msg != null) return msg;
+    }
+    return null;
+  }
+
+  private void ensure(int extra) throws IOException {
+    if (end + extra <= buf.length) return;
+    // Primero compactar, después crecer
+    if (start > 0) {
+      System.arraycopy(buf, start, buf, 0, end - start);
+      end -= start;
+      start = 0;
+      if (end + extra <= buf.length) return;
+    }
+    if (end + extra > MAX_FRAME_BYTES + INITIAL_SIZE) {
+      throw new IOException("Mensaje demasiado grande (" + (end + extra) + " bytes)");
+    }
+    buf = Arrays.copyOf(buf, Math.max(buf.length * 2, end + extra));
+  }
+}
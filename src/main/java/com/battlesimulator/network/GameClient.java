@@ -1,72 +1,102 @@
 package com.battlesimulator.network;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import java.io.*;
 import java.net.*;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
 
 public class GameClient {
+  // Reconexión: hasta RECONNECT_ATTEMPTS intentos con espera exponencial
+  // (250 ms, 500 ms, 1 s... hasta 8 s), dentro del margen en que el
+  // servidor guarda la sesión (AbstractGameServer.SESSION_GRACE_MS)
+  static final int RECONNECT_ATTEMPTS = 6;
+  static final long RECONNECT_BASE_MS = 250;
+  static final long RECONNECT_MAX_MS = 8000;
+  private static final int CONNECT_TIMEOUT_MS = 10000;
+  // Mensajes propios sin confirmar que se guardan para reenviar al reanudar
+  static final int REPLAY_CAPACITY = 1024;
+
   private Socket socket;
-  private BufferedReader in;
-  private PrintWriter out;
-  private boolean connected = false;
+  private InputStream in;
+  private OutputStream out;
+  private volatile boolean connected = false;
+  private String host;
+  private int port;
   private String playerId;
-  private final ObjectMapper objectMapper = new ObjectMapper();
+  // Token de la sesión (CONNECT "playerId|token") para reanudarla tras un corte
+  private volatile String sessionToken;
+  // Mensajes de sesión procesados (ver ClientSession.isJournaled); solo los
+  // cuenta el hilo lector y el latido los confirma con ACK
+  private volatile long received;
+  private long receivedAcked;
+  // Último seq de cada emisor ya entregado al listener (solo el hilo lector)
+  private final Map<String, Long> lastSeqBySender = new HashMap<>();
+  // Protegidos por this: mayor seq repartido, seq del último mensaje enviado
+  // (o guardado para enviar) y los enviados que el servidor aún no confirmó
+  private long reservedSeq;
+  private long sentSeq;
+  private final ArrayDeque<Message> unacked = new ArrayDeque<>();
+  // Sin conexión: no se envía nada hasta reanudar
+  private volatile boolean reconnecting;
+  // Socket nuevo a la espera de la confirmación del RESUME
+  private boolean resuming;
+  private int reconnectAttempts;
+  // Se pasa al binario tras enviar/recibir la negociación en CONNECT
+  private volatile MessageCodec readCodec = MessageCodec.JSON;
+  private MessageCodec writeCodec = MessageCodec.JSON;
   private MessageListener listener;
-  
+  // Tiempos de ida y vuelta de nuestros PING al servidor
+  private final LatencyHistogram latency = new LatencyHistogram();
+  private Thread heartbeat;
+  private Thread reader;
+
   public interface MessageListener {
     void onMessageReceived(Message message);
     void onConnected(String playerId);
     void onDisconnected();
     void onError(String errorMessage);
+
+    /**
+     * Se cortó la conexión y se está intentando reanudar la sesión.
+     */
+    default void onReconnecting() {}
+
+    /**
+     * Sesión reanudada: ya llegaron los mensajes perdidos durante el corte.
+     */
+    default void onReconnected() {}
   }
-  
+
+  // El servidor ya no tiene la sesión: no tiene sentido reintentar
+  private static final class SessionExpiredException extends IOException {
+    private static final long serialVersionUID = 1L;
+
+    SessionExpiredException() {
+      super("Sesión expirada");
+    }
+  }
+
   public GameClient(MessageListener listener) {
     this.listener = listener;
   }
-  
+
   public boolean connect(String host, int port) {
+    this.host = host;
+    this.port = port;
     try {
-      socket = new Socket();
-      socket.connect(new InetSocketAddress(host, port), 10000); // 10 second timeout
-      socket.setSoTimeout(0); // Infinite read timeout - no timeout during game
-      in = new BufferedReader(new InputStreamReader(socket.getInputStream()));
-      out = new PrintWriter(socket.getOutputStream(), true);
+      openSocket();
       connected = true;
-      
-      // Iniciar thread de escucha
-      new Thread(() -> {
-        try {
-          String line;
-          while (connected && (line = in.readLine()) != null) {
-            Message msg = jsonToMessage(line);
-            if (msg != null) {
-              // Si es mensaje de conexión, guardar el ID
-              if (msg.getType() == Message.Type.CONNECT && playerId == null) {
-                playerId = msg.getData();
-                if (listener != null) {
-                  listener.onConnected(playerId);
-                }
-              } else if (listener != null) {
-                listener.onMessageReceived(msg);
-              }
-            }
-          }
-        } catch (SocketTimeoutException e) {
-          if (connected && listener != null) {
-            listener.onError("Tiempo de espera agotado. El servidor no responde.");
-          }
-        } catch (IOException e) {
-          if (connected) {
-            System.out.println("Conexión perdida con el servidor: " + e.getMessage());
-            if (listener != null) {
-              listener.onError("Conexión perdida con el servidor.");
-            }
-          }
-        } finally {
-          disconnect();
-        }
-      }, "GameClient-Listener").start();
-      
+
+      long heartbeat = AbstractGameServer.heartbeatMillis();
+      if (heartbeat > 0) {
+        startHeartbeat(heartbeat);
+      }
+
+      // Iniciar thread de escucha (virtual si la JVM lo permite)
+      reader = NetworkThreads.start("GameClient-Listener", this::listen);
+
       return true;
     } catch (SocketTimeoutException e) {
       String error = "No se pudo conectar al servidor. Tiempo de espera agotado.";
@@ -91,64 +121,398 @@ public class GameClient {
       return false;
     }
   }
-  
+
+  // Abre el socket y pide el formato binario; el servidor confirma antes de usarlo
+  private void openSocket() throws IOException {
+    Socket s = new Socket();
+    try {
+      s.connect(new InetSocketAddress(host, port), CONNECT_TIMEOUT_MS);
+      // El servidor envía un PING por latido: si pasan varios sin recibir
+      // nada, la conexión está muerta aunque el socket siga abierto
+      s.setSoTimeout((int) (AbstractGameServer.heartbeatMillis() * AbstractGameServer.HEARTBEAT_MISSES));
+      s.setTcpNoDelay(true);
+      synchronized (this) {
+        socket = s;
+        in = new BufferedInputStream(s.getInputStream());
+        out = new BufferedOutputStream(s.getOutputStream());
+        readCodec = MessageCodec.JSON;
+        writeCodec = MessageCodec.JSON;
+        MessageCodec preferred = MessageCodec.preferred();
+        if (preferred != MessageCodec.JSON) {
+          write(MessageCodec.negotiation(preferred));
+          writeCodec = preferred;
+        }
+      }
+    } catch (IOException e) {
+      s.close();
+      throw e;
+    }
+  }
+
+  private void listen() {
+    try {
+      while (connected) {
+        String error = null;
+        try {
+          FrameBuffer frames = new FrameBuffer();
+          while (connected) {
+            Message msg;
+            while ((msg = frames.next(readCodec)) != null) {
+              handleIncoming(msg);
+            }
+            if (frames.readFrom(in) < 0) {
+              break;
+            }
+          }
+        } catch (SessionExpiredException e) {
+          sessionToken = null;
+          error = "La sesión con el servidor expiró. Vuelve a conectarte.";
+        } catch (SocketTimeoutException e) {
+          error = "Tiempo de espera agotado. El servidor no responde.";
+        } catch (IOException e) {
+          error = "Conexión perdida con el servidor.";
+          if (connected) {
+            System.out.println("Conexión perdida con el servidor: " + e.getMessage());
+          }
+        }
+        if (!connected || !reconnect()) {
+          // Un cierre limpio sin sesión que reanudar no es un error
+          if (connected && error != null && listener != null) {
+            listener.onError(error);
+          }
+          break;
+        }
+      }
+    } finally {
+      disconnect();
+    }
+  }
+
+  /**
+   * Abre un socket nuevo, esperando cada vez el doble (con algo de azar
+   * para que no vuelvan todos a la vez), y pide reanudar la sesión con
+   * RESUME "token|recibidos". La confirmación llega por el bucle de lectura.
+   * @return false si no hay sesión o se agotaron los intentos
+   */
+  private boolean reconnect() {
+    if (sessionToken == null) return false;
+    closeSocket();
+    if (!reconnecting) {
+      reconnecting = true;
+      if (listener != null) {
+        listener.onReconnecting();
+      }
+    }
+    while (connected && reconnectAttempts < RECONNECT_ATTEMPTS) {
+      long delay = Math.min(RECONNECT_MAX_MS, RECONNECT_BASE_MS << reconnectAttempts);
+      reconnectAttempts++;
+      try {
+        Thread.sleep(delay + ThreadLocalRandom.current().nextLong(delay / 4 + 1));
+        openSocket();
+        synchronized (this) {
+          write(new Message(Message.Type.RESUME, sessionToken + "|" + received, playerId));
+        }
+        resuming = true;
+        System.out.println("Reconectando (intento " + reconnectAttempts + ")...");
+        return true;
+      } catch (IOException e) {
+        System.out.println("Intento de reconexión " + reconnectAttempts + " fallido: " + e.getMessage());
+        closeSocket();
+      } catch (InterruptedException e) {
+        return false; // disconnect()
+      }
+    }
+    return false;
+  }
+
+  // Mide la latencia con un PING propio por latido y confirma lo recibido
+  private void startHeartbeat(long interval) {
+    heartbeat = NetworkThreads.start("GameClient-Heartbeat", () -> {
+      try {
+        while (connected) {
+          Thread.sleep(interval);
+          long processed = received;
+          if (processed != receivedAcked && !reconnecting) {
+            receivedAcked = processed;
+            sendMessage(new Message(Message.Type.ACK, String.valueOf(processed), playerId));
+          }
+          sendMessage(new Message(Message.Type.PING, String.valueOf(System.nanoTime()), playerId));
+        }
+      } catch (InterruptedException e) {
+        // Fin del latido
+      }
+    });
+  }
+
+  private void handleIncoming(Message msg) throws IOException {
+    // Confirmación del formato: lo que sigue ya llega en binario
+    MessageCodec codec = MessageCodec.requestedBy(msg);
+    if (codec != null) {
+      readCodec = codec;
+      return;
+    }
+    // Latidos: se responden aquí y no llegan al listener
+    if (msg.getType() == Message.Type.PING) {
+      sendMessage(new Message(Message.Type.PONG, msg.getData(), playerId));
+      return;
+    }
+    if (msg.getType() == Message.Type.PONG) {
+      recordPong(msg.getData());
+      return;
+    }
+    if (msg.getType() == Message.Type.RESUME) {
+      handleResume(msg.getData());
+      return;
+    }
+    // Hasta que se confirme la sesión, lo que llegue es de la conexión provisional
+    if (resuming) {
+      return;
+    }
+    if (msg.getType() == Message.Type.ACK) {
+      handleAck(msg.getData());
+      return;
+    }
+    if (ClientSession.isJournaled(msg)) {
+      // Se cuenta aunque se descarte: el servidor lo contó al enviarlo
+      received++;
+      if (isDuplicate(msg)) {
+        System.out.println("Descartado " + msg.getType() + " repetido de " + msg.getPlayerId() + " (seq " + msg.getSeq() + ")");
+        return;
+      }
+    }
+    // Si es mensaje de conexión, guardar el ID y el token de sesión
+    if (msg.getType() == Message.Type.CONNECT && playerId == null) {
+      String data = msg.getData();
+      int bar = data != null ? data.indexOf('|') : -1;
+      playerId = bar >= 0 ? data.substring(0, bar) : data;
+      sessionToken = bar >= 0 ? data.substring(bar + 1) : null;
+      if (listener != null) {
+        listener.onConnected(playerId);
+      }
+    } else if (listener != null) {
+      listener.onMessageReceived(msg);
+    }
+  }
+
+  // Lo que no supera al último seq de su emisor ya se entregó (o es más viejo)
+  private boolean isDuplicate(Message msg) {
+    if (msg.getSeq() <= 0 || msg.getPlayerId() == null) return false;
+    Long last = lastSeqBySender.get(msg.getPlayerId());
+    if (last != null && msg.getSeq() <= last) return true;
+    lastSeqBySender.put(msg.getPlayerId(), msg.getSeq());
+    return false;
+  }
+
+  // ACK "seq" del servidor: ya aplicó nuestros mensajes hasta ese seq
+  private void handleAck(String data) {
+    try {
+      long seq = Long.parseLong(data);
+      synchronized (this) {
+        acknowledged(seq);
+      }
+    } catch (NumberFormatException | NullPointerException e) {
+      // ACK mal formado: se reenviará de más y el servidor lo descartará
+    }
+  }
+
+  // Llamar con el bloqueo de this
+  private void acknowledged(long seq) {
+    while (!unacked.isEmpty() && unacked.peekFirst().getSeq() <= seq) {
+      unacked.removeFirst();
+    }
+  }
+
+  /**
+   * "playerId|token|seq" si el servidor reanudó la sesión; sin data si no.
+   * Se reenvía lo propio posterior a seq (lo enviado durante el corte o
+   * perdido en el socket anterior) antes que cualquier envío nuevo.
+   */
+  private void handleResume(String data) throws IOException {
+    if (!resuming) return;
+    if (data == null || data.isEmpty()) {
+      System.out.println("El servidor rechazó la reconexión");
+      throw new SessionExpiredException();
+    }
+    resuming = false;
+    String[] parts = data.split("\\|");
+    int replayed;
+    synchronized (this) {
+      if (parts.length > 2) {
+        try {
+          acknowledged(Long.parseLong(parts[2]));
+        } catch (NumberFormatException e) {
+          // Sin confirmación: se reenvía todo y el servidor descarta lo repetido
+        }
+      }
+      replayed = unacked.size();
+      for (Message message : unacked) {
+        write(message);
+      }
+      reconnecting = false;
+    }
+    reconnectAttempts = 0;
+    System.out.println("Sesión reanudada tras " + received + " mensajes; reenviados " + replayed + " propios");
+    if (listener != null) {
+      listener.onReconnected();
+    }
+  }
+
+  private void recordPong(String data) {
+    try {
+      long rtt = System.nanoTime() - Long.parseLong(data);
+      if (rtt >= 0) {
+        latency.record(rtt);
+      }
+    } catch (NumberFormatException | NullPointerException e) {
+      // PONG que no responde a un PING nuestro
+    }
+  }
+
+  private synchronized void closeSocket() {
+    try {
+      if (socket != null && !socket.isClosed()) {
+        socket.close();
+      }
+    } catch (IOException e) {
+      e.printStackTrace();
+    }
+  }
+
   public void disconnect() {
     if (connected) {
       connected = false;
-      try {
-        sendMessage(new Message(Message.Type.DISCONNECT, ""));
-        if (socket != null && !socket.isClosed()) {
-          socket.close();
+      if (heartbeat != null) {
+        heartbeat.interrupt();
+      }
+      if (reader != null && reader != Thread.currentThread()) {
+        reader.interrupt();
+      }
+      // Salida voluntaria: el servidor no guarda la sesión
+      synchronized (this) {
+        if (!reconnecting && out != null) {
+          try {
+            write(new Message(Message.Type.DISCONNECT, ""));
+          } catch (IOException e) {
+            // La conexión ya estaba caída
+          }
         }
-      } catch (IOException e) {
-        e.printStackTrace();
+        reconnecting = false;
       }
+      closeSocket();
       if (listener != null) {
         listener.onDisconnected();
       }
     }
   }
-  
-  public void sendMessage(Message message) {
+
+  // Llamar con el bloqueo de this
+  private void write(Message message) throws IOException {
+    out.write(writeCodec.encode(message));
+    out.flush();
+  }
+
+  /**
+   * Reserva el seq con el que saldrá el mensaje, para quien necesite
+   * conocerlo antes de enviarlo; sendMessage lo asigna si falta. Si entre
+   * tanto se envía otro mensaje, sendMessage le da uno nuevo.
+   */
+  public synchronized void assignSeq(Message message) {
+    message.setSeq(++reservedSeq);
+  }
+
+  /**
+   * Envía el mensaje con el siguiente seq. Se guarda hasta que el servidor
+   * lo confirma; durante una reconexión solo se guarda y sale al reanudar
+   * (si caben, REPLAY_CAPACITY; si no, el turno se vuelve a comprobar).
+   */
+  public synchronized void sendMessage(Message message) {
     if (connected && out != null) {
-      try {
-        String json = messageToJson(message);
-        out.println(json);
-        if (out.checkError()) {
-          throw new IOException("Error al enviar mensaje");
+      boolean journaled = ClientSession.isJournaled(message);
+      if (journaled) {
+        if (message.getSeq() <= sentSeq) {
+          message.setSeq(++reservedSeq);
+        }
+        sentSeq = message.getSeq();
+        reservedSeq = Math.max(reservedSeq, sentSeq);
+        unacked.addLast(message);
+        if (unacked.size() > REPLAY_CAPACITY) {
+          unacked.removeFirst();
         }
+      }
+      if (reconnecting) {
+        if (!journaled) {
+          System.out.println("Reconectando; no se envía " + message.getType());
+        }
+        return;
+      }
+      try {
+        write(message);
       } catch (Exception e) {
         System.err.println("Error enviando mensaje: " + e.getMessage());
-        if (listener != null) {
+        if (sessionToken != null) {
+          // El hilo lector ve el socket cerrado y reconecta
+          closeSocket();
+        } else if (listener != null) {
           listener.onError("Error al enviar mensaje al servidor.");
         }
       }
     }
   }
-  
-  private String messageToJson(Message msg) {
-    try {
-      return objectMapper.writeValueAsString(msg);
-    } catch (Exception e) {
-      e.printStackTrace();
-      return "{}";
-    }
+
+  /**
+   * Pide al servidor entrar en la sala de la partida indicada; llega un
+   * JOIN_ROOM "sala|jugadores" como confirmación.
+   */
+  public void joinRoom(String matchId) {
+    Message msg = new Message(Message.Type.JOIN_ROOM, matchId);
+    msg.setPlayerId(playerId);
+    sendMessage(msg);
   }
-  
-  private Message jsonToMessage(String json) {
-    try {
-      return objectMapper.readValue(json, Message.class);
-    } catch (Exception e) {
-      e.printStackTrace();
-      return null;
-    }
+
+  /**
+   * Pide ver la partida indicada como espectador: se reciben sus mensajes
+   * pero el servidor rechaza las acciones de juego. Llega un SPECTATE
+   * "sala|jugadores|espectadores" como confirmación.
+   */
+  public void spectate(String matchId) {
+    spectate(matchId, 0);
+  }
+
+  /**
+   * Como espectador con la partida retrasada delaySeconds segundos.
+   */
+  public void spectate(String matchId, int delaySeconds) {
+    Message msg = new Message(Message.Type.SPECTATE, delaySeconds > 0 ? matchId + "|" + delaySeconds : matchId);
+    msg.setPlayerId(playerId);
+    sendMessage(msg);
   }
-  
+
   public boolean isConnected() {
     return connected;
   }
-  
+
+  /**
+   * true mientras se intenta reanudar la sesión tras un corte.
+   */
+  public boolean isReconnecting() {
+    return reconnecting;
+  }
+
   public String getPlayerId() {
     return playerId;
   }
+
+  /**
+   * Tiempos de ida y vuelta al servidor medidos con PING/PONG.
+   */
+  public LatencyHistogram getLatencyHistogram() {
+    return latency;
+  }
+
+  /**
+   * Compresión de los mensajes grandes (de todo el proceso, ver CompressionStats).
+   */
+  public CompressionStats getCompressionStats() {
+    return CompressionStats.GLOBAL;
+  }
 }
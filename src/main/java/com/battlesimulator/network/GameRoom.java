@@ -0,0 +1,186 @@
+package com.battlesimulator.network;
+
+import com.battlesimulator.usecases.AuthoritativeWar;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sala de una partida dentro del servidor: sus jugadores, su listener y, si
+ * el servidor la simula, su guerra. Los mensajes de un jugador solo se
+ * difunden a los miembros de su sala.
+ *
+ * Los espectadores reciben lo mismo que los jugadores (el mismo
+ * OutboundMessage, codificado una vez para todos) pero no cuentan como
+ * jugadores. Los que piden retraso comparten un SpectatorFeed por cada
+ * retraso distinto.
+ */
+final class GameRoom {
+  private final String id;
+  private final AbstractGameServer.ServerListener listener;
+  // Las salas abiertas desde el servidor se mantienen aunque queden vacías
+  private final boolean persistent;
+  private final Map<String, ClientSession> members = new ConcurrentHashMap<>();
+  // Espectadores en directo y, los diferidos, el feed en el que están
+  private final Map<String, ClientSession> spectators = new ConcurrentHashMap<>();
+  private final Map<String, SpectatorFeed> delayedSpectators = new ConcurrentHashMap<>();
+  // Un feed por retraso en ms
+  private final Map<Long, SpectatorFeed> feeds = new ConcurrentHashMap<>();
+  private volatile AuthoritativeWar war;
+  private volatile String hostPlayerId;
+
+  GameRoom(String id, AbstractGameServer.ServerListener listener, boolean persistent) {
+    this.id = id;
+    this.listener = listener;
+    this.persistent = persistent;
+  }
+
+  String getId() {
+    return id;
+  }
+
+  AbstractGameServer.ServerListener getListener() {
+    return listener;
+  }
+
+  boolean isPersistent() {
+    return persistent;
+  }
+
+  void add(ClientSession client) {
+    members.put(client.getId(), client);
+  }
+
+  /**
+   * Añade un espectador; snapshot (si no es null) le llega antes que nada
+   * de lo que se difunda después, con su mismo retraso.
+   */
+  synchronized void addSpectator(ClientSession client, long delayMillis, OutboundMessage snapshot) {
+    if (delayMillis <= 0) {
+      if (snapshot != null) {
+        client.send(snapshot);
+      }
+      spectators.put(client.getId(), client);
+      return;
+    }
+    SpectatorFeed feed = feeds.computeIfAbsent(delayMillis,
+        delay -> new SpectatorFeed(TimeUnit.MILLISECONDS.toNanos(delay)));
+    feed.subscribe(client, snapshot);
+    delayedSpectators.put(client.getId(), feed);
+  }
+
+  /**
+   * Quita al jugador o espectador.
+   * @return true solo si era un jugador
+   */
+  boolean remove(ClientSession client) {
+    if (members.remove(client.getId(), client)) return true;
+    removeSpectator(client);
+    return false;
+  }
+
+  private synchronized void removeSpectator(ClientSession client) {
+    if (spectators.remove(client.getId(), client)) return;
+    SpectatorFeed feed = delayedSpectators.get(client.getId());
+    if (feed != null && feed.unsubscribe(client)) {
+      delayedSpectators.remove(client.getId(), feed);
+      if (feed.isEmpty()) {
+        feeds.values().remove(feed);
+      }
+    }
+  }
+
+  boolean isSpectator(ClientSession client) {
+    return spectators.get(client.getId()) == client || delayedSpectators.containsKey(client.getId());
+  }
+
+  boolean isEmpty() {
+    return members.isEmpty() && spectators.isEmpty() && delayedSpectators.isEmpty();
+  }
+
+  // Solo jugadores
+  int size() {
+    return members.size();
+  }
+
+  int spectatorCount() {
+    return spectators.size() + delayedSpectators.size();
+  }
+
+  /**
+   * Envía a todos los miembros y espectadores; el mensaje se codifica una
+   * sola vez por formato y todos comparten esos bytes.
+   */
+  void broadcast(Message message) {
+    broadcast(new OutboundMessage(message));
+  }
+
+  void broadcast(OutboundMessage out) {
+    for (ClientSession client : members.values()) {
+      client.send(out);
+    }
+    for (ClientSession client : spectators.values()) {
+      client.send(out);
+    }
+    for (SpectatorFeed feed : feeds.values()) {
+      feed.offer(out);
+    }
+  }
+
+  /**
+   * Envía solo al espectador, respetando su retraso si lo tiene.
+   */
+  void sendToSpectator(ClientSession client, OutboundMessage out) {
+    SpectatorFeed feed = delayedSpectators.get(client.getId());
+    if (feed != null) {
+      feed.sendTo(client, out);
+    } else {
+      client.send(out);
+    }
+  }
+
+  boolean hasDelayedSpectators() {
+    return !feeds.isEmpty();
+  }
+
+  /**
+   * Envía lo que ya venció en los feeds diferidos y da una instantánea
+   * nueva a quien perdió mensajes porque su feed se desbordó.
+   * @return los que no se pueden resincronizar (sala sin guerra en el
+   *         servidor, no hay instantánea que darles)
+   */
+  List<ClientSession> releaseDelayed(long now) {
+    List<ClientSession> lost = new ArrayList<>();
+    for (SpectatorFeed feed : feeds.values()) {
+      feed.release(now);
+      for (ClientSession client : feed.staleSubscribers()) {
+        AuthoritativeWar w = war;
+        if (w == null) {
+          lost.add(client);
+          continue;
+        }
+        // Como en el alta: nada se difunde entre la instantánea y la resuscripción
+        synchronized (w) {
+          feed.resubscribe(client, new OutboundMessage(w.syncResponse()));
+        }
+      }
+    }
+    return lost;
+  }
+
+  void startWar(AuthoritativeWar war, String hostPlayerId) {
+    this.hostPlayerId = hostPlayerId;
+    this.war = war;
+  }
+
+  AuthoritativeWar getWar() {
+    return war;
+  }
+
+  // El host de la sala controla clan1 y cualquier otro jugador clan2
+  int clanOf(ClientSession client) {
+    return client.getId().equals(hostPlayerId) ? 1 : 2;
+  }
+}
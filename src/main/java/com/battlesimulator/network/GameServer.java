@@ -1,73 +1,49 @@
 package com.battlesimulator.network;
 
-import com.battlesimulator.domain.Clan;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import java.io.*;
 import java.net.*;
-import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.List;
 
-public class GameServer {
-  private static final int PORT = 5555;
+/**
+ * Servidor con un hilo bloqueante por cliente (virtual en Java 21+, ver
+ * NetworkThreads). Cada cliente tiene además un hilo escritor con una cola
+ * acotada (OutboundQueue), así un cliente lento no frena el broadcast a los
+ * demás.
+ */
+public class GameServer extends AbstractGameServer {
   private ServerSocket serverSocket;
-  private final Map<String, ClientHandler> clients = new ConcurrentHashMap<>();
-  private boolean running = false;
-  private final ObjectMapper objectMapper = new ObjectMapper();
-  private ServerListener listener;
-  
-  public interface ServerListener {
-    void onPlayerConnected(String playerId);
-    void onPlayerDisconnected(String playerId);
-    void onClanConfigured(String playerId, Clan clan);
-    void onWarStartRequested();
-    void onAttackReceived(String playerId, String attackData);
-    void onChatMessage(String playerId, String message);
-  }
-  
+
   public GameServer(ServerListener listener) {
-    this.listener = listener;
+    super(listener);
   }
-  
+
+  @Override
   public void start() throws IOException {
-    int port = PORT;
-    int attempts = 0;
-    IOException lastException = null;
-    
-    // Intentar hasta 5 puertos diferentes
-    while (attempts < 5) {
+    bindFirstFree(port -> {
+      serverSocket = new ServerSocket();
       try {
-        serverSocket = new ServerSocket();
         serverSocket.setReuseAddress(true);
-        serverSocket.bind(new java.net.InetSocketAddress(port));
-        running = true;
-        System.out.println("Servidor iniciado en puerto " + port);
-        break; // Éxito, salir del bucle
+        serverSocket.bind(new InetSocketAddress(port), ACCEPT_BACKLOG);
       } catch (IOException e) {
-        lastException = e;
-        if (serverSocket != null && !serverSocket.isClosed()) {
-          try { serverSocket.close(); } catch (Exception ex) {}
-        }
-        port++; // Intentar con el siguiente puerto
-        attempts++;
-        System.err.println("Puerto " + port + " ocupado, intentando puerto " + (port + 1));
+        try { serverSocket.close(); } catch (Exception ex) {}
+        throw e;
       }
-    }
-    
-    if (!running) {
-      throw new IOException("No se pudo iniciar el servidor después de " + attempts + " intentos", lastException);
-    }
-    
-    new Thread(() -> {
+    });
+    running = true;
+    startHeartbeat();
+
+    NetworkThreads.start("GameServer-Accept", () -> {
       while (running) {
         try {
           Socket clientSocket = serverSocket.accept();
-          String clientId = UUID.randomUUID().toString().substring(0, 8);
-          ClientHandler handler = new ClientHandler(clientSocket, clientId);
-          clients.put(clientId, handler);
-          new Thread(handler).start();
-          System.out.println("Cliente conectado: " + clientId);
-          if (listener != null) {
-            listener.onPlayerConnected(clientId);
+          // La acción y su delta salen seguidos: sin Nagle el segundo no espera al ACK
+          clientSocket.setTcpNoDelay(true);
+          ClientHandler handler = new ClientHandler(clientSocket, newClientId());
+          if (handler.isOpen()) {
+            register(handler);
+            handler.startThreads();
+          } else {
+            handler.close();
           }
         } catch (IOException e) {
           if (running) {
@@ -75,185 +51,149 @@ public class GameServer {
           }
         }
       }
-    }).start();
+    });
   }
-  
+
+  @Override
   public void stop() {
     running = false;
+    stopHeartbeat();
     try {
       // Cerrar todos los clientes primero
-      for (ClientHandler client : clients.values()) {
-        client.close();
-      }
-      clients.clear();
-      
+      closeAll();
+
       // Cerrar el socket del servidor
       if (serverSocket != null && !serverSocket.isClosed()) {
         serverSocket.close();
       }
-      
+
       System.out.println("Servidor detenido y puerto liberado");
     } catch (IOException e) {
       e.printStackTrace();
     }
   }
-  
-  public void broadcast(Message message) {
-    String json = messageToJson(message);
-    for (ClientHandler client : clients.values()) {
-      client.send(json);
-    }
-  }
-  
-  public void sendToPlayer(String playerId, Message message) {
-    ClientHandler client = clients.get(playerId);
-    if (client != null) {
-      client.send(messageToJson(message));
-    }
-  }
-  
-  private String messageToJson(Message msg) {
-    try {
-      return objectMapper.writeValueAsString(msg);
-    } catch (Exception e) {
-      e.printStackTrace();
-      return "{}";
-    }
-  }
-  
-  private Message jsonToMessage(String json) {
-    try {
-      return objectMapper.readValue(json, Message.class);
-    } catch (Exception e) {
-      e.printStackTrace();
-      return null;
-    }
-  }
-  
-  public int getConnectedPlayers() {
-    return clients.size();
-  }
-  
-  public Set<String> getPlayerIds() {
-    return new HashSet<>(clients.keySet());
-  }
-  
+
+  @Override
   public int getActualPort() {
     if (serverSocket != null && serverSocket.isBound()) {
       return serverSocket.getLocalPort();
     }
     return PORT;
   }
-  
-  class ClientHandler implements Runnable {
+
+  class ClientHandler implements Runnable, ClientConnection {
     private final Socket socket;
     private final String clientId;
-    private BufferedReader in;
-    private PrintWriter out;
-    
+    private InputStream in;
+    private OutputStream out;
+    // Tramas ya codificadas, en el formato vigente al encolarlas
+    private final OutboundQueue outbound = new OutboundQueue();
+    private volatile MessageCodec readCodec = MessageCodec.JSON;
+    // Protegido por this: el cambio de formato y el encolado son atómicos
+    private MessageCodec writeCodec = MessageCodec.JSON;
+    private Thread writer;
+
     public ClientHandler(Socket socket, String clientId) {
       this.socket = socket;
       this.clientId = clientId;
       try {
-        in = new BufferedReader(new InputStreamReader(socket.getInputStream()));
-        out = new PrintWriter(socket.getOutputStream(), true);
-        // Enviar ID al cliente
-        Message connectMsg = new Message(Message.Type.CONNECT, clientId, "SERVER");
-        send(messageToJson(connectMsg));
+        in = new BufferedInputStream(socket.getInputStream());
+        out = new BufferedOutputStream(socket.getOutputStream());
       } catch (IOException e) {
         e.printStackTrace();
       }
     }
-    
+
+    boolean isOpen() {
+      return in != null && out != null;
+    }
+
+    @Override
+    public String getId() {
+      return clientId;
+    }
+
+    void startThreads() {
+      writer = NetworkThreads.start("GameServer-Writer-" + clientId, this::writeLoop);
+      NetworkThreads.start("GameServer-Client-" + clientId, this);
+    }
+
     @Override
     public void run() {
+      FrameBuffer frames = new FrameBuffer();
       try {
-        String line;
-        while ((line = in.readLine()) != null) {
-          Message msg = jsonToMessage(line);
-          if (msg != null) {
-            handleMessage(msg);
+        while (true) {
+          Message msg;
+          while ((msg = frames.next(readCodec)) != null) {
+            handleMessage(this, msg);
+          }
+          if (frames.readFrom(in) < 0) {
+            break;
           }
         }
       } catch (IOException e) {
         System.out.println("Cliente desconectado: " + clientId);
       } finally {
-        disconnect();
+        unregister(this);
       }
     }
-    
-    private void handleMessage(Message msg) {
-      // Guardar el playerId original si ya viene establecido
-      String originalPlayerId = msg.getPlayerId();
-      // Si no tiene playerId, usar el clientId del handler
-      if (originalPlayerId == null || originalPlayerId.isEmpty()) {
-        msg.setPlayerId(clientId);
-      }
-      System.out.println("[SERVER] Mensaje recibido de " + clientId + ": " + msg.getType() + " playerId=" + msg.getPlayerId());
-      
-      switch (msg.getType()) {
-        case CLAN_CONFIG:
-          if (listener != null) {
-            // Aquí recibiríamos la configuración del clan
-            listener.onClanConfigured(clientId, null); // TODO: deserializar clan
-          }
-          break;
-        case START_WAR:
-          if (listener != null) {
-            listener.onWarStartRequested();
-          }
-          break;
-        case ATTACK:
-          if (listener != null) {
-            listener.onAttackReceived(clientId, msg.getData());
-          }
-          // Broadcast a todos
-          broadcast(msg);
-          break;
-        case MOVE:
-          // Broadcast movimiento a todos los clientes
-          System.out.println("[SERVER] Retransmitiendo MOVE: " + msg.getData());
-          broadcast(msg);
-          break;
-        case BATTLE_UPDATE:
-          // Retransmitir actualización de batalla a todos los clientes
-          System.out.println("[SERVER] Retransmitiendo BATTLE_UPDATE: " + msg.getData());
-          broadcast(msg);
-          break;
-        case BATTLE_END:
-          // Retransmitir fin de batalla
-          broadcast(msg);
-          break;
-        case WAR_END:
-          // Retransmitir fin de guerra
-          broadcast(msg);
-          break;
-        case TURN_END:
-          // Retransmitir fin de turno
-          System.out.println("[SERVER] Retransmitiendo TURN_END de " + msg.getUsername());
-          broadcast(msg);
-          break;
-        case CHAT:
-          if (listener != null) {
-            listener.onChatMessage(clientId, msg.getData());
+
+    // Único hilo que escribe en el socket de este cliente: escribe todo lo
+    // pendiente y hace un solo flush por tanda
+    private void writeLoop() {
+      try {
+        List<byte[]> batch;
+        while ((batch = outbound.takeAll()) != null) {
+          for (byte[] frame : batch) {
+            out.write(frame);
           }
-          broadcast(msg);
-          break;
-        case DISCONNECT:
-          disconnect();
-          break;
-        default:
-          break;
+          out.flush();
+        }
+      } catch (InterruptedException | IOException e) {
+        // close() interrumpe al escritor; un error de escritura cierra la conexión
+      } finally {
+        unregister(this);
       }
     }
-    
-    public void send(String message) {
-      if (out != null) {
-        out.println(message);
+
+    /**
+     * Encola sin bloquear. Si la cola está llena el cliente no está leyendo:
+     * se desconecta en lugar de frenar al hilo que hace el broadcast.
+     */
+    @Override
+    public void send(OutboundMessage message) {
+      if (out == null) return;
+      boolean queued;
+      synchronized (this) {
+        queued = outbound.offer(message, writeCodec);
+      }
+      if (!queued) {
+        // El hilo lector ve el socket cerrado y da de baja la conexión
+        System.err.println("Cliente " + clientId + " no lee sus mensajes; desconectado");
+        close();
+      }
+    }
+
+    @Override
+    public void upgrade(MessageCodec codec) {
+      readCodec = codec;
+      synchronized (this) {
+        send(new OutboundMessage(MessageCodec.negotiation(codec)));
+        writeCodec = codec;
       }
     }
-    
+
+    @Override
+    public void journalTo(ClientSession session) {
+      outbound.journalTo(session);
+    }
+
+    @Override
     public void close() {
+      outbound.close();
+      if (writer != null && writer != Thread.currentThread()) {
+        writer.interrupt();
+      }
       try {
         if (socket != null && !socket.isClosed()) {
           socket.close();
@@ -262,13 +202,5 @@ public class GameServer {
         e.printStackTrace();
       }
     }
-    
-    private void disconnect() {
-      clients.remove(clientId);
-      close();
-      if (listener != null) {
-        listener.onPlayerDisconnected(clientId);
-      }
-    }
   }
 }
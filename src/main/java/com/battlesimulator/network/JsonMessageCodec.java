@@ -0,0 +1,121 @@
+package com.battlesimulator.network;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.core.util.ByteArrayBuilder;
+import java.io.IOException;
+
+/**
+ * Un objeto JSON por línea: el formato original del protocolo.
+ *
+ * Se escribe y se lee campo a campo con el API de streaming de Jackson,
+ * directamente sobre los bytes de la trama: sin pasar por String ni por la
+ * introspección de beans de ObjectMapper en cada mensaje. La salida es la
+ * misma que generaba ObjectMapper (mismos campos, en el mismo orden, nulos
+ * incluidos) y los campos desconocidos se ignoran.
+ */
+class JsonMessageCodec implements MessageCodec {
+  private static final SerializedString TYPE = new SerializedString("type");
+  private static final SerializedString DATA = new SerializedString("data");
+  private static final SerializedString PLAYER_ID = new SerializedString("playerId");
+  private static final SerializedString USERNAME = new SerializedString("username");
+  private static final SerializedString TIMESTAMP = new SerializedString("timestamp");
+  private static final SerializedString SEQ = new SerializedString("seq");
+  private static final Message.Type[] TYPES = Message.Type.values();
+
+  // Sin estado por mensaje: se comparte entre todos los hilos
+  private final JsonFactory factory = new JsonFactory();
+
+  @Override
+  public String getName() {
+    return "json";
+  }
+
+  @Override
+  public byte[] encode(Message msg) {
+    ByteArrayBuilder out = new ByteArrayBuilder(128);
+    try (JsonGenerator g = factory.createGenerator(out, JsonEncoding.UTF8)) {
+      g.writeStartObject();
+      g.writeFieldName(TYPE);
+      writeText(g, msg.getType() != null ? msg.getType().name() : null);
+      g.writeFieldName(DATA);
+      writeText(g, msg.getData());
+      g.writeFieldName(PLAYER_ID);
+      writeText(g, msg.getPlayerId());
+      g.writeFieldName(USERNAME);
+      writeText(g, msg.getUsername());
+      g.writeFieldName(TIMESTAMP);
+      g.writeNumber(msg.getTimestamp());
+      g.writeFieldName(SEQ);
+      g.writeNumber(msg.getSeq());
+      g.writeEndObject();
+    } catch (IOException e) {
+      e.printStackTrace();
+      return new byte[] {'{', '}', '\n'};
+    }
+    out.write('\n');
+    return out.toByteArray();
+  }
+
+  private static void writeText(JsonGenerator g, String value) throws IOException {
+    if (value != null) {
+      g.writeString(value);
+    } else {
+      g.writeNull();
+    }
+  }
+
+  @Override
+  public int frameEnd(byte[] buf, int off, int len, int scanned) {
+    for (int i = off + scanned, end = off + len; i < end; i++) {
+      if (buf[i] == '\n') return i + 1;
+    }
+    return -1;
+  }
+
+  @Override
+  public Message decode(byte[] buf, int off, int end) {
+    int last = end;
+    while (last > off && (buf[last - 1] == '\n' || buf[last - 1] == '\r')) last--;
+    if (last == off) return null;
+    try (JsonParser p = factory.createParser(buf, off, last - off)) {
+      if (p.nextToken() != JsonToken.START_OBJECT) return null;
+      Message msg = new Message();
+      String field;
+      while ((field = p.nextFieldName()) != null) {
+        JsonToken token = p.nextToken();
+        switch (field) {
+          case "type" -> msg.setType(readType(p, token));
+          case "data" -> msg.setData(p.getValueAsString());
+          case "playerId" -> msg.setPlayerId(p.getValueAsString());
+          case "username" -> msg.setUsername(p.getValueAsString());
+          case "timestamp" -> msg.setTimestamp(p.getValueAsLong());
+          case "seq" -> msg.setSeq(p.getValueAsLong());
+          default -> p.skipChildren();
+        }
+      }
+      // Sin tipo no es un mensaje, igual que en BinaryMessageCodec
+      return msg.getType() != null ? msg : null;
+    } catch (Exception e) {
+      e.printStackTrace();
+      return null;
+    }
+  }
+
+  // Por nombre o por ordinal, como lo aceptaba ObjectMapper
+  private static Message.Type readType(JsonParser p, JsonToken token) throws IOException {
+    if (token == JsonToken.VALUE_NULL) return null;
+    if (token == JsonToken.VALUE_NUMBER_INT) {
+      int ordinal = p.getIntValue();
+      if (ordinal < 0 || ordinal >= TYPES.length) {
+        throw new IOException("Tipo de mensaje desconocido: " + ordinal);
+      }
+      return TYPES[ordinal];
+    }
+    return Message.Type.valueOf(p.getText());
+  }
+}
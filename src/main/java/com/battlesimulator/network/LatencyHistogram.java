@@ -0,0 +1,96 @@
+package com.battlesimulator.network;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histograma de tiempos de ida y vuelta (PING/PONG) con cubetas fijas en
+ * milisegundos. Se puede registrar desde varios hilos a la vez; los
+ * percentiles devuelven el límite superior de la cubeta, así que son una
+ * cota, no el valor exacto.
+ */
+public final class LatencyHistogram {
+  // Límite superior (inclusive) de cada cubeta; la última recoge el resto
+  private static final long[] BOUNDS_MS = {1, 2, 5, 10, 20, 50, 100, 200, 500, 1000, 2000, 5000};
+
+  private final AtomicLongArray counts = new AtomicLongArray(BOUNDS_MS.length + 1);
+  private final AtomicLong count = new AtomicLong();
+  private final AtomicLong totalMicros = new AtomicLong();
+  private final AtomicLong maxMicros = new AtomicLong();
+  private volatile long lastMicros = -1;
+
+  public void record(long rttNanos) {
+    long micros = Math.max(0, rttNanos / 1000);
+    counts.incrementAndGet(bucketOf(micros));
+    count.incrementAndGet();
+    totalMicros.addAndGet(micros);
+    maxMicros.accumulateAndGet(micros, Math::max);
+    lastMicros = micros;
+  }
+
+  private static int bucketOf(long micros) {
+    for (int i = 0; i < BOUNDS_MS.length; i++) {
+      if (micros <= BOUNDS_MS[i] * 1000) return i;
+    }
+    return BOUNDS_MS.length;
+  }
+
+  public long getCount() {
+    return count.get();
+  }
+
+  public double getMeanMillis() {
+    long n = count.get();
+    return n == 0 ? 0 : totalMicros.get() / 1000.0 / n;
+  }
+
+  public double getMaxMillis() {
+    return maxMicros.get() / 1000.0;
+  }
+
+  // -1 si aún no hay medidas
+  public double getLastMillis() {
+    long last = lastMicros;
+    return last < 0 ? -1 : last / 1000.0;
+  }
+
+  /**
+   * Límite superior de la cubeta donde cae el percentil p (0-100). En la
+   * última cubeta, sin límite, devuelve el máximo medido.
+   */
+  public double percentileMillis(double p) {
+    long[] snapshot = getBucketCounts();
+    long n = 0;
+    for (long c : snapshot) n += c;
+    if (n == 0) return 0;
+    long rank = Math.max(1, (long) Math.ceil(n * p / 100.0));
+    long seen = 0;
+    for (int i = 0; i < BOUNDS_MS.length; i++) {
+      seen += snapshot[i];
+      if (seen >= rank) return Math.min(BOUNDS_MS[i], getMaxMillis());
+    }
+    return getMaxMillis();
+  }
+
+  /**
+   * Límites superiores de las cubetas en ms (la última cubeta no tiene).
+   */
+  public static long[] getBucketBoundsMillis() {
+    return BOUNDS_MS.clone();
+  }
+
+  public long[] getBucketCounts() {
+    long[] snapshot = new long[counts.length()];
+    for (int i = 0; i < snapshot.length; i++) {
+      snapshot[i] = counts.get(i);
+    }
+    return snapshot;
+  }
+
+  @Override
+  public String toString() {
+    return String.format(Locale.ROOT, "n=%d media=%.1fms p50<=%.0fms p99<=%.0fms max=%.1fms",
+        getCount(), getMeanMillis(), percentileMillis(50), percentileMillis(99), getMaxMillis());
+  }
+}
@@ -19,7 +19,20 @@ public class Message implements Serializable {
     // Chat
     CHAT,
     // Turnos
-    TURN_END
+    TURN_END,
+    // Salas: el cliente pide entrar en una partida y el servidor lo confirma
+    JOIN_ROOM,
+    // Latido: PONG devuelve el data del PING para medir el tiempo de ida y vuelta
+    PING, PONG,
+    // Reconexión: "token|recibidos" del cliente; el servidor confirma con
+    // "playerId|token|seq" (o sin data si la sesión ya no existe)
+    RESUME,
+    // Confirmación acumulada: el cliente envía cuántos mensajes de sesión
+    // procesó y el servidor el último seq del cliente que aplicó
+    ACK,
+    // Espectador: "sala" o "sala|segundos de retraso"; el servidor confirma
+    // con "sala|jugadores|espectadores". Solo recibe, no puede jugar
+    SPECTATE
   }
   
   private Type type;
@@ -27,6 +40,10 @@ public class Message implements Serializable {
   private String playerId;
   private String username;
   private long timestamp;
+  // Número de secuencia del emisor, creciente (puede saltar números); el
+  // receptor descarta lo que no supere al último visto de ese emisor.
+  // 0 = sin asignar (mensajes del servidor y de control)
+  private long seq;
   
   public Message() {
     this.timestamp = System.currentTimeMillis();
@@ -84,4 +101,12 @@ public class Message implements Serializable {
   public void setTimestamp(long timestamp) {
     this.timestamp = timestamp;
   }
+
+  public long getSeq() {
+    return seq;
+  }
+
+  public void setSeq(long seq) {
+    this.seq = seq;
+  }
 }
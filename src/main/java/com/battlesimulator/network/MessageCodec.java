@@ -0,0 +1,76 @@
+package com.battlesimulator.network;
+
+/**
+ * Formato de los mensajes en el socket. Cada conexión empieza en JSON (una
+ * línea por mensaje, fácil de depurar) y el cliente puede pedir el binario
+ * enviando CONNECT con "codec:binary" como primer mensaje, o
+ * "codec:binary-deflate" para que además se compriman los mensajes grandes
+ * (CLAN_CONFIG, SYNC_RESPONSE de ejércitos grandes).
+ */
+interface MessageCodec {
+  String NEGOTIATION_PREFIX = "codec:";
+  // -Dbattlesimulator.codec=json mantiene JSON en el cliente para depurar
+  String CODEC_PROPERTY = "battlesimulator.codec";
+  // -Dbattlesimulator.compressThreshold=N: bytes a partir de los que
+  // binary-deflate comprime un mensaje
+  String COMPRESS_THRESHOLD_PROPERTY = "battlesimulator.compressThreshold";
+  int DEFAULT_COMPRESS_THRESHOLD = 4096;
+
+  MessageCodec JSON = new JsonMessageCodec();
+  MessageCodec BINARY = new BinaryMessageCodec();
+  MessageCodec BINARY_DEFLATE = new BinaryMessageCodec("binary-deflate", compressThreshold());
+
+  String getName();
+
+  /**
+   * Trama completa lista para escribir (con su delimitador o prefijo).
+   */
+  byte[] encode(Message msg);
+
+  /**
+   * Fin (exclusivo) de la primera trama completa en buf[off, off+len), o -1
+   * si aún faltan bytes. Los primeros {@code scanned} bytes ya se revisaron
+   * en una llamada anterior que devolvió -1.
+   */
+  int frameEnd(byte[] buf, int off, int len, int scanned) throws java.io.IOException;
+
+  /**
+   * Decodifica la trama buf[off, end). Devuelve null si no es un mensaje válido.
+   */
+  Message decode(byte[] buf, int off, int end);
+
+  static MessageCodec forName(String name) {
+    if (JSON.getName().equalsIgnoreCase(name)) return JSON;
+    if (BINARY.getName().equalsIgnoreCase(name)) return BINARY;
+    if (BINARY_DEFLATE.getName().equalsIgnoreCase(name)) return BINARY_DEFLATE;
+    return null;
+  }
+
+  /**
+   * Codec que pide el cliente al conectarse (binario con compresión salvo
+   * que se configure otro; "binary" la desactiva).
+   */
+  static MessageCodec preferred() {
+    MessageCodec codec = forName(System.getProperty(CODEC_PROPERTY, BINARY_DEFLATE.getName()));
+    return codec != null ? codec : BINARY_DEFLATE;
+  }
+
+  static int compressThreshold() {
+    return Math.max(1, Integer.getInteger(COMPRESS_THRESHOLD_PROPERTY, DEFAULT_COMPRESS_THRESHOLD));
+  }
+
+  /**
+   * Codec solicitado en un CONNECT ("codec:binary"), o null si no es una negociación.
+   */
+  static MessageCodec requestedBy(Message msg) {
+    if (msg.getType() != Message.Type.CONNECT || msg.getData() == null
+        || !msg.getData().startsWith(NEGOTIATION_PREFIX)) {
+      return null;
+    }
+    return forName(msg.getData().substring(NEGOTIATION_PREFIX.length()));
+  }
+
+  static Message negotiation(MessageCodec codec) {
+    return new Message(Message.Type.CONNECT, NEGOTIATION_PREFIX + codec.getName());
+  }
+}
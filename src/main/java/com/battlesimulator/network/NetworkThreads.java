@@ -0,0 +1,66 @@
+package com.battlesimulator.network;
+
+import java.lang.reflect.Method;
+
+/**
+ * Crea los hilos de red. Con Java 21 o superior usa hilos virtuales (miles de
+ * conexiones bloqueantes sin un hilo del sistema por cada una); en Java 17
+ * sigue usando hilos de plataforma. Se puede desactivar con
+ * -Dbattlesimulator.virtualThreads=false.
+ */
+final class NetworkThreads {
+  static final String VIRTUAL_PROPERTY = "battlesimulator.virtualThreads";
+
+  // Thread.ofVirtual() y Thread.Builder se resuelven por reflexión para que
+  // el proyecto siga compilando con Java 17
+  private static final Method OF_VIRTUAL;
+  private static final Method BUILDER_NAME;
+  private static final Method BUILDER_START;
+
+  static {
+    Method ofVirtual = null;
+    Method name = null;
+    Method start = null;
+    if (!"false".equalsIgnoreCase(System.getProperty(VIRTUAL_PROPERTY))) {
+      try {
+        ofVirtual = Thread.class.getMethod("ofVirtual");
+        Class<?> builder = Class.forName("java.lang.Thread$Builder");
+        name = builder.getMethod("name", String.class);
+        start = builder.getMethod("start", Runnable.class);
+        // En Java 19 y 20 son preview: el método existe pero falla al
+        // llamarlo sin --enable-preview. Se prueba una vez aquí
+        ofVirtual.invoke(null);
+      } catch (ReflectiveOperationException e) {
+        ofVirtual = null;
+      }
+    }
+    OF_VIRTUAL = ofVirtual;
+    BUILDER_NAME = name;
+    BUILDER_START = start;
+  }
+
+  private NetworkThreads() {
+  }
+
+  static boolean isVirtual() {
+    return OF_VIRTUAL != null;
+  }
+
+  /**
+   * Arranca la tarea en un hilo nuevo con el nombre indicado.
+   */
+  static Thread start(String name, Runnable task) {
+    if (OF_VIRTUAL != null) {
+      try {
+        Object builder = OF_VIRTUAL.invoke(null);
+        builder = BUILDER_NAME.invoke(builder, name);
+        return (Thread) BUILDER_START.invoke(builder, task);
+      } catch (ReflectiveOperationException e) {
+        System.err.println("No se pudo crear un hilo virtual: " + e.getMessage());
+      }
+    }
+    Thread thread = new Thread(task, name);
+    thread.start();
+    return thread;
+  }
+}
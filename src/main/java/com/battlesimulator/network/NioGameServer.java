@@ -0,0 +1,285 @@
+package com.battlesimulator.network;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Servidor con un único Selector y canales no bloqueantes: un solo hilo
+ * atiende aceptaciones, lecturas y escrituras de todas las conexiones.
+ * Usa el mismo protocolo (JSON o binario negociado) y los mismos callbacks
+ * que GameServer.
+ */
+public class NioGameServer extends AbstractGameServer {
+  private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+  private Selector selector;
+  private ServerSocketChannel serverChannel;
+  private Thread selectorThread;
+  // Lo comparten todas las conexiones: solo lo usa el hilo del selector
+  private final ByteBuffer readBuffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+  // Conexiones con datos nuevos por escribir, pendientes de activar OP_WRITE,
+  // o desbordadas, pendientes de dar de baja
+  private final Queue<NioConnection> pendingWrites = new ConcurrentLinkedQueue<>();
+
+  public NioGameServer(ServerListener listener) {
+    super(listener);
+  }
+
+  @Override
+  public void start() throws IOException {
+    selector = Selector.open();
+    bindFirstFree(port -> {
+      serverChannel = ServerSocketChannel.open();
+      try {
+        serverChannel.socket().setReuseAddress(true);
+        serverChannel.bind(new InetSocketAddress(port), ACCEPT_BACKLOG);
+      } catch (IOException e) {
+        try { serverChannel.close(); } catch (Exception ex) {}
+        throw e;
+      }
+    });
+    serverChannel.configureBlocking(false);
+    serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+    running = true;
+    startHeartbeat();
+
+    selectorThread = new Thread(this::selectLoop, "NioGameServer-Selector");
+    selectorThread.start();
+  }
+
+  private void selectLoop() {
+    try {
+      while (running) {
+        // Incluye lo encolado desde este mismo hilo durante la vuelta anterior
+        armPendingWrites();
+        selector.select();
+
+        Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+        while (keys.hasNext()) {
+          SelectionKey key = keys.next();
+          keys.remove();
+          if (!key.isValid()) continue;
+
+          if (key.isAcceptable()) {
+            accept();
+            continue;
+          }
+          NioConnection conn = (NioConnection) key.attachment();
+          try {
+            if (key.isReadable()) {
+              conn.read();
+            }
+            if (key.isValid() && key.isWritable()) {
+              conn.flush();
+            }
+          } catch (IOException e) {
+            System.out.println("Cliente desconectado: " + conn.getId());
+            unregister(conn);
+          } catch (RuntimeException e) {
+            // Un mensaje que rompe el manejador solo cuesta esa conexión, no el selector
+            System.err.println("Error procesando a " + conn.getId() + "; desconectado: " + e);
+            unregister(conn);
+          }
+        }
+      }
+    } catch (IOException | ClosedSelectorException e) {
+      if (running) {
+        e.printStackTrace();
+      }
+    } finally {
+      closeAll();
+    }
+  }
+
+  private void accept() throws IOException {
+    SocketChannel channel;
+    while ((channel = serverChannel.accept()) != null) {
+      channel.configureBlocking(false);
+      channel.socket().setTcpNoDelay(true);
+      NioConnection conn = new NioConnection(channel, newClientId());
+      conn.key = channel.register(selector, SelectionKey.OP_READ, conn);
+      register(conn);
+    }
+  }
+
+  private void armPendingWrites() {
+    NioConnection conn;
+    while ((conn = pendingWrites.poll()) != null) {
+      if (conn.overflowed) {
+        // Se da de baja aquí y no en send, que puede ir dentro de un broadcast
+        System.err.println("Cliente " + conn.getId() + " no lee sus mensajes; desconectado");
+        unregister(conn);
+        continue;
+      }
+      SelectionKey key = conn.key;
+      if (key != null && key.isValid()) {
+        key.interestOps(key.interestOps() | SelectionKey.OP_WRITE);
+      }
+    }
+  }
+
+  @Override
+  public void stop() {
+    running = false;
+    stopHeartbeat();
+    try {
+      if (selector != null) {
+        selector.wakeup();
+      }
+      if (selectorThread != null && selectorThread != Thread.currentThread()) {
+        selectorThread.join(2000);
+      }
+      closeAll();
+      if (serverChannel != null) {
+        serverChannel.close();
+      }
+      if (selector != null) {
+        selector.close();
+      }
+      System.out.println("Servidor detenido y puerto liberado");
+    } catch (IOException e) {
+      e.printStackTrace();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  @Override
+  public int getActualPort() {
+    if (serverChannel != null && serverChannel.socket().isBound()) {
+      return serverChannel.socket().getLocalPort();
+    }
+    return PORT;
+  }
+
+  class NioConnection implements ClientConnection {
+    private final SocketChannel channel;
+    private final String clientId;
+    private SelectionKey key;
+    // Bytes recibidos que aún no forman un mensaje completo
+    private final FrameBuffer frames = new FrameBuffer();
+    private MessageCodec readCodec = MessageCodec.JSON;
+    // Protegido por this: el cambio de formato y el encolado son atómicos
+    private MessageCodec writeCodec = MessageCodec.JSON;
+    private final OutboundQueue outbound = new OutboundQueue();
+    // Tanda en curso de escritura (solo la toca el hilo del selector)
+    private ByteBuffer[] writing = new ByteBuffer[0];
+    private int writingIndex;
+    private final AtomicBoolean writeScheduled = new AtomicBoolean();
+    private volatile boolean overflowed;
+
+    NioConnection(SocketChannel channel, String clientId) {
+      this.channel = channel;
+      this.clientId = clientId;
+    }
+
+    @Override
+    public String getId() {
+      return clientId;
+    }
+
+    void read() throws IOException {
+      while (true) {
+        readBuffer.clear();
+        int n = channel.read(readBuffer);
+        if (n < 0) throw new IOException("Conexión cerrada por el cliente");
+        if (n == 0) return;
+        frames.append(readBuffer.array(), 0, n);
+        Message msg;
+        while ((msg = frames.next(readCodec)) != null) {
+          handleMessage(this, msg);
+          if (!channel.isOpen()) return;
+        }
+      }
+    }
+
+    /**
+     * Encola sin bloquear; si la cola está llena el cliente no está leyendo
+     * y el hilo del selector lo desconecta.
+     */
+    @Override
+    public synchronized void send(OutboundMessage message) {
+      if (!outbound.offer(message, writeCodec)) {
+        if (!overflowed) {
+          // Con el socket lleno writeScheduled sigue activo: se avisa aparte
+          overflowed = true;
+          pendingWrites.add(this);
+          selector.wakeup();
+        }
+      } else if (channel.isOpen()) {
+        scheduleWrite();
+      }
+    }
+
+    // Se llama desde el hilo del selector, el único que lee readCodec
+    @Override
+    public void upgrade(MessageCodec codec) {
+      readCodec = codec;
+      synchronized (this) {
+        send(new OutboundMessage(MessageCodec.negotiation(codec)));
+        writeCodec = codec;
+      }
+    }
+
+    private void scheduleWrite() {
+      if (writeScheduled.compareAndSet(false, true)) {
+        pendingWrites.add(this);
+        if (Thread.currentThread() != selectorThread) {
+          selector.wakeup();
+        }
+      }
+    }
+
+    /**
+     * Escribe lo pendiente sin bloquear; si el socket se llena se sigue en
+     * el próximo OP_WRITE.
+     */
+    void flush() throws IOException {
+      while (true) {
+        if (writingIndex == writing.length) {
+          writing = outbound.drain();
+          writingIndex = 0;
+          if (writing.length == 0) break;
+        }
+        // Escritura agrupada de toda la tanda
+        channel.write(writing, writingIndex, writing.length - writingIndex);
+        while (writingIndex < writing.length && !writing[writingIndex].hasRemaining()) {
+          writingIndex++;
+        }
+        if (writingIndex < writing.length) return;
+      }
+      key.interestOps(SelectionKey.OP_READ);
+      writeScheduled.set(false);
+      // Un envío concurrente pudo llegar justo antes de bajar la marca
+      if (!outbound.isEmpty() && writeScheduled.compareAndSet(false, true)) {
+        key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+      }
+    }
+
+    @Override
+    public void journalTo(ClientSession session) {
+      outbound.journalTo(session);
+    }
+
+    @Override
+    public void close() {
+      try {
+        if (key != null) key.cancel();
+        channel.close();
+      } catch (IOException e) {
+        e.printStackTrace();
+      }
+      outbound.close();
+    }
+  }
+}
@@ -0,0 +1,73 @@
+package com.battlesimulator.network;
+
+import com.battlesimulator.usecases.BattleProtocol;
+
+/**
+ * Mensaje saliente que se codifica como mucho una vez por formato, aunque se
+ * envíe a muchos clientes (jugadores y espectadores comparten los bytes).
+ */
+final class OutboundMessage {
+  private final Message message;
+  // MOVE del servidor autoritativo: el BATTLE_UPDATE que le sigue ya incluye
+  // su efecto, así que la cola puede descartarlo si ese delta se fusiona
+  private final boolean replaceableByUpdate;
+  private volatile byte[] json;
+  private volatile byte[] binary;
+  private volatile byte[] compressed;
+  // Clave con la que OutboundQueue lo fusiona, también una vez para todos
+  private volatile String battleKey;
+  private volatile boolean keyed;
+
+  OutboundMessage(Message message) {
+    this(message, false);
+  }
+
+  OutboundMessage(Message message, boolean replaceableByUpdate) {
+    this.message = message;
+    this.replaceableByUpdate = replaceableByUpdate;
+  }
+
+  Message getMessage() {
+    return message;
+  }
+
+  boolean isReplaceableByUpdate() {
+    return replaceableByUpdate;
+  }
+
+  /**
+   * BATTLE_UPDATE: cabecera de su batalla; MOVE reemplazable: su índice de
+   * batalla; null en otro caso.
+   */
+  String battleKey() {
+    if (!keyed) {
+      String data = message.getData();
+      String key = null;
+      if (data != null && message.getType() == Message.Type.BATTLE_UPDATE) {
+        key = BattleProtocol.battleUpdateKey(data);
+      } else if (data != null && replaceableByUpdate) {
+        int bar = data.indexOf('|');
+        key = bar > 0 ? data.substring(0, bar) : null;
+      }
+      battleKey = key;
+      keyed = true;
+    }
+    return battleKey;
+  }
+
+  byte[] encoded(MessageCodec codec) {
+    if (codec == MessageCodec.BINARY) {
+      byte[] b = binary;
+      if (b == null) binary = b = codec.encode(message);
+      return b;
+    }
+    if (codec == MessageCodec.BINARY_DEFLATE) {
+      byte[] c = compressed;
+      if (c == null) compressed = c = codec.encode(message);
+      return c;
+    }
+    byte[] j = json;
+    if (j == null) json = j = codec.encode(message);
+    return j;
+  }
+}
@@ -0,0 +1,257 @@
+package com.battlesimulator.network;
+
+import com.battlesimulator.usecases.BattleProtocol;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Cola de salida de una conexión, con las tramas ya codificadas. Está
+ * acotada: si se llena, el cliente no está leyendo y hay que desconectarlo.
+ * Lo que sale (y lo que queda al cerrarla) se anota en la sesión del
+ * jugador, en el mismo orden, para reenviarlo si se reconecta.
+ * Mientras el cliente va atrasado, lo ya superado se fusiona: un
+ * BATTLE_UPDATE absorbe al de la misma batalla que aún no salió, y los MOVE
+ * que ese delta ya incluye se descartan. Solo si entre los dos no hay nada
+ * que dependa del estado de la batalla (un ATTACK, un BATTLE_END...): eso
+ * llegaría antes que el delta que lo precede.
+ *
+ * Con un ReentrantLock y no con synchronized/wait: en Java 21 el escritor de
+ * cada conexión es un hilo virtual y esperando en un monitor retendría su
+ * hilo portador.
+ */
+final class OutboundQueue {
+  static final int MAX_FRAMES = 1024;
+  static final int MAX_BYTES = 16 * 1024 * 1024;
+
+  private static final class Entry {
+    final Message message;
+    // BATTLE_UPDATE: cabecera de la batalla; MOVE reemplazable: su índice de batalla
+    final String battleKey;
+    final byte[] frame;
+    // Sesión vigente al encolar: lo encolado antes de reanudar no cuenta
+    final ClientSession journal;
+
+    Entry(Message message, String battleKey, byte[] frame, ClientSession journal) {
+      this.message = message;
+      this.battleKey = battleKey;
+      this.frame = frame;
+      this.journal = journal;
+    }
+  }
+
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Condition notEmpty = lock.newCondition();
+  private final ArrayDeque<Entry> entries = new ArrayDeque<>();
+  private int bytes;
+  private long coalesced;
+  private boolean closed;
+  private ClientSession journal;
+
+  void journalTo(ClientSession session) {
+    lock.lock();
+    try {
+      journal = session;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Encola el mensaje codificado con el codec indicado.
+   * @return false si no cabe: el cliente va demasiado atrasado y la cola
+   * queda cerrada (lo pendiente y este mensaje se anotan en la sesión)
+   */
+  boolean offer(OutboundMessage message, MessageCodec codec) {
+    lock.lock();
+    try {
+      return enqueue(message, codec);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private boolean enqueue(OutboundMessage message, MessageCodec codec) {
+    if (closed) {
+      // Conexión caída: el mensaje queda anotado para cuando vuelva
+      if (journal != null) journal.record(message.getMessage());
+      return true;
+    }
+    Message msg = message.getMessage();
+    Entry entry;
+    if (msg.getType() == Message.Type.BATTLE_UPDATE && msg.getData() != null) {
+      String key = message.battleKey();
+      entry = key != null && !entries.isEmpty()
+          ? coalesce(message, key, codec)
+          : new Entry(msg, key, message.encoded(codec), journal);
+    } else if (message.isReplaceableByUpdate() && msg.getData() != null) {
+      entry = new Entry(msg, message.battleKey(), message.encoded(codec), journal);
+    } else {
+      entry = new Entry(msg, null, message.encoded(codec), journal);
+    }
+    if (!entries.isEmpty() && (entries.size() >= MAX_FRAMES || bytes + entry.frame.length > MAX_BYTES)) {
+      close();
+      record(entry);
+      return false;
+    }
+    entries.addLast(entry);
+    bytes += entry.frame.length;
+    notEmpty.signal();
+    return true;
+  }
+
+  /**
+   * Une el delta nuevo con el último pendiente de la misma batalla, si lo
+   * que hay entre los dos no depende de ella.
+   */
+  private Entry coalesce(OutboundMessage message, String key, MessageCodec codec) {
+    Message msg = message.getMessage();
+    String battleIndex = key.substring(0, key.indexOf('|'));
+    // MOVE de esta batalla posteriores al delta pendiente: el fusionado los incluye
+    List<Entry> replacedMoves = new ArrayList<>();
+    Iterator<Entry> it = entries.descendingIterator();
+    while (it.hasNext()) {
+      Entry old = it.next();
+      if (old.message.getType() != Message.Type.BATTLE_UPDATE || !key.equals(old.battleKey)) {
+        if (!isIndependent(old)) break;
+        if (old.message.getType() == Message.Type.MOVE && battleIndex.equals(old.battleKey)) {
+          replacedMoves.add(old);
+        }
+        continue;
+      }
+      String merged;
+      try {
+        merged = BattleProtocol.mergeBattleUpdates(old.message.getData(), msg.getData());
+      } catch (RuntimeException e) {
+        merged = null; // Datos mal formados: se envían tal cual
+      }
+      if (merged == null) break;
+      it.remove();
+      bytes -= old.frame.length;
+      coalesced++;
+      for (Entry move : replacedMoves) {
+        entries.removeFirstOccurrence(move);
+        bytes -= move.frame.length;
+        coalesced++;
+      }
+      Message update = new Message(Message.Type.BATTLE_UPDATE, merged);
+      update.setPlayerId(msg.getPlayerId());
+      update.setUsername(msg.getUsername());
+      update.setSeq(msg.getSeq());
+      update.setTimestamp(msg.getTimestamp());
+      return new Entry(update, key, codec.encode(update), journal);
+    }
+    return new Entry(msg, key, message.encoded(codec), journal);
+  }
+
+  /**
+   * Lo que puede quedar entre dos deltas fusionados sin que cambie lo que ve
+   * el cliente: deltas de otras batallas, MOVE reemplazables (los de esta
+   * batalla se descartan), chat y control de la conexión.
+   */
+  private static boolean isIndependent(Entry e) {
+    switch (e.message.getType()) {
+      case BATTLE_UPDATE:
+      case CHAT:
+      case PING:
+      case PONG:
+      case ACK:
+        return true;
+      case MOVE:
+        return e.battleKey != null; // Solo los reemplazables llevan clave
+      default:
+        return false;
+    }
+  }
+
+  /**
+   * Espera a que haya algo pendiente y lo devuelve todo de una vez, para
+   * escribirlo con un solo flush.
+   * @return null si la cola se cerró
+   */
+  List<byte[]> takeAll() throws InterruptedException {
+    lock.lockInterruptibly();
+    try {
+      while (entries.isEmpty() && !closed) {
+        notEmpty.await();
+      }
+      if (closed) return null;
+      List<byte[]> batch = new ArrayList<>(entries.size());
+      for (Entry e : entries) {
+        batch.add(e.frame);
+        record(e);
+      }
+      entries.clear();
+      bytes = 0;
+      return batch;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Todo lo pendiente, sin esperar (para escrituras NIO agrupadas).
+   */
+  ByteBuffer[] drain() {
+    lock.lock();
+    try {
+      ByteBuffer[] batch = new ByteBuffer[entries.size()];
+      int i = 0;
+      for (Entry e : entries) {
+        batch[i++] = ByteBuffer.wrap(e.frame);
+        record(e);
+      }
+      entries.clear();
+      bytes = 0;
+      return batch;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  boolean isEmpty() {
+    lock.lock();
+    try {
+      return entries.isEmpty();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  // Mensajes que no llegaron a enviarse porque otro posterior los incluía
+  long getCoalesced() {
+    lock.lock();
+    try {
+      return coalesced;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private static void record(Entry e) {
+    if (e.journal != null) e.journal.record(e.message);
+  }
+
+  /**
+   * Cierra la cola; lo que no llegó a salir queda anotado en la sesión.
+   */
+  void close() {
+    lock.lock();
+    try {
+      if (closed) return;
+      closed = true;
+      for (Entry e : entries) {
+        record(e);
+      }
+      entries.clear();
+      bytes = 0;
+      notEmpty.signalAll();
+    } finally {
+      lock.unlock();
+    }
+  }
+}
@@ -0,0 +1,145 @@
+package com.battlesimulator.network;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Emisión en diferido de una sala para los espectadores que pidieron el
+ * mismo retraso. Cada mensaje de la sala se guarda una sola vez (ya
+ * codificado en su OutboundMessage) y al vencer se envía a todos los
+ * suscritos; un espectador que llega tarde solo recibe lo posterior a su
+ * instantánea.
+ *
+ * Si la cola se desborda, quien iba a recibir lo descartado queda
+ * desincronizado: deja de recibir nada hasta que resubscribe le da una
+ * instantánea nueva.
+ */
+final class SpectatorFeed {
+  // Con más pendientes se descartan los más antiguos: el diferido no puede
+  // acumular memoria sin límite si la sala genera más de lo previsto. Los
+  // espectadores afectados pasan a necesitar otra instantánea
+  static final int MAX_PENDING = 65536;
+
+  private record Entry(long index, long due, OutboundMessage message, ClientSession onlyTo) {
+  }
+
+  // from: índice del primer mensaje que le toca; stale: perdió alguno
+  private record Subscriber(ClientSession session, long from, boolean stale) {
+  }
+
+  private final long delayNanos;
+  private final Map<String, Subscriber> subscribers = new ConcurrentHashMap<>();
+  private final ArrayDeque<Entry> pending = new ArrayDeque<>();
+  private long nextIndex;
+
+  SpectatorFeed(long delayNanos) {
+    this.delayNanos = delayNanos;
+  }
+
+  /**
+   * Suscribe al espectador; snapshot (si no es null) le llega a él solo,
+   * con el mismo retraso, antes que los mensajes posteriores.
+   */
+  synchronized void subscribe(ClientSession client, OutboundMessage snapshot) {
+    subscribers.put(client.getId(), new Subscriber(client, nextIndex, false));
+    if (snapshot != null) {
+      enqueue(snapshot, client);
+    }
+  }
+
+  /**
+   * Vuelve a empezar al espectador desde la instantánea, si sigue suscrito.
+   * Lo posterior a ella que ya estaba pendiente no le llega.
+   */
+  synchronized boolean resubscribe(ClientSession client, OutboundMessage snapshot) {
+    if (!isSubscribed(client)) return false;
+    subscribe(client, snapshot);
+    return true;
+  }
+
+  // Espectadores que perdieron mensajes por desbordamiento
+  synchronized List<ClientSession> staleSubscribers() {
+    List<ClientSession> stale = new ArrayList<>();
+    for (Subscriber s : subscribers.values()) {
+      if (s.stale()) {
+        stale.add(s.session());
+      }
+    }
+    return stale;
+  }
+
+  synchronized boolean unsubscribe(ClientSession client) {
+    return isSubscribed(client) && subscribers.remove(client.getId()) != null;
+  }
+
+  synchronized boolean isEmpty() {
+    return subscribers.isEmpty();
+  }
+
+  synchronized void offer(OutboundMessage message) {
+    if (!subscribers.isEmpty()) {
+      enqueue(message, null);
+    }
+  }
+
+  // Solo para un espectador (la respuesta a su SYNC_REQUEST)
+  synchronized void sendTo(ClientSession client, OutboundMessage message) {
+    if (isSubscribed(client)) {
+      enqueue(message, client);
+    }
+  }
+
+  private boolean isSubscribed(ClientSession client) {
+    Subscriber s = subscribers.get(client.getId());
+    return s != null && s.session() == client;
+  }
+
+  private void enqueue(OutboundMessage message, ClientSession onlyTo) {
+    pending.addLast(new Entry(nextIndex++, System.nanoTime() + delayNanos, message, onlyTo));
+    if (pending.size() > MAX_PENDING) {
+      markStale(pending.removeFirst());
+    }
+  }
+
+  private void markStale(Entry dropped) {
+    for (Subscriber s : subscribers.values()) {
+      boolean affected = dropped.onlyTo() != null
+          ? dropped.onlyTo() == s.session()
+          : s.from() <= dropped.index();
+      if (affected && !s.stale()) {
+        subscribers.put(s.session().getId(), new Subscriber(s.session(), s.from(), true));
+      }
+    }
+  }
+
+  /**
+   * Envía lo que ya venció. Lo llama un único hilo, así cada espectador
+   * recibe los mensajes en el orden en que se difundieron.
+   */
+  void release(long now) {
+    List<Entry> due = new ArrayList<>();
+    synchronized (this) {
+      while (!pending.isEmpty() && pending.peekFirst().due() - now <= 0) {
+        due.add(pending.removeFirst());
+      }
+    }
+    for (Entry entry : due) {
+      if (entry.onlyTo() != null) {
+        Subscriber subscriber = subscribers.get(entry.onlyTo().getId());
+        if (subscriber != null && subscriber.session() == entry.onlyTo() && !subscriber.stale()
+            && subscriber.from() <= entry.index()) {
+          entry.onlyTo().send(entry.message());
+        }
+        continue;
+      }
+      for (Subscriber subscriber : subscribers.values()) {
+        if (!subscriber.stale() && subscriber.from() <= entry.index()) {
+          subscriber.session().send(entry.message());
+        }
+      }
+    }
+  }
+}
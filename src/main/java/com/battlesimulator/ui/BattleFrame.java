@@ -285,14 +285,13 @@ public class BattleFrame extends JDialog {
     
     for (int r = 0; r < GRID_SIZE; r++) {
       for (int c = 0; c < GRID_SIZE; c++) {
-        Position p = new Position(r, c);
-        IWarrior w = battleCtrl.getWarriorAt(p);
+        IWarrior w = battleCtrl.getWarriorAt(r, c);
         JButton btn = gridButtons[r][c];
         
         // Calcular color de rango si hay atacante seleccionado
         Color rangeColor = null;
         if (selectedAttacker != null && w == null) {
-          rangeColor = getRangeColor(selectedAttacker, p);
+          rangeColor = getRangeColor(selectedAttacker, new Position(r, c));
         }
         
         if (w == null) {
@@ -19,34 +19,28 @@ import javax.swing.JOptionPane;
 import javax.swing.JPanel;
 import javax.swing.SwingConstants;
 import javax.swing.SwingUtilities;
+import javax.swing.SwingWorker;
 
 import com.battlesimulator.database.DatabaseManager;
 import com.battlesimulator.database.User;
 import com.battlesimulator.database.UserStats;
 import com.battlesimulator.domain.Army;
 import com.battlesimulator.domain.Clan;
-import com.battlesimulator.domain.Element;
-import com.battlesimulator.domain.IWarrior;
-import com.battlesimulator.domain.IWeapon;
-import com.battlesimulator.domain.MagicWarrior;
-import com.battlesimulator.domain.MagicWeapon;
-import com.battlesimulator.domain.MeleeWarrior;
-import com.battlesimulator.domain.MeleeWeapon;
-import com.battlesimulator.domain.RangedWarrior;
-import com.battlesimulator.domain.RangedWeapon;
-import com.battlesimulator.domain.Warrior;
-import com.battlesimulator.domain.Weapon;
 import com.battlesimulator.network.GameClient;
-import com.battlesimulator.network.GameServer;
+import com.battlesimulator.network.AbstractGameServer;
 import com.battlesimulator.network.Message;
+import com.battlesimulator.usecases.ClanCodec;
 import com.battlesimulator.usecases.MultiplayerWarController;
+import com.battlesimulator.usecases.OutcomeEstimate;
 import com.battlesimulator.usecases.WarController;
+import com.battlesimulator.usecases.WarOutcomeEstimator;
 
 public class MainFrame extends JFrame {
   private Clan clan1;
   private Clan clan2;
   private final JButton configBtn;
   private final JButton startBtn;
+  private final JButton predictBtn;
   private final JButton hostBtn;
   private final JButton joinBtn;
   private final JLabel statusLabel;
@@ -54,7 +48,7 @@ public class MainFrame extends JFrame {
   private final JButton statsBtn;
   private final JButton logoutBtn;
   
-  private GameServer server;
+  private AbstractGameServer server;
   private GameClient client;
   private boolean isMultiplayer = false;
   private boolean isHost = false;
@@ -177,6 +171,15 @@ public class MainFrame extends JFrame {
     startBtn.setFont(new Font("Serif", Font.BOLD, 18));
     mainPanel.add(startBtn);
     mainPanel.add(Box.createRigidArea(new Dimension(0, 15)));
+
+    predictBtn = new JButton("Predecir Resultado");
+    predictBtn.setAlignmentX(Component.CENTER_ALIGNMENT);
+    predictBtn.setEnabled(false);
+    predictBtn.addActionListener(e -> predictOutcome());
+    UITheme.styleButton(predictBtn);
+    predictBtn.setMaximumSize(new Dimension(250, 45));
+    mainPanel.add(predictBtn);
+    mainPanel.add(Box.createRigidArea(new Dimension(0, 15)));
     
     JButton localBtn = new JButton("Cambiar a Modo Local");
     localBtn.setAlignmentX(Component.CENTER_ALIGNMENT);
@@ -210,7 +213,7 @@ public class MainFrame extends JFrame {
         }
       }
       
-      server = new GameServer(new GameServer.ServerListener() {
+      server = AbstractGameServer.create(new AbstractGameServer.ServerListener() {
         @Override
         public void onPlayerConnected(String playerId) {
           SwingUtilities.invokeLater(() -> {
@@ -288,6 +291,22 @@ public class MainFrame extends JFrame {
             statusLabel.setForeground(Color.RED);
           });
         }
+
+        @Override
+        public void onReconnecting() {
+          SwingUtilities.invokeLater(() -> {
+            statusLabel.setText("Conexión perdida, reconectando...");
+            statusLabel.setForeground(Color.ORANGE);
+          });
+        }
+
+        @Override
+        public void onReconnected() {
+          SwingUtilities.invokeLater(() -> {
+            statusLabel.setText("Reconectado - " + myUsername);
+            statusLabel.setForeground(UITheme.ACCENT_GOLD);
+          });
+        }
       });
       
       int actualPort = server.getActualPort();
@@ -375,6 +394,22 @@ public class MainFrame extends JFrame {
             statusLabel.setForeground(Color.RED);
           });
         }
+
+        @Override
+        public void onReconnecting() {
+          SwingUtilities.invokeLater(() -> {
+            statusLabel.setText("Conexión perdida, reconectando...");
+            statusLabel.setForeground(Color.ORANGE);
+          });
+        }
+
+        @Override
+        public void onReconnected() {
+          SwingUtilities.invokeLater(() -> {
+            statusLabel.setText("Reconectado - " + myUsername);
+            statusLabel.setForeground(UITheme.ACCENT_GOLD);
+          });
+        }
       });
 
       String[] parts = host.trim().split(":");
@@ -420,18 +455,25 @@ public class MainFrame extends JFrame {
   private void startWar() {
     if (clan1 != null && clan2 != null) {
       if (isMultiplayer && client != null) {
+        // Con servidor autoritativo la guerra se simula en el servidor y los
+        // dos jugadores piden el estado con SYNC_REQUEST
+        boolean simulatesWar = isHost && !AbstractGameServer.isAuthoritative();
         // Si es host, enviar señal de inicio al cliente
         if (isHost && server != null) {
+          if (!simulatesWar) {
+            server.startWar(clan1, clan2, myPlayerId);
+          }
           Message msg = new Message(Message.Type.START_WAR, "START");
           server.broadcast(msg);
         }
         
-        activeMultiplayerController = new MultiplayerWarController(clan1, clan2, client, isHost, currentUser, myUsername);
+        activeMultiplayerController = new MultiplayerWarController(clan1, clan2, client, isHost, simulatesWar,
+            currentUser, myUsername);
         activeMultiplayerController.setVisible(true);
         
         // Si es host, sincronizar batallas al cliente después de un pequeño delay
         // para asegurar que el cliente ya creó su controlador
-        if (isHost) {
+        if (simulatesWar) {
           SwingUtilities.invokeLater(() -> {
             try {
               Thread.sleep(500); // Esperar 500ms para que el cliente esté listo
@@ -447,16 +489,80 @@ public class MainFrame extends JFrame {
     }
   }
 
+  /**
+   * Simula la guerra configurada muchas veces en segundo plano y muestra la
+   * probabilidad de victoria. Trabaja sobre copias: los clanes no se modifican.
+   */
+  private void predictOutcome() {
+    if (clan1 == null || clan2 == null) return;
+
+    String input = JOptionPane.showInputDialog(this, "Número de simulaciones:", "1000");
+    if (input == null) return;
+    int simulations;
+    try {
+      simulations = Integer.parseInt(input.trim());
+    } catch (NumberFormatException e) {
+      simulations = 0;
+    }
+    if (simulations <= 0) {
+      JOptionPane.showMessageDialog(this, "Ingresa un número de simulaciones válido.",
+        "Error", JOptionPane.ERROR_MESSAGE);
+      return;
+    }
+
+    final int runs = simulations;
+    final String name1 = clan1.getName();
+    final String name2 = clan2.getName();
+    WarOutcomeEstimator estimator = new WarOutcomeEstimator(clan1, clan2);
+    predictBtn.setEnabled(false);
+    predictBtn.setText("Simulando...");
+
+    new SwingWorker<OutcomeEstimate, Void>() {
+      @Override
+      protected OutcomeEstimate doInBackground() {
+        return estimator.estimate(runs, System.nanoTime());
+      }
+
+      @Override
+      protected void done() {
+        predictBtn.setText("Predecir Resultado");
+        predictBtn.setEnabled(clan1 != null && clan2 != null);
+        try {
+          OutcomeEstimate r = get();
+          String message = String.format(
+            "Resultado estimado (%d simulaciones, %d ms)\n\n" +
+            "Victoria de %s: %.1f%% (IC 95%%: %.1f%% - %.1f%%)\n" +
+            "Victoria de %s: %.1f%%\n\n" +
+            "Unidades supervivientes esperadas:\n" +
+            "  %s: %.1f ± %.1f\n" +
+            "  %s: %.1f ± %.1f",
+            r.getSimulations(), r.getElapsedMillis(),
+            name1, r.getClan1WinProbability() * 100, r.getClan1WinLower() * 100, r.getClan1WinUpper() * 100,
+            name2, r.getClan2WinProbability() * 100,
+            name1, r.getClan1SurvivorsMean(), r.getClan1SurvivorsMargin(),
+            name2, r.getClan2SurvivorsMean(), r.getClan2SurvivorsMargin());
+          JOptionPane.showMessageDialog(MainFrame.this, message,
+            "Predicción", JOptionPane.INFORMATION_MESSAGE);
+        } catch (Exception e) {
+          JOptionPane.showMessageDialog(MainFrame.this,
+            "Error al simular: " + e.getMessage(),
+            "Error", JOptionPane.ERROR_MESSAGE);
+        }
+      }
+    }.execute();
+  }
+
   public void setClans(Clan c1, Clan c2) {
     this.clan1 = c1;
     this.clan2 = c2;
     startBtn.setEnabled(true);
+    predictBtn.setEnabled(true);
     
     // Si es host en multijugador, enviar configuración al cliente
     if (isMultiplayer && isHost && client != null && server != null) {
       // Serializar clanes y enviar al cliente
       try {
-        String clanData = serializeClans(c1, c2);
+        String clanData = ClanCodec.encode(c1, c2);
         Message msg = new Message(Message.Type.CLAN_CONFIG, clanData);
         server.broadcast(msg);
         JOptionPane.showMessageDialog(this, 
@@ -532,6 +638,7 @@ public class MainFrame extends JFrame {
       clan1 = null;
       clan2 = null;
       startBtn.setEnabled(false);
+      predictBtn.setEnabled(false);
       
       // Mostrar login nuevamente
       SwingUtilities.invokeLater(() -> showLoginDialog());
@@ -542,95 +649,21 @@ public class MainFrame extends JFrame {
     return currentUser;
   }
   
-  private String serializeClans(Clan c1, Clan c2) {
-    // Formato completo: serializa cada guerrero con todos sus datos
-    // Formato: clan1Data;;clan2Data
-    // Cada clan: nombre|r_g_b|army1Data~army2Data~...
-    // Cada army: armyId:warrior1Data,warrior2Data,...
-    // Cada warrior: type:health:shield:strength:element:weaponType:weaponDamage:weaponElement
-    StringBuilder sb = new StringBuilder();
-    sb.append(serializeClan(c1));
-    sb.append(";;");
-    sb.append(serializeClan(c2));
-    return sb.toString();
-  }
-  
-  private String serializeClan(Clan clan) {
-    StringBuilder sb = new StringBuilder();
-    sb.append(clan.getName()).append("|");
-    sb.append(clan.getColor().getRed()).append("_").append(clan.getColor().getGreen()).append("_").append(clan.getColor().getBlue()).append("|");
-    
-    for (int i = 0; i < clan.getAllArmies().size(); i++) {
-      Army army = clan.getAllArmies().get(i);
-      if (i > 0) sb.append("~");
-      sb.append(army.getId()).append(":");
-      
-      for (int j = 0; j < army.getAllWarriors().size(); j++) {
-        IWarrior w = army.getAllWarriors().get(j);
-        if (j > 0) sb.append(",");
-        // type:health:shield:strength:element:weaponType:weaponDamage:weaponElement
-        String wType = w.getWarriorType();
-        IWeapon weapon = w.getWeapon();
-        String weaponType = weapon.getType();
-        sb.append(wType).append(":");
-        sb.append(w.getHealth()).append(":");
-        sb.append(w.getShield()).append(":");
-        sb.append(w.getStrength()).append(":");
-        sb.append(getWarriorElement(w).name()).append(":");
-        sb.append(weaponType).append(":");
-        sb.append(getWeaponDamage(weapon)).append(":");
-        sb.append(weapon.getElement().name());
-      }
-    }
-    return sb.toString();
-  }
-  
-  private Element getWarriorElement(IWarrior w) {
-    // Usar reflexión para obtener el elemento del guerrero
-    try {
-      java.lang.reflect.Field field = Warrior.class.getDeclaredField("element");
-      field.setAccessible(true);
-      return (Element) field.get(w);
-    } catch (Exception e) {
-      return Element.NONE;
-    }
-  }
-  
-  private int getWeaponDamage(IWeapon weapon) {
-    try {
-      java.lang.reflect.Field field = Weapon.class.getDeclaredField("initialDamage");
-      field.setAccessible(true);
-      return field.getInt(weapon);
-    } catch (Exception e) {
-      return 10;
-    }
-  }
-  
   private void handleClanConfig(String clanData) {
     try {
-      System.out.println("[CLIENTE] Recibiendo configuración de clanes:");
-      System.out.println(clanData);
-      
-      String[] clans = clanData.split(";;");
+      Clan[] clans = ClanCodec.decode(clanData);
       if (clans.length != 2) {
         System.err.println("[CLIENTE] Error: se esperaban 2 clanes, se recibieron " + clans.length);
         return;
       }
-      
-      // Deserializar clan 1
-      clan1 = deserializeClan(clans[0]);
-      // Deserializar clan 2
-      clan2 = deserializeClan(clans[1]);
-      
-      System.out.println("[CLIENTE] Clanes deserializados:");
-      System.out.println("  Clan1: " + clan1.getName() + " con " + clan1.getAllArmies().size() + " ejércitos");
-      System.out.println("  Clan2: " + clan2.getName() + " con " + clan2.getAllArmies().size() + " ejércitos");
-      
-      // Verificar guerreros
-      for (Army army : clan1.getAllArmies()) {
-        System.out.println("    Ejército " + army.getId() + ": " + army.getAllWarriors().size() + " guerreros");
-        for (IWarrior w : army.getAllWarriors()) {
-          System.out.println("      - " + w.getId() + " (" + w.getWarriorType() + ") HP:" + w.getHealth());
+      clan1 = clans[0];
+      clan2 = clans[1];
+
+      System.out.println("[CLIENTE] Clanes recibidos (" + clanData.length() + " caracteres):");
+      for (Clan clan : clans) {
+        System.out.println("  " + clan.getName() + " con " + clan.getAllArmies().size() + " ejércitos");
+        for (Army army : clan.getAllArmies()) {
+          System.out.println("    Ejército " + army.getId() + ": " + army.getWarriorCount() + " guerreros");
         }
       }
       
@@ -646,101 +679,6 @@ public class MainFrame extends JFrame {
     }
   }
   
-  private Clan deserializeClan(String clanData) {
-    // Formato: nombre|r_g_b|army1Data~army2Data~...
-    String[] parts = clanData.split("\\|", 3);
-    String name = parts[0];
-    String[] rgb = parts[1].split("_");
-    Color color = new Color(Integer.parseInt(rgb[0]), Integer.parseInt(rgb[1]), Integer.parseInt(rgb[2]));
-    
-    Clan clan = new Clan(name);
-    clan.setColor(color);
-    
-    if (parts.length > 2 && !parts[2].isEmpty()) {
-      String[] armiesData = parts[2].split("~");
-      for (String armyData : armiesData) {
-        Army army = deserializeArmy(armyData, clan);
-        clan.addArmy(army);
-      }
-    }
-    
-    return clan;
-  }
-  
-  private Army deserializeArmy(String armyData, Clan clan) {
-    // Formato: armyId:warrior1Data,warrior2Data,...
-    String[] parts = armyData.split(":", 2);
-    String armyId = parts[0];
-    
-    Army army = new Army();
-    army.setId(armyId);
-    army.setClan(clan);
-    
-    if (parts.length > 1 && !parts[1].isEmpty()) {
-      String[] warriorsData = parts[1].split(",");
-      int warriorNum = 1;
-      for (String warriorData : warriorsData) {
-        IWarrior warrior = deserializeWarrior(warriorData, armyId, warriorNum, clan);
-        army.addWarrior(warrior);
-        warriorNum++;
-      }
-    }
-    
-    return army;
-  }
-  
-  private IWarrior deserializeWarrior(String warriorData, String armyId, int number, Clan clan) {
-    // Formato: type:health:shield:strength:element:weaponType:weaponDamage:weaponElement
-    String[] parts = warriorData.split(":");
-    String type = parts[0];
-    int health = Integer.parseInt(parts[1]);
-    int shield = Integer.parseInt(parts[2]);
-    int strength = Integer.parseInt(parts[3]);
-    Element element = Element.valueOf(parts[4]);
-    String weaponType = parts[5];
-    int weaponDamage = Integer.parseInt(parts[6]);
-    Element weaponElement = Element.valueOf(parts[7]);
-    
-    // Crear arma según tipo
-    IWeapon weapon;
-    switch (weaponType) {
-      case "Espada":
-        weapon = new MeleeWeapon(weaponDamage, weaponElement);
-        break;
-      case "Arco":
-        weapon = new RangedWeapon(weaponDamage, weaponElement);
-        break;
-      case "Varita mágica":
-        weapon = new MagicWeapon(weaponDamage, weaponElement);
-        break;
-      default:
-        weapon = new MeleeWeapon(weaponDamage, weaponElement);
-    }
-    
-    // Crear guerrero según tipo
-    String wName = armyId + number;
-    IWarrior warrior;
-    switch (type) {
-      case "melee":
-        warrior = new MeleeWarrior(wName, health, shield, strength, element, weapon);
-        break;
-      case "ranged":
-        warrior = new RangedWarrior(wName, health, shield, strength, element, weapon);
-        break;
-      case "magic":
-        warrior = new MagicWarrior(wName, health, shield, strength, element, weapon);
-        break;
-      default:
-        warrior = new MeleeWarrior(wName, health, shield, strength, element, weapon);
-    }
-    
-    warrior.setArmyId(armyId);
-    warrior.setNumber(number);
-    warrior.setClan(clan);
-    
-    return warrior;
-  }
-  
   // Se eliminó createClanFromConfig - ahora usamos deserialización completa
   
   @Override
@@ -3,6 +3,7 @@ package com.battlesimulator.ui;
 import com.battlesimulator.domain.*;
 import com.battlesimulator.network.GameClient;
 import com.battlesimulator.network.Message;
+import com.battlesimulator.usecases.BattleProtocol;
 import com.battlesimulator.usecases.InteractiveBattle;
 import com.battlesimulator.usecases.MultiplayerWarController;
 import java.awt.*;
@@ -226,15 +227,12 @@ public class MultiplayerBattleFrame extends JDialog {
             // Enviar movimiento al otro jugador
             if (client != null) {
               int battleIndex = warController.getBattleIndex(battleCtrl);
-              String moveData = String.format("%d|%s|%d|%d|%d|%d",
-                battleIndex,
-                mover.getId(),
-                oldPos.row, oldPos.col,
-                p.row, p.col);
+              String moveData = BattleProtocol.move(battleIndex, battleCtrl.getWarriorSlot(mover), oldPos, p);
               Message msg = new Message(Message.Type.MOVE, moveData);
               msg.setPlayerId(client.getPlayerId());
               client.sendMessage(msg);
             }
+            warController.localTurnPlayed(battleCtrl);
             
             selectedAttacker = null;
             rangeInfoLabel.setText("");
@@ -297,20 +295,13 @@ public class MultiplayerBattleFrame extends JDialog {
           // Enviar ataque al otro jugador con índice de batalla
           if (client != null) {
             int battleIndex = warController.getBattleIndex(battleCtrl);
-            String attackData = String.format("%d|%s|%s|%d|%d|%d|%b|%.2f|%d", 
-              battleIndex,
-              attacker.getId(), 
-              clicked.getId(),
-              dr.getBaseDamage(),
-              dr.getFinalDamage(),
-              clicked.getHealth(),
-              dr.isKilled(),
-              dr.getDistanceMultiplier(),
-              dr.getDistance());
+            String attackData = BattleProtocol.attack(battleIndex,
+              battleCtrl.getWarriorSlot(attacker), battleCtrl.getWarriorSlot(clicked), dr, clicked);
             Message msg = new Message(Message.Type.ATTACK, attackData);
             msg.setPlayerId(client.getPlayerId()); // Marcar quién envió el ataque
             client.sendMessage(msg);
           }
+          warController.localTurnPlayed(battleCtrl);
           
           selectedAttacker = null;
           rangeInfoLabel.setText("");
@@ -391,26 +382,33 @@ public class MultiplayerBattleFrame extends JDialog {
         killedStr);
   }
 
+  /**
+   * Redibuja tras aplicar un BATTLE_UPDATE recibido del host.
+   */
+  public void stateUpdated() {
+    refreshGrid();
+    updateTurnLabel();
+  }
+
   private void refreshGrid() {
     ImageResources imgRes = ImageResources.getInstance();
     System.out.println("[GRID] Refrescando grid...");
     
     for (int r = 0; r < GRID_SIZE; r++) {
       for (int c = 0; c < GRID_SIZE; c++) {
-        Position p = new Position(r, c);
-        IWarrior w = battleCtrl.getWarriorAt(p);
+        IWarrior w = battleCtrl.getWarriorAt(r, c);
         JButton btn = gridButtons[r][c];
         
         // Calcular color de rango si hay atacante seleccionado
         Color rangeColor = null;
         if (selectedAttacker != null && w == null) {
-          rangeColor = getRangeColor(selectedAttacker, p);
+          rangeColor = getRangeColor(selectedAttacker, new Position(r, c));
         }
         
         // No mostrar guerreros muertos
         if (w == null || !w.isAlive()) {
           if (w != null && !w.isAlive()) {
-            System.out.println("[GRID] Guerrero muerto en " + p + ": " + w.getId() + " (HP:" + w.getHealth() + ")");
+            System.out.println("[GRID] Guerrero muerto en (" + r + "," + c + "): " + w.getId() + " (HP:" + w.getHealth() + ")");
           }
           btn.setText("");
           btn.setIcon(null);
@@ -556,9 +554,9 @@ public class MultiplayerBattleFrame extends JDialog {
   
   private boolean isMyWarrior(IWarrior w) {
     if (controlsArmy1) {
-      return battleCtrl.getArmy1().getWarriors().contains(w);
+      return w.isAlive() && w.getArmy() == battleCtrl.getArmy1();
     } else {
-      return battleCtrl.getArmy2().getWarriors().contains(w);
+      return w.isAlive() && w.getArmy() == battleCtrl.getArmy2();
     }
   }
 
@@ -588,6 +586,18 @@ public class MultiplayerBattleFrame extends JDialog {
     }
   }
   
+  /**
+   * Las acciones remotas se aplican en el acto si ya estamos en el hilo de
+   * Swing: así el BATTLE_UPDATE que llega detrás no se adelanta a la acción.
+   */
+  private static void onEventThread(Runnable action) {
+    if (SwingUtilities.isEventDispatchThread()) {
+      action.run();
+    } else {
+      SwingUtilities.invokeLater(action);
+    }
+  }
+
   public void updateTurnDisplay() {
     SwingUtilities.invokeLater(() -> {
       updateTurnLabel();
@@ -643,7 +653,7 @@ public class MultiplayerBattleFrame extends JDialog {
   }
   
   public void handleRemoteAttack(String attackData) {
-    SwingUtilities.invokeLater(() -> {
+    onEventThread(() -> {
       try {
         String[] parts = attackData.split("\\|");
         if (parts.length < 6) {
@@ -651,23 +661,25 @@ public class MultiplayerBattleFrame extends JDialog {
           return;
         }
         
-        String attackerId = parts[0];
-        String targetId = parts[1];
+        int attackerSlot = Integer.parseInt(parts[0]);
+        int targetSlot = Integer.parseInt(parts[1]);
         int baseDamage = Integer.parseInt(parts[2]);
         int finalDamage = Integer.parseInt(parts[3]);
         int remainingHealth = Integer.parseInt(parts[4]);
         boolean killed = Boolean.parseBoolean(parts[5]);
         double distanceMultiplier = parts.length > 6 ? Double.parseDouble(parts[6]) : 1.0;
         int distance = parts.length > 7 ? Integer.parseInt(parts[7]) : 0;
+        int remainingShield = parts.length > 8 ? Integer.parseInt(parts[8]) : -1;
+        int weaponLevel = parts.length > 9 ? Integer.parseInt(parts[9]) : -1;
         
-        System.out.println("[REMOTE] Procesando ataque: " + attackerId + " -> " + targetId);
+        System.out.println("[REMOTE] Procesando ataque: slot " + attackerSlot + " -> slot " + targetSlot);
         System.out.println("[REMOTE] finalDamage=" + finalDamage + ", remainingHealth=" + remainingHealth + ", killed=" + killed);
         
-        IWarrior attacker = battleCtrl.findWarriorById(attackerId);
-        IWarrior target = battleCtrl.findWarriorById(targetId);
+        IWarrior attacker = battleCtrl.getWarriorBySlot(attackerSlot);
+        IWarrior target = battleCtrl.getWarriorBySlot(targetSlot);
         
         if (attacker == null || target == null) {
-          logArea.append("Error: guerrero no encontrado (attacker=" + attackerId + ", target=" + targetId + ")\n");
+          logArea.append("Error: guerrero no encontrado (attacker=" + attackerSlot + ", target=" + targetSlot + ")\n");
           return;
         }
         
@@ -678,8 +690,8 @@ public class MultiplayerBattleFrame extends JDialog {
         System.out.println("[REMOTE] Posición atacante: " + attPos + ", Posición objetivo: " + tarPos);
         System.out.println("[REMOTE] Target health antes: " + target.getHealth());
         
-        // IMPORTANTE: Establecer health directamente, NO recalcular daño
-        target.setHealth(remainingHealth);
+        // IMPORTANTE: Establecer health y escudo directamente, NO recalcular daño
+        battleCtrl.syncDamage(target, remainingHealth, remainingShield, weaponLevel);
         
         System.out.println("[REMOTE] Target health después: " + target.getHealth() + ", isAlive: " + target.isAlive());
         
@@ -688,7 +700,7 @@ public class MultiplayerBattleFrame extends JDialog {
         
         // Si fue asesinado, mover atacante a posición del objetivo
         if (actuallyKilled) {
-          System.out.println("[REMOTE] Procesando muerte del guerrero " + targetId);
+          System.out.println("[REMOTE] Procesando muerte del guerrero " + target.getId());
           // Primero quitar al muerto del grid
           battleCtrl.removeFromGrid(tarPos);
           target.setPosition(null);
@@ -699,6 +711,7 @@ public class MultiplayerBattleFrame extends JDialog {
         
         // IMPORTANTE: Cambiar el turno después del ataque
         battleCtrl.nextTurn();
+        warController.battleStateChanged(battleCtrl);
         
         // Verificar si la batalla terminó
         battleCtrl.checkBattleEnd();
@@ -742,8 +755,8 @@ public class MultiplayerBattleFrame extends JDialog {
       }
     });
   }
-    public void handleRemoteMove(String moveData) {
-    SwingUtilities.invokeLater(() -> {
+  public void handleRemoteMove(String moveData) {
+    onEventThread(() -> {
       try {
         String[] parts = moveData.split("\\|");
         if (parts.length < 5) {
@@ -751,17 +764,17 @@ public class MultiplayerBattleFrame extends JDialog {
           return;
         }
         
-        String warriorId = parts[0];
+        int warriorSlot = Integer.parseInt(parts[0]);
         int oldRow = Integer.parseInt(parts[1]);
         int oldCol = Integer.parseInt(parts[2]);
         int newRow = Integer.parseInt(parts[3]);
         int newCol = Integer.parseInt(parts[4]);
         
-        System.out.println("[REMOTE MOVE] " + warriorId + " de (" + oldRow + "," + oldCol + ") a (" + newRow + "," + newCol + ")");
+        System.out.println("[REMOTE MOVE] slot " + warriorSlot + " de (" + oldRow + "," + oldCol + ") a (" + newRow + "," + newCol + ")");
         
-        IWarrior warrior = battleCtrl.findWarriorById(warriorId);
+        IWarrior warrior = battleCtrl.getWarriorBySlot(warriorSlot);
         if (warrior == null) {
-          logArea.append("Error: guerrero no encontrado: " + warriorId + "\n");
+          logArea.append("Error: guerrero no encontrado: slot " + warriorSlot + "\n");
           return;
         }
         
@@ -786,9 +799,10 @@ public class MultiplayerBattleFrame extends JDialog {
         
         // Cambiar turno
         battleCtrl.nextTurn();
+        warController.battleStateChanged(battleCtrl);
         
         String moveLog = String.format("[ENEMIGO] 🚶 %s [%s] se movió de (%d,%d) a (%d,%d)",
-            warriorId, warrior.getWarriorType().toUpperCase(),
+            warrior.getId(), warrior.getWarriorType().toUpperCase(),
             oldRow, oldCol, newRow, newCol);
         logArea.append(moveLog + "\n");
         logArea.setCaretPosition(logArea.getDocument().getLength());
@@ -0,0 +1,219 @@
+package com.battlesimulator.usecases;
+
+import com.battlesimulator.domain.*;
+import com.battlesimulator.network.Message;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Guerra multijugador simulada en el servidor. Trabaja sobre copias de los
+ * clanes, valida cada ATTACK y MOVE (turno, dueño del guerrero, alcance,
+ * casilla libre) antes de aplicarlo y deja preparados los mensajes con el
+ * resultado: el delta de la batalla, su fin, las batallas nuevas y el fin de
+ * la guerra. Los jugadores no deciden nada; solo aplican lo que reciben.
+ */
+public class AuthoritativeWar {
+  private final Clan clan1;
+  private final Clan clan2;
+  private final List<InteractiveBattle> battles = new ArrayList<>();
+  private final List<Message> updates = new ArrayList<>();
+  private final Random random;
+
+  public AuthoritativeWar(Clan clan1, Clan clan2, long seed) {
+    this.clan1 = clan1.copy();
+    this.clan2 = clan2.copy();
+    this.random = new Random(seed);
+    pairNewBattles();
+    updates.clear(); // Los jugadores piden la instantánea con SYNC_REQUEST
+  }
+
+  /**
+   * Valida y aplica un ataque del jugador que controla el clan indicado.
+   * Los números que calculó el cliente se ignoran: se devuelven los del
+   * servidor con el mismo formato.
+   * @throws IllegalArgumentException si el ataque no es válido
+   */
+  public synchronized String attack(int clanIndex, String data) {
+    InteractiveBattle battle = battleFor(data, 3);
+    String[] parts = data.split("\\|");
+    int index = Integer.parseInt(parts[0]);
+    IWarrior attacker = warrior(battle, parts[1]);
+    IWarrior target = warrior(battle, parts[2]);
+    checkOwner(clanIndex, attacker);
+    if (!attacker.isAlive() || !target.isAlive()) {
+      throw new IllegalArgumentException("Guerrero muerto.");
+    }
+    if (!CombatRules.isInRange(attacker, target)) {
+      throw new IllegalArgumentException("Objetivo fuera de rango.");
+    }
+    long since = battle.getVersion();
+    DamageReport dr = battle.performAttack(attacker, target);
+    String result = BattleProtocol.attack(index, battle.getWarriorSlot(attacker), battle.getWarriorSlot(target), dr, target);
+    actionApplied(index, battle, since);
+    return result;
+  }
+
+  /**
+   * Valida y aplica un movimiento (index|slot|filaAnt|colAnt|fila|col).
+   * @throws IllegalArgumentException si el movimiento no es válido
+   */
+  public synchronized String move(int clanIndex, String data) {
+    InteractiveBattle battle = battleFor(data, 6);
+    String[] parts = data.split("\\|");
+    int index = Integer.parseInt(parts[0]);
+    IWarrior warrior = warrior(battle, parts[1]);
+    checkOwner(clanIndex, warrior);
+    Position from = warrior.getPosition();
+    Position to = new Position(Integer.parseInt(parts[4]), Integer.parseInt(parts[5]));
+    long since = battle.getVersion();
+    battle.performMove(warrior, to);
+    String result = BattleProtocol.move(index, battle.getWarriorSlot(warrior), from, to);
+    actionApplied(index, battle, since);
+    return result;
+  }
+
+  /**
+   * Mensajes generados por la última acción aplicada, en orden de envío.
+   */
+  public synchronized List<Message> drainUpdates() {
+    List<Message> out = new ArrayList<>(updates);
+    updates.clear();
+    return out;
+  }
+
+  /**
+   * Instantánea de la batalla del mensaje (index|...) para corregir al
+   * jugador que se desincronizó, o null si no existe.
+   */
+  public synchronized Message battleSnapshot(String data) {
+    if (data == null) return null;
+    try {
+      int index = Integer.parseInt(data.split("\\|", 2)[0]);
+      if (index < 0 || index >= battles.size()) return null;
+      return battleUpdate(index, battles.get(index), -1);
+    } catch (NumberFormatException e) {
+      return null;
+    }
+  }
+
+  public synchronized Message syncResponse() {
+    return new Message(Message.Type.SYNC_RESPONSE, BattleProtocol.syncResponse(battles, clan1));
+  }
+
+  /**
+   * Compara un TURN_END (index|versión|hash) con el estado del servidor.
+   * @return true si coincide o si el servidor ya va por otra versión
+   */
+  public synchronized boolean matchesTurn(String data) {
+    try {
+      String[] parts = data.split("\\|");
+      int index = Integer.parseInt(parts[0]);
+      if (index < 0 || index >= battles.size()) return false;
+      InteractiveBattle battle = battles.get(index);
+      return battle.getVersion() != Long.parseLong(parts[1])
+          || battle.getStateHash() == Long.parseUnsignedLong(parts[2], 16);
+    } catch (RuntimeException e) {
+      return false;
+    }
+  }
+
+  public synchronized boolean isOver() {
+    return clan1.isDefeated() || clan2.isDefeated();
+  }
+
+  private void actionApplied(int index, InteractiveBattle battle, long since) {
+    updates.add(battleUpdate(index, battle, since));
+    if (!battle.isBattleOver()) return;
+    updates.add(new Message(Message.Type.BATTLE_END, battle.getWinner().getId()));
+    pairNewBattles();
+    if (isOver()) {
+      Clan winClan = clan1.isDefeated() ? clan2 : clan1;
+      updates.add(new Message(Message.Type.WAR_END, winClan.getName()));
+    }
+  }
+
+  // Mismo criterio que WarEngine: uno de los 3 de mayor nivel entre los que
+  // aún no combatieron y, si ya combatieron todos, entre los que siguen en pie
+  private void pairNewBattles() {
+    while (!isOver()) {
+      Army a1 = selectArmy(clan1);
+      Army a2 = selectArmy(clan2);
+      if (a1 == null || a2 == null) break;
+      a1.setHasFought(true);
+      a2.setHasFought(true);
+      InteractiveBattle battle = new InteractiveBattle(a1, a2);
+      battle.setLoggingEnabled(false);
+      battle.setRandomSeed(random.nextLong());
+      battle.initBattle();
+      battles.add(battle);
+      updates.add(battleUpdate(battles.size() - 1, battle, -1));
+    }
+  }
+
+  private Army selectArmy(Clan clan) {
+    List<Army> available = clan.getActiveArmies().stream().filter(a -> !a.hasFought())
+        .collect(Collectors.toCollection(ArrayList::new));
+    if (available.isEmpty()) {
+      // Las batallas son simultáneas: no repite quien sigue combatiendo
+      Set<Army> fighting = new HashSet<>();
+      for (InteractiveBattle battle : battles) {
+        if (!battle.isBattleOver()) {
+          fighting.add(battle.getArmy1());
+          fighting.add(battle.getArmy2());
+        }
+      }
+      available = clan.getActiveArmies().stream().filter(a -> !fighting.contains(a))
+          .collect(Collectors.toCollection(ArrayList::new));
+    }
+    if (available.isEmpty()) return null;
+    Collections.sort(available, (a, b) -> Integer.compare(b.getLevel(), a.getLevel()));
+    return available.get(random.nextInt(Math.min(3, available.size())));
+  }
+
+  private Message battleUpdate(int index, InteractiveBattle battle, long since) {
+    String data = BattleProtocol.battleUpdate(index, battle, clan1, BattleProtocol.describe(battle), since);
+    return new Message(Message.Type.BATTLE_UPDATE, data);
+  }
+
+  // Batalla de la acción (index|...) con al menos fields campos; una acción
+  // sin datos es inválida como cualquier otra, no un fallo del servidor
+  private InteractiveBattle battleFor(String data, int fields) {
+    if (data == null) {
+      throw new IllegalArgumentException("Acción sin datos");
+    }
+    String[] parts = data.split("\\|");
+    if (parts.length < fields) {
+      throw new IllegalArgumentException("Datos incompletos: " + parts.length + " campos");
+    }
+    int index = Integer.parseInt(parts[0]);
+    if (index < 0 || index >= battles.size()) {
+      throw new IllegalArgumentException("Batalla inexistente: " + index);
+    }
+    InteractiveBattle battle = battles.get(index);
+    if (battle.isBattleOver()) {
+      throw new IllegalArgumentException("La batalla " + index + " ya terminó.");
+    }
+    return battle;
+  }
+
+  private IWarrior warrior(InteractiveBattle battle, String slot) {
+    IWarrior warrior = battle.getWarriorBySlot(Integer.parseInt(slot));
+    if (warrior == null) {
+      throw new IllegalArgumentException("Guerrero inexistente: " + slot);
+    }
+    return warrior;
+  }
+
+  // El host controla clan1 y el otro jugador clan2
+  private void checkOwner(int clanIndex, IWarrior warrior) {
+    Clan own = clanIndex == 1 ? clan1 : clan2;
+    if (warrior.getArmy().getClan() != own) {
+      throw new IllegalArgumentException("El guerrero " + warrior.getId() + " no es de tu clan.");
+    }
+  }
+}
@@ -0,0 +1,53 @@
+package com.battlesimulator.usecases;
+
+import com.battlesimulator.domain.IWarrior;
+import com.battlesimulator.domain.Position;
+
+/**
+ * Acción elegida por una política para el turno actual: atacar, moverse o pasar.
+ */
+public final class BattleAction {
+  public enum Kind { ATTACK, MOVE, PASS }
+
+  private static final BattleAction PASS = new BattleAction(Kind.PASS, null, null, null);
+
+  private final Kind kind;
+  private final IWarrior actor;
+  private final IWarrior target;
+  private final Position destination;
+
+  private BattleAction(Kind kind, IWarrior actor, IWarrior target, Position destination) {
+    this.kind = kind;
+    this.actor = actor;
+    this.target = target;
+    this.destination = destination;
+  }
+
+  public static BattleAction attack(IWarrior attacker, IWarrior target) {
+    return new BattleAction(Kind.ATTACK, attacker, target, null);
+  }
+
+  public static BattleAction move(IWarrior warrior, Position destination) {
+    return new BattleAction(Kind.MOVE, warrior, null, destination);
+  }
+
+  public static BattleAction pass() {
+    return PASS;
+  }
+
+  public Kind getKind() {
+    return kind;
+  }
+
+  public IWarrior getActor() {
+    return actor;
+  }
+
+  public IWarrior getTarget() {
+    return target;
+  }
+
+  public Position getDestination() {
+    return destination;
+  }
+}
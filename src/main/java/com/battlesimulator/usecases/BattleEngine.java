@@ -0,0 +1,84 @@
+package com.battlesimulator.usecases;
+
+import com.battlesimulator.domain.Army;
+import java.util.Random;
+
+/**
+ * Ejecuta una batalla completa sin interfaz gráfica, pidiendo a la política de
+ * cada bando la acción de su turno. Usa las mismas reglas que InteractiveBattle
+ * pero con el registro desactivado para poder simular miles de guerras por segundo.
+ */
+public class BattleEngine {
+  public static final int DEFAULT_MAX_TURNS = 10_000;
+
+  private final BattlePolicy policy1;
+  private final BattlePolicy policy2;
+  private final Random rand;
+  private int maxTurns = DEFAULT_MAX_TURNS;
+  private int turnsPlayed;
+
+  public BattleEngine(BattlePolicy policy1, BattlePolicy policy2, Random rand) {
+    this.policy1 = policy1;
+    this.policy2 = policy2;
+    this.rand = rand;
+  }
+
+  public void setMaxTurns(int maxTurns) {
+    this.maxTurns = maxTurns;
+  }
+
+  /**
+   * Crea, despliega y resuelve una batalla entre dos ejércitos en un tablero
+   * dimensionado a su tamaño. policy1 controla a army1 y policy2 a army2.
+   */
+  public Army run(Army army1, Army army2) {
+    int gridSize = InteractiveBattle.gridSizeFor(army1.getWarriorCount() + army2.getWarriorCount());
+    InteractiveBattle battle = new InteractiveBattle(army1, army2, gridSize);
+    battle.setLoggingEnabled(false);
+    battle.setRandomSeed(rand.nextLong());
+    battle.initBattle();
+    return run(battle);
+  }
+
+  /**
+   * Juega turnos hasta que un ejército caiga. Si se agota el límite de turnos o
+   * ambos bandos pasan seguidos, gana el ejército de mayor nivel.
+   */
+  public Army run(InteractiveBattle battle) {
+    turnsPlayed = 0;
+    int consecutivePasses = 0;
+    while (!battle.isBattleOver() && turnsPlayed < maxTurns && consecutivePasses < 2) {
+      Army own = battle.getCurrentTurnArmy();
+      boolean first = own == battle.getArmy1();
+      Army enemy = first ? battle.getArmy2() : battle.getArmy1();
+      BattleAction action = (first ? policy1 : policy2).nextAction(battle, own, enemy, rand);
+
+      switch (action.getKind()) {
+        case ATTACK -> {
+          battle.performAttack(action.getActor(), action.getTarget());
+          consecutivePasses = 0;
+        }
+        case MOVE -> {
+          battle.performMove(action.getActor(), action.getDestination());
+          consecutivePasses = 0;
+        }
+        case PASS -> {
+          battle.nextTurn();
+          consecutivePasses++;
+        }
+      }
+      turnsPlayed++;
+    }
+
+    if (!battle.isBattleOver()) {
+      Army a1 = battle.getArmy1();
+      Army a2 = battle.getArmy2();
+      battle.declareWinner(a1.getLevel() >= a2.getLevel() ? a1 : a2);
+    }
+    return battle.getWinner();
+  }
+
+  public int getTurnsPlayed() {
+    return turnsPlayed;
+  }
+}
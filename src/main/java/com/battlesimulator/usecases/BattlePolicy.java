@@ -0,0 +1,12 @@
+package com.battlesimulator.usecases;
+
+import com.battlesimulator.domain.Army;
+import java.util.Random;
+
+/**
+ * Decide la acción de un bando en cada turno de una batalla sin interfaz.
+ * Las implementaciones no deben depender de Swing/AWT.
+ */
+public interface BattlePolicy {
+  BattleAction nextAction(InteractiveBattle battle, Army own, Army enemy, Random rand);
+}
@@ -0,0 +1,131 @@
+package com.battlesimulator.usecases;
+
+import com.battlesimulator.domain.*;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Formato del campo data de ATTACK, MOVE, BATTLE_UPDATE y SYNC_RESPONSE.
+ * Lo comparten los jugadores (MultiplayerWarController y la ventana de
+ * batalla) y el servidor autoritativo (AuthoritativeWar). Los guerreros se
+ * identifican por su slot en la batalla.
+ */
+public final class BattleProtocol {
+  private BattleProtocol() {}
+
+  // index|slotAtacante|slotObjetivo|base|final|vida|muerto|multDist|distancia|escudo|nivelArma
+  public static String attack(int battleIndex, int attackerSlot, int targetSlot, DamageReport dr, IWarrior target) {
+    return String.format(Locale.ROOT, "%d|%d|%d|%d|%d|%d|%b|%.2f|%d|%d|%d",
+        battleIndex, attackerSlot, targetSlot,
+        dr.getBaseDamage(), dr.getFinalDamage(), target.getHealth(), dr.isKilled(),
+        dr.getDistanceMultiplier(), dr.getDistance(),
+        target.getShield(), target.getWeapon().getLevel());
+  }
+
+  // index|slot|filaAnterior|colAnterior|fila|col
+  public static String move(int battleIndex, int slot, Position from, Position to) {
+    return battleIndex + "|" + slot + "|" + from.row + "|" + from.col + "|" + to.row + "|" + to.col;
+  }
+
+  /**
+   * index|clan1Army|army1Id|clan2Army|army2Id|description|delta
+   * clan1Army/clan2Army indica de qué clan viene cada ejército (1 o 2).
+   */
+  public static String battleUpdate(int index, InteractiveBattle battle, Clan clan1, String description, long since) {
+    StringBuilder sb = new StringBuilder();
+    appendHeader(sb, index, battle, clan1);
+    sb.append(description).append("|");
+    sb.append(battle.encodeDelta(since));
+    return sb.toString();
+  }
+
+  /**
+   * Cabecera "index|clan1Army|army1Id|clan2Army|army2Id" de un BATTLE_UPDATE:
+   * identifica la batalla. Null si el texto no tiene ese formato.
+   */
+  public static String battleUpdateKey(String data) {
+    int end = -1;
+    for (int i = 0; i < 5; i++) {
+      end = data.indexOf('|', end + 1);
+      if (end < 0) return null;
+    }
+    return data.substring(0, end);
+  }
+
+  /**
+   * Une dos BATTLE_UPDATE de la misma batalla (ver InteractiveBattle.mergeDeltas)
+   * con la descripción del más reciente. Null si no se pueden unir.
+   */
+  public static String mergeBattleUpdates(String older, String newer) {
+    String[] a = older.split("\\|", 7);
+    String[] b = newer.split("\\|", 7);
+    if (a.length < 7 || b.length < 7) return null;
+    for (int i = 0; i < 5; i++) {
+      if (!a[i].equals(b[i])) return null;
+    }
+    String delta = InteractiveBattle.mergeDeltas(a[6], b[6]);
+    if (delta == null) return null;
+    return String.join("|", b[0], b[1], b[2], b[3], b[4], b[5], delta);
+  }
+
+  /**
+   * Instantánea de todas las batallas en un solo mensaje:
+   * hash|numBatallas|{index|clan1Army|army1Id|clan2Army|army2Id|numCampos|instantánea}*
+   * El hash permite al receptor comprobar que quedó igual que el emisor.
+   */
+  public static String syncResponse(List<InteractiveBattle> battles, Clan clan1) {
+    int count = 0;
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < battles.size(); i++) {
+      InteractiveBattle battle = battles.get(i);
+      if (battle == null) continue;
+      String snapshot = battle.encodeSnapshot();
+      int fields = 1;
+      for (int c = 0; c < snapshot.length(); c++) {
+        if (snapshot.charAt(c) == '|') fields++;
+      }
+      sb.append("|");
+      appendHeader(sb, i, battle, clan1);
+      sb.append(fields).append("|").append(snapshot);
+      count++;
+    }
+    return Long.toHexString(warStateHash(battles)) + "|" + count + sb;
+  }
+
+  /**
+   * Huella de la guerra completa: combina la de cada batalla con su índice.
+   * De una batalla terminada solo cuenta su versión: sus guerreros pueden
+   * seguir luchando en otra batalla, así que su huella (y el ganador que se
+   * deduce al reaplicar su instantánea) ya no son los de ella.
+   */
+  public static long warStateHash(List<InteractiveBattle> battles) {
+    long h = battles.size();
+    for (int i = 0; i < battles.size(); i++) {
+      InteractiveBattle battle = battles.get(i);
+      if (battle == null) continue;
+      long battleHash = battle.isBattleOver() ? InteractiveBattle.mix(battle.getVersion()) : battle.getStateHash();
+      h ^= InteractiveBattle.mix(battleHash + i);
+    }
+    return h;
+  }
+
+  public static String describe(InteractiveBattle battle) {
+    String title = "Batalla: " + battle.getArmy1().getId() + " vs " + battle.getArmy2().getId();
+    Army winner = battle.getWinner();
+    if (winner != null) {
+      return title + " - Ganador: " + winner.getClan().getName() + " (" + winner.getId() + ")";
+    }
+    return title + " - En curso";
+  }
+
+  // index|clan1Army|army1Id|clan2Army|army2Id|
+  private static void appendHeader(StringBuilder sb, int index, InteractiveBattle battle, Clan clan1) {
+    Army army1 = battle.getArmy1();
+    Army army2 = battle.getArmy2();
+    sb.append(index).append("|");
+    sb.append(army1.getClan() == clan1 ? 1 : 2).append("|");
+    sb.append(army1.getId()).append("|");
+    sb.append(army2.getClan() == clan1 ? 1 : 2).append("|");
+    sb.append(army2.getId()).append("|");
+  }
+}
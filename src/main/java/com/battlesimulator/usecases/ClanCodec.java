@@ -0,0 +1,324 @@
+package com.battlesimulator.usecases;
+
+import com.battlesimulator.domain.*;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Formato del campo data de CLAN_CONFIG: los clanes que configuró el host,
+ * en binario con prefijos de longitud y en Base64 (data es texto).
+ *
+ *   versión | varint numClanes | clan*
+ *   clan     = texto nombre | int rgb | varint numEjércitos | ejército*
+ *   ejército = texto id | varint numGuerreros | guerrero*
+ *   guerrero = tipo | tipoArma | elemento << 4 | elementoArma
+ *              | varint número | varint vida | varint escudo | varint fuerza
+ *              | varint dañoInicialArma
+ *
+ * Los textos van como varint longitud + UTF-8 y los tipos y elementos por
+ * ordinal (WarriorType, Element). Cada guerrero lleva su número, así que su
+ * id (ejército + número) es el mismo en el host y en el cliente.
+ */
+public final class ClanCodec {
+  private static final int VERSION = 1;
+  // Desde este tamaño el ejército se reconstruye en un ArmyState si se puede
+  static final int STATE_MIN_WARRIORS = 1000;
+
+  private static final Element[] ELEMENTS = Element.values();
+  private static final int WARRIOR_TYPES = WarriorType.values().length;
+
+  private ClanCodec() {}
+
+  public static String encode(Clan... clans) {
+    Writer w = new Writer(64 + 16 * countWarriors(clans));
+    w.writeByte(VERSION);
+    w.writeVarInt(clans.length);
+    for (Clan clan : clans) {
+      writeClan(w, clan);
+    }
+    return Base64.getEncoder().encodeToString(w.toBytes());
+  }
+
+  /**
+   * @throws IllegalArgumentException si data no es un CLAN_CONFIG válido
+   */
+  public static Clan[] decode(String data) {
+    Reader r;
+    try {
+      r = new Reader(Base64.getDecoder().decode(data));
+    } catch (IllegalArgumentException | NullPointerException e) {
+      throw new IllegalArgumentException("CLAN_CONFIG no está en Base64", e);
+    }
+    try {
+      int version = r.readByte();
+      if (version != VERSION) {
+        throw new IllegalArgumentException("Versión de CLAN_CONFIG desconocida: " + version);
+      }
+      Clan[] clans = new Clan[r.readCount()];
+      for (int i = 0; i < clans.length; i++) {
+        clans[i] = readClan(r);
+      }
+      if (r.pos != r.buf.length) {
+        throw new IllegalArgumentException("CLAN_CONFIG con datos de más");
+      }
+      return clans;
+    } catch (ArrayIndexOutOfBoundsException e) {
+      throw new IllegalArgumentException("CLAN_CONFIG truncado", e);
+    }
+  }
+
+  private static int countWarriors(Clan[] clans) {
+    int n = 0;
+    for (Clan clan : clans) {
+      for (Army army : clan.getAllArmies()) {
+        n += army.getWarriorCount();
+      }
+    }
+    return n;
+  }
+
+  private static void writeClan(Writer w, Clan clan) {
+    w.writeString(clan.getName());
+    w.writeInt(clan.getRgb());
+    List<Army> armies = clan.getAllArmies();
+    w.writeVarInt(armies.size());
+    for (Army army : armies) {
+      w.writeString(army.getId());
+      List<IWarrior> warriors = army.getAllWarriors();
+      w.writeVarInt(warriors.size());
+      for (IWarrior warrior : warriors) {
+        writeWarrior(w, warrior);
+      }
+    }
+  }
+
+  private static void writeWarrior(Writer w, IWarrior warrior) {
+    IWeapon weapon = warrior.getWeapon();
+    w.writeByte(warrior.getType().ordinal());
+    w.writeByte(weaponKind(weapon).ordinal());
+    w.writeByte(warrior.getElement().ordinal() << 4 | weapon.getElement().ordinal());
+    w.writeVarInt(warrior.getNumber());
+    w.writeVarInt(warrior.getHealth());
+    w.writeVarInt(warrior.getShield());
+    w.writeVarInt(warrior.getStrength());
+    w.writeVarInt(weapon.getInitialDamage());
+  }
+
+  // Tipo de guerrero que usa esa arma; el arma puede no coincidir con el guerrero
+  private static WarriorType weaponKind(IWeapon weapon) {
+    if (weapon instanceof RangedWeapon) return WarriorType.RANGED;
+    if (weapon instanceof MagicWeapon) return WarriorType.MAGIC;
+    if (weapon instanceof MeleeWeapon) return WarriorType.MELEE;
+    return switch (weapon.getType()) {
+      case "Arco" -> WarriorType.RANGED;
+      case "Varita mágica" -> WarriorType.MAGIC;
+      default -> WarriorType.MELEE;
+    };
+  }
+
+  private static Clan readClan(Reader r) {
+    Clan clan = new Clan(r.readString());
+    clan.setRgb(r.readInt());
+    int armies = r.readCount();
+    for (int i = 0; i < armies; i++) {
+      clan.addArmy(readArmy(r, clan));
+    }
+    return clan;
+  }
+
+  private static Army readArmy(Reader r, Clan clan) {
+    String armyId = r.readString();
+    int count = r.readCount();
+    int start = r.pos;
+    if (count >= STATE_MIN_WARRIORS && fitsState(r, count)) {
+      r.pos = start;
+      return readStateArmy(r, armyId, clan, count);
+    }
+    r.pos = start;
+    Army army = new Army();
+    army.setId(armyId);
+    army.setClan(clan);
+    for (int i = 0; i < count; i++) {
+      army.addWarrior(readWarrior(r, armyId, clan));
+    }
+    return army;
+  }
+
+  /**
+   * Un ArmyState solo representa guerreros numerados 1..n en orden y con el
+   * arma de su tipo. Avanza el lector hasta el final del ejército.
+   */
+  private static boolean fitsState(Reader r, int count) {
+    boolean fits = true;
+    for (int i = 1; i <= count; i++) {
+      int type = r.readByte();
+      int weaponType = r.readByte();
+      r.readByte();
+      if (type != weaponType || r.readVarInt() != i) {
+        fits = false;
+      }
+      r.skipVarInts(4);
+    }
+    return fits;
+  }
+
+  private static Army readStateArmy(Reader r, String armyId, Clan clan, int count) {
+    ArmyState state = new ArmyState(armyId, clan, count);
+    for (int i = 0; i < count; i++) {
+      WarriorType type = warriorType(r.readByte());
+      r.readByte();
+      int elements = r.readByte();
+      r.readVarInt();
+      int health = r.readVarInt();
+      int shield = r.readVarInt();
+      int strength = r.readVarInt();
+      int damage = r.readVarInt();
+      state.add(type, health, shield, strength, element(elements >>> 4), damage, element(elements & 0xF));
+    }
+    return state.toArmy();
+  }
+
+  private static IWarrior readWarrior(Reader r, String armyId, Clan clan) {
+    WarriorType type = warriorType(r.readByte());
+    WarriorType weaponType = warriorType(r.readByte());
+    int elements = r.readByte();
+    int number = r.readVarInt();
+    int health = r.readVarInt();
+    int shield = r.readVarInt();
+    int strength = r.readVarInt();
+    int damage = r.readVarInt();
+    Element element = element(elements >>> 4);
+    Element weaponElement = element(elements & 0xF);
+
+    IWeapon weapon = switch (weaponType) {
+      case RANGED -> new RangedWeapon(damage, weaponElement);
+      case MAGIC -> new MagicWeapon(damage, weaponElement);
+      default -> new MeleeWeapon(damage, weaponElement);
+    };
+    String name = armyId + number;
+    IWarrior warrior = switch (type) {
+      case RANGED -> new RangedWarrior(name, health, shield, strength, element, weapon);
+      case MAGIC -> new MagicWarrior(name, health, shield, strength, element, weapon);
+      default -> new MeleeWarrior(name, health, shield, strength, element, weapon);
+    };
+    warrior.setArmyId(armyId);
+    warrior.setNumber(number);
+    warrior.setClan(clan);
+    return warrior;
+  }
+
+  private static WarriorType warriorType(int ordinal) {
+    if (ordinal >= WARRIOR_TYPES) {
+      throw new IllegalArgumentException("Tipo de guerrero desconocido: " + ordinal);
+    }
+    return WarriorType.fromOrdinal(ordinal);
+  }
+
+  private static Element element(int ordinal) {
+    if (ordinal >= ELEMENTS.length) {
+      throw new IllegalArgumentException("Elemento desconocido: " + ordinal);
+    }
+    return ELEMENTS[ordinal];
+  }
+
+  private static final class Writer {
+    private byte[] buf;
+    private int pos;
+
+    Writer(int capacity) {
+      buf = new byte[capacity];
+    }
+
+    private void ensure(int n) {
+      if (pos + n > buf.length) {
+        buf = Arrays.copyOf(buf, Math.max(buf.length * 2, pos + n));
+      }
+    }
+
+    void writeByte(int b) {
+      ensure(1);
+      buf[pos++] = (byte) b;
+    }
+
+    void writeInt(int v) {
+      ensure(4);
+      buf[pos++] = (byte) (v >>> 24);
+      buf[pos++] = (byte) (v >>> 16);
+      buf[pos++] = (byte) (v >>> 8);
+      buf[pos++] = (byte) v;
+    }
+
+    // Enteros no negativos; un negativo ocuparía 5 bytes
+    void writeVarInt(int v) {
+      ensure(5);
+      while ((v & ~0x7F) != 0) {
+        buf[pos++] = (byte) ((v & 0x7F) | 0x80);
+        v >>>= 7;
+      }
+      buf[pos++] = (byte) v;
+    }
+
+    void writeString(String s) {
+      byte[] bytes = (s != null ? s : "").getBytes(StandardCharsets.UTF_8);
+      writeVarInt(bytes.length);
+      ensure(bytes.length);
+      System.arraycopy(bytes, 0, buf, pos, bytes.length);
+      pos += bytes.length;
+    }
+
+    byte[] toBytes() {
+      return Arrays.copyOf(buf, pos);
+    }
+  }
+
+  private static final class Reader {
+    private final byte[] buf;
+    private int pos;
+
+    Reader(byte[] buf) {
+      this.buf = buf;
+    }
+
+    int readByte() {
+      return buf[pos++] & 0xFF;
+    }
+
+    int readInt() {
+      return readByte() << 24 | readByte() << 16 | readByte() << 8 | readByte();
+    }
+
+    int readVarInt() {
+      int v = 0;
+      for (int shift = 0; shift < 35; shift += 7) {
+        int b = readByte();
+        v |= (b & 0x7F) << shift;
+        if ((b & 0x80) == 0) return v;
+      }
+      throw new IllegalArgumentException("Varint demasiado largo en CLAN_CONFIG");
+    }
+
+    void skipVarInts(int n) {
+      for (int i = 0; i < n; i++) {
+        readVarInt();
+      }
+    }
+
+    // Cantidad de elementos; no puede haber más que bytes quedan
+    int readCount() {
+      int n = readVarInt();
+      if (n < 0 || n > buf.length - pos) {
+        throw new IllegalArgumentException("Cantidad inválida en CLAN_CONFIG: " + n);
+      }
+      return n;
+    }
+
+    String readString() {
+      int len = readCount();
+      String s = new String(buf, pos, len, StandardCharsets.UTF_8);
+      pos += len;
+      return s;
+    }
+  }
+}
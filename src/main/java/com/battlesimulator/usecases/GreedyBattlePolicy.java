@@ -0,0 +1,143 @@
+package com.battlesimulator.usecases;
+
+import com.battlesimulator.domain.Army;
+import com.battlesimulator.domain.CombatRules;
+import com.battlesimulator.domain.IWarrior;
+import com.battlesimulator.domain.Position;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Política por defecto: ataca al enemigo en rango con mejor multiplicador
+ * (a igualdad, el de menos vida); si nadie tiene a tiro, acerca un guerrero
+ * una casilla hacia un enemigo.
+ */
+public class GreedyBattlePolicy implements BattlePolicy {
+  // Guerreros propios evaluados por turno; acota el coste en ejércitos grandes
+  private static final int CANDIDATES_PER_TURN = 16;
+  // Por encima de este tamaño se busca en el tablero en lugar de recorrer la lista enemiga
+  private static final int LIST_SCAN_LIMIT = 256;
+
+  @Override
+  public BattleAction nextAction(InteractiveBattle battle, Army own, Army enemy, Random rand) {
+    int count = own.getWarriorCount();
+    if (count == 0) return BattleAction.pass();
+
+    boolean scanGrid = enemy.getWarriorCount() > LIST_SCAN_LIMIT;
+    int start = rand.nextInt(count);
+    Target best = new Target();
+    IWarrior firstMover = null;
+    int evaluated = 0;
+
+    for (int i = 0; i < count && evaluated < CANDIDATES_PER_TURN; i++) {
+      IWarrior w = own.getWarrior((start + i) % count);
+      if (!w.isAlive() || w.getPosition() == null) continue;
+      evaluated++;
+      if (firstMover == null) firstMover = w;
+
+      if (scanGrid) {
+        scanGridTargets(battle, w, enemy, best);
+      } else {
+        for (int j = 0; j < enemy.getWarriorCount(); j++) {
+          best.offer(w, enemy.getWarrior(j));
+        }
+      }
+    }
+
+    if (best.attacker != null) {
+      return BattleAction.attack(best.attacker, best.target);
+    }
+    if (firstMover == null) {
+      return BattleAction.pass();
+    }
+    Position goal = scanGrid ? anyEnemyPosition(enemy, rand) : nearestEnemyPosition(firstMover, enemy);
+    return approach(battle, firstMover, goal);
+  }
+
+  /**
+   * Recorre el rombo de casillas al alcance del atacante.
+   */
+  private void scanGridTargets(InteractiveBattle battle, IWarrior attacker, Army enemy, Target best) {
+    Position from = attacker.getPosition();
+    int range = CombatRules.getMaxRange(attacker.getType());
+    for (int dr = -range; dr <= range; dr++) {
+      int span = range - Math.abs(dr);
+      for (int dc = -span; dc <= span; dc++) {
+        IWarrior t = battle.getWarriorAt(from.row + dr, from.col + dc);
+        if (t != null && t.getArmy() == enemy) {
+          best.offer(attacker, t);
+        }
+      }
+    }
+  }
+
+  private Position nearestEnemyPosition(IWarrior mover, Army enemy) {
+    Position from = mover.getPosition();
+    Position goal = null;
+    int goalDistance = Integer.MAX_VALUE;
+    for (int j = 0; j < enemy.getWarriorCount(); j++) {
+      IWarrior t = enemy.getWarrior(j);
+      if (!t.isAlive() || t.getPosition() == null) continue;
+      int d = CombatRules.calculateDistance(from, t.getPosition());
+      if (d < goalDistance) {
+        goalDistance = d;
+        goal = t.getPosition();
+      }
+    }
+    return goal;
+  }
+
+  /**
+   * En ejércitos grandes basta con dirigirse a cualquier enemigo vivo: se toma el
+   * primero a partir de un índice aleatorio, O(1) esperado mientras queden muchos.
+   */
+  private Position anyEnemyPosition(Army enemy, Random rand) {
+    int count = enemy.getWarriorCount();
+    int start = rand.nextInt(count);
+    for (int j = 0; j < count; j++) {
+      IWarrior t = enemy.getWarrior((start + j) % count);
+      if (t.isAlive() && t.getPosition() != null) return t.getPosition();
+    }
+    return null;
+  }
+
+  /**
+   * Mueve al guerrero una casilla hacia el objetivo, siempre que la distancia
+   * realmente disminuya.
+   */
+  private BattleAction approach(InteractiveBattle battle, IWarrior mover, Position goal) {
+    if (goal == null) return BattleAction.pass();
+
+    Position bestStep = null;
+    int bestDistance = CombatRules.calculateDistance(mover.getPosition(), goal);
+    List<Position> steps = battle.getValidMovePositions(mover);
+    for (Position step : steps) {
+      int d = CombatRules.calculateDistance(step, goal);
+      if (d < bestDistance) {
+        bestDistance = d;
+        bestStep = step;
+      }
+    }
+    return bestStep != null ? BattleAction.move(mover, bestStep) : BattleAction.pass();
+  }
+
+  /**
+   * Mejor pareja atacante/objetivo vista hasta ahora en el turno.
+   */
+  private static final class Target {
+    IWarrior attacker;
+    IWarrior target;
+    double multiplier;
+
+    void offer(IWarrior w, IWarrior t) {
+      if (!t.isAlive() || t.getPosition() == null) return;
+      double mult = CombatRules.getDistanceMultiplier(w, t);
+      if (mult <= 0) return;
+      if (mult > multiplier || (mult == multiplier && t.getHealth() < target.getHealth())) {
+        multiplier = mult;
+        attacker = w;
+        target = t;
+      }
+    }
+  }
+}
@@ -4,18 +4,67 @@ import com.battlesimulator.domain.*;
 import java.util.*;
 
 public class InteractiveBattle {
-  private static final int GRID_SIZE = 12;
+  public static final int DEFAULT_GRID_SIZE = 12;
+  private static final int EMPTY = -1;
+  // Campos por guerrero en encodeDelta: slot, casilla, vida, escudo, nivel del arma
+  private static final int ENTRY_FIELDS = 5;
+  private static final int[][] DIRECTIONS = {{-1, 0}, {1, 0}, {0, -1}, {0, 1}, {-1, -1}, {-1, 1}, {1, -1}, {1, 1}};
   private final Army army1;
   private final Army army2;
   private Army currentTurnArmy;
-  private final Map<Position, IWarrior> gridPositions = new HashMap<>();
+  private final int gridSize;
+  // Tablero plano: cells[row * gridSize + col] = slot del guerrero o EMPTY
+  private final int[] cells;
+  // Slots compactos: primero los guerreros de army1 y luego los de army2
+  private final IWarrior[] slots;
+  // Versión del estado = turnos jugados; ambos jugadores aplican las mismas
+  // acciones, así que coincide en los dos lados
+  private long version;
+  // Versión en la que cambió por última vez cada slot (casilla, vida, escudo o arma)
+  private final long[] changedAt;
+  // Hash incremental: XOR de la huella de cada slot. Los slots que cambian en
+  // el turno en curso se sacan antes del cambio y se vuelven a sumar al cerrarlo
+  private long slotsHash;
+  private final boolean[] pending;
+  private final int[] pendingSlots;
+  private int pendingCount;
   private final List<String> logs = new ArrayList<>();
   private Army winner;
   private long randomSeed = System.currentTimeMillis(); // Semilla para sincronización
+  private boolean loggingEnabled = true; // Las simulaciones sin interfaz lo desactivan
 
   public InteractiveBattle(Army army1, Army army2) {
+    this(army1, army2, DEFAULT_GRID_SIZE);
+  }
+
+  public InteractiveBattle(Army army1, Army army2, int gridSize) {
     this.army1 = army1;
     this.army2 = army2;
+    this.gridSize = gridSize;
+    this.cells = new int[gridSize * gridSize];
+    Arrays.fill(cells, EMPTY);
+    int n1 = army1.getWarriorCount();
+    int n2 = army2.getWarriorCount();
+    this.slots = new IWarrior[n1 + n2];
+    this.changedAt = new long[n1 + n2];
+    this.pending = new boolean[n1 + n2];
+    this.pendingSlots = new int[n1 + n2];
+    for (int i = 0; i < n1; i++) {
+      slots[i] = army1.getWarrior(i);
+    }
+    for (int i = 0; i < n2; i++) {
+      slots[n1 + i] = army2.getWarrior(i);
+    }
+    rebuildHash();
+  }
+
+  /**
+   * Lado mínimo del tablero (nunca menor que el por defecto) para que la mitad
+   * de las casillas quede libre con el número de guerreros dado.
+   */
+  public static int gridSizeFor(int warriorCount) {
+    int size = (int) Math.ceil(Math.sqrt(2.0 * warriorCount));
+    return Math.max(DEFAULT_GRID_SIZE, size);
   }
   
   public void setRandomSeed(long seed) {
@@ -25,6 +74,14 @@ public class InteractiveBattle {
   public long getRandomSeed() {
     return randomSeed;
   }
+  
+  public void setLoggingEnabled(boolean loggingEnabled) {
+    this.loggingEnabled = loggingEnabled;
+  }
+  
+  public boolean isLoggingEnabled() {
+    return loggingEnabled;
+  }
 
   public Army getArmy1() {
     return army1;
@@ -35,47 +92,64 @@ public class InteractiveBattle {
   }
   
   public int getGridSize() {
-    return GRID_SIZE;
+    return gridSize;
   }
 
   public void initBattle() {
-    gridPositions.clear();
+    Arrays.fill(cells, EMPTY);
     logs.clear();
     
     // Usar Random con semilla fija para que ambos jugadores tengan las mismas posiciones
     Random rand = new Random(randomSeed);
     
-    List<IWarrior> allWarriors = new ArrayList<>();
-    allWarriors.addAll(army1.getWarriors());
-    allWarriors.addAll(army2.getWarriors());
-    List<Position> positions = new ArrayList<>();
-    for (int r = 0; r < GRID_SIZE; r++) {
-      for (int c = 0; c < GRID_SIZE; c++) {
-        positions.add(new Position(r, c));
+    int[] alive = new int[slots.length];
+    int aliveCount = 0;
+    for (int slot = 0; slot < slots.length; slot++) {
+      if (slots[slot].isAlive()) {
+        alive[aliveCount++] = slot;
+      } else {
+        slots[slot].setPosition(null);
       }
     }
     
-    // Usar la misma semilla para shuffle
-    Collections.shuffle(allWarriors, rand);
-    Collections.shuffle(positions, rand);
-    
-    int idx = 0;
-    for (IWarrior w : allWarriors) {
-      if (idx >= positions.size())
-        break;
-      Position p = positions.get(idx++);
-      w.setPosition(p);
-      gridPositions.put(p, w);
+    // Fisher-Yates parcial con la misma semilla: guerreros y casillas
+    for (int i = aliveCount - 1; i > 0; i--) {
+      int j = rand.nextInt(i + 1);
+      int tmp = alive[i];
+      alive[i] = alive[j];
+      alive[j] = tmp;
+    }
+    int[] order = new int[cells.length];
+    for (int i = 0; i < order.length; i++) {
+      order[i] = i;
+    }
+    int placed = Math.min(aliveCount, cells.length);
+    for (int i = 0; i < placed; i++) {
+      int j = i + rand.nextInt(order.length - i);
+      int tmp = order[i];
+      order[i] = order[j];
+      order[j] = tmp;
+      int slot = alive[i];
+      cells[order[i]] = slot;
+      slots[slot].setPosition(new Position(order[i] / gridSize, order[i] % gridSize));
+    }
+    for (int i = placed; i < aliveCount; i++) {
+      slots[alive[i]].setPosition(null);
     }
     currentTurnArmy = army1;
-    addLog("Batalla iniciada entre " + army1.getId() + " (" + army1.getClan().getName() + ") y " + army2.getId() + " ("
-        + army2.getClan().getName() + "). Turno inicial: " + currentTurnArmy.getId());
+    version = 0;
+    Arrays.fill(changedAt, 0);
+    rebuildHash();
+    if (loggingEnabled) {
+      addLog("Batalla iniciada entre " + army1.getId() + " (" + army1.getClan().getName() + ") y " + army2.getId() + " ("
+          + army2.getClan().getName() + "). Turno inicial: " + currentTurnArmy.getId());
+    }
     winner = null;
   }
 
   public DamageReport performAttack(IWarrior attacker, IWarrior target) {
     Army enemyArmy = currentTurnArmy == army1 ? army2 : army1;
-    if (!currentTurnArmy.getWarriors().contains(attacker) || !enemyArmy.getWarriors().contains(target)
+    if (attacker.getArmy() != currentTurnArmy || target.getArmy() != enemyArmy
         || !attacker.isAlive() || !target.isAlive()) {
       throw new IllegalArgumentException("Ataque inválido: turno o guerreros incorrectos.");
     }
@@ -85,31 +159,40 @@ public class InteractiveBattle {
     Position targetPos = target.getPosition();
     
     // Realizar el ataque
+    markChanged(slotOf(target));
     DamageReport dr = attacker.attack(target);
     
     // Si el objetivo murió, mover el atacante a su posición
     if (dr.isKilled()) {
-      System.out.println("[BATTLE] Kill detectado: " + attacker.getId() + " mató a " + target.getId());
-      System.out.println("[BATTLE] attackerPos=" + attackerPos + ", targetPos=" + targetPos);
+      if (loggingEnabled) {
+        System.out.println("[BATTLE] Kill detectado: " + attacker.getId() + " mató a " + target.getId());
+        System.out.println("[BATTLE] attackerPos=" + attackerPos + ", targetPos=" + targetPos);
+      }
       
       // 1. Remover atacante de su posición actual
-      gridPositions.remove(attackerPos);
+      int attackerSlot = slotOf(attacker);
+      markChanged(attackerSlot);
+      clearCell(attackerPos);
       
       // 2. Remover objetivo muerto del grid
-      gridPositions.remove(targetPos);
+      clearCell(targetPos);
       
       // 3. Limpiar posición del muerto
       target.setPosition(null);
       
       // 4. Mover atacante a la posición del objetivo
       attacker.setPosition(targetPos);
-      gridPositions.put(targetPos, attacker);
+      cells[cellIndex(targetPos)] = attackerSlot;
       
-      System.out.println("[BATTLE] " + attacker.getId() + " movido de " + attackerPos + " a " + targetPos);
-      System.out.println("[BATTLE] Grid ahora tiene en targetPos: " + (gridPositions.get(targetPos) != null ? gridPositions.get(targetPos).getId() : "null"));
+      if (loggingEnabled) {
+        System.out.println("[BATTLE] " + attacker.getId() + " movido de " + attackerPos + " a " + targetPos);
+        System.out.println("[BATTLE] Grid ahora tiene en targetPos: " + (getWarriorAt(targetPos) != null ? getWarriorAt(targetPos).getId() : "null"));
+      }
     }
     
-    addLog(generateLogLine(attacker, target, dr));
+    if (loggingEnabled) {
+      addLog(generateLogLine(attacker, target, dr));
+    }
     nextTurn();
     checkBattleOver();
     return dr;
@@ -121,7 +204,7 @@ public class InteractiveBattle {
    */
   public boolean performMove(IWarrior warrior, Position newPosition) {
     // Verificar que es el turno correcto
-    if (!currentTurnArmy.getWarriors().contains(warrior) || !warrior.isAlive()) {
+    if (warrior.getArmy() != currentTurnArmy || !warrior.isAlive()) {
       throw new IllegalArgumentException("Movimiento inválido: no es tu turno o guerrero incorrecto.");
     }
     
@@ -138,25 +221,27 @@ public class InteractiveBattle {
     }
     
     // Verificar que la posición destino está dentro del grid
-    if (newPosition.row < 0 || newPosition.row >= GRID_SIZE || 
-        newPosition.col < 0 || newPosition.col >= GRID_SIZE) {
+    if (!isInside(newPosition.row, newPosition.col)) {
       throw new IllegalArgumentException("Posición fuera del tablero.");
     }
     
     // Verificar que la casilla destino está vacía
-    if (gridPositions.containsKey(newPosition)) {
+    if (cells[cellIndex(newPosition)] != EMPTY) {
       throw new IllegalArgumentException("La casilla está ocupada.");
     }
     
     // Realizar el movimiento
-    gridPositions.remove(currentPos);
+    int slot = slotOf(warrior);
+    markChanged(slot);
+    clearCell(currentPos);
     warrior.setPosition(newPosition);
-    gridPositions.put(newPosition, warrior);
-    
-    addLog("🚶 " + warrior.getId() + " se mueve de (" + currentPos.row + "," + currentPos.col + 
-           ") a (" + newPosition.row + "," + newPosition.col + ")");
+    cells[cellIndex(newPosition)] = slot;
     
-    System.out.println("[BATTLE] Movimiento: " + warrior.getId() + " de " + currentPos + " a " + newPosition);
+    if (loggingEnabled) {
+      addLog("🚶 " + warrior.getId() + " se mueve de (" + currentPos.row + "," + currentPos.col + 
+             ") a (" + newPosition.row + "," + newPosition.col + ")");
+      System.out.println("[BATTLE] Movimiento: " + warrior.getId() + " de " + currentPos + " a " + newPosition);
+    }
     
     nextTurn();
     return true;
@@ -174,12 +259,8 @@ public class InteractiveBattle {
     int colDiff = Math.abs(currentPos.col - targetPos.col);
     if (rowDiff > 1 || colDiff > 1 || (rowDiff == 0 && colDiff == 0)) return false;
     
-    // Verificar dentro del grid
-    if (targetPos.row < 0 || targetPos.row >= GRID_SIZE || 
-        targetPos.col < 0 || targetPos.col >= GRID_SIZE) return false;
-    
-    // Verificar casilla vacía
-    return !gridPositions.containsKey(targetPos);
+    // Verificar dentro del grid y casilla vacía
+    return isInside(targetPos.row, targetPos.col) && cells[cellIndex(targetPos)] == EMPTY;
   }
   
   /**
@@ -191,12 +272,11 @@ public class InteractiveBattle {
     if (currentPos == null) return validPositions;
     
     // Las 8 direcciones (cardinales + diagonales)
-    int[][] directions = {{-1, 0}, {1, 0}, {0, -1}, {0, 1}, {-1, -1}, {-1, 1}, {1, -1}, {1, 1}};
-    
-    for (int[] dir : directions) {
-      Position newPos = new Position(currentPos.row + dir[0], currentPos.col + dir[1]);
-      if (isValidMoveTarget(warrior, newPos)) {
-        validPositions.add(newPos);
+    for (int[] dir : DIRECTIONS) {
+      int row = currentPos.row + dir[0];
+      int col = currentPos.col + dir[1];
+      if (isInside(row, col) && cells[row * gridSize + col] == EMPTY) {
+        validPositions.add(new Position(row, col));
       }
     }
     
@@ -223,7 +303,44 @@ public class InteractiveBattle {
   }
 
   public void nextTurn() {
+    foldPending();
     currentTurnArmy = (currentTurnArmy == army1 ? army2 : army1);
+    version++;
+  }
+
+  public long getVersion() {
+    return version;
+  }
+
+  // El cambio forma parte del turno en curso, que termina en version + 1.
+  // Se llama ANTES de modificar el guerrero: su huella antigua sale del hash
+  private void markChanged(int slot) {
+    changedAt[slot] = version + 1;
+    if (!pending[slot]) {
+      pending[slot] = true;
+      pendingSlots[pendingCount++] = slot;
+      slotsHash ^= slotHash(slot);
+    }
+  }
+
+  private void foldPending() {
+    for (int i = 0; i < pendingCount; i++) {
+      int slot = pendingSlots[i];
+      slotsHash ^= slotHash(slot);
+      pending[slot] = false;
+    }
+    pendingCount = 0;
+  }
+
+  private void rebuildHash() {
+    for (int i = 0; i < pendingCount; i++) {
+      pending[pendingSlots[i]] = false;
+    }
+    pendingCount = 0;
+    slotsHash = 0;
+    for (int slot = 0; slot < slots.length; slot++) {
+      slotsHash ^= slotHash(slot);
+    }
   }
 
   private void checkBattleOver() {
@@ -234,12 +351,55 @@ public class InteractiveBattle {
     }
   }
 
+  // Cierra la batalla sin que un ejército caiga (límite de turnos en simulación)
+  void declareWinner(Army army) {
+    winner = army;
+  }
+
   public IWarrior getWarriorAt(Position p) {
-    return gridPositions.get(p);
+    return p == null ? null : getWarriorAt(p.row, p.col);
+  }
+
+  /**
+   * Consulta directa al tablero, sin crear objetos Position.
+   */
+  public IWarrior getWarriorAt(int row, int col) {
+    if (!isInside(row, col)) return null;
+    int slot = cells[row * gridSize + col];
+    return slot == EMPTY ? null : slots[slot];
+  }
+
+  public boolean isInside(int row, int col) {
+    return row >= 0 && row < gridSize && col >= 0 && col < gridSize;
+  }
+
+  private int cellIndex(Position p) {
+    return p.row * gridSize + p.col;
+  }
+
+  private void clearCell(Position p) {
+    if (p != null && isInside(p.row, p.col)) {
+      cells[cellIndex(p)] = EMPTY;
+    }
+  }
+
+  /**
+   * Slot del guerrero: se lee de su casilla si está en el tablero y, si no, se busca.
+   */
+  private int slotOf(IWarrior warrior) {
+    Position p = warrior.getPosition();
+    if (p != null && isInside(p.row, p.col)) {
+      int slot = cells[cellIndex(p)];
+      if (slot != EMPTY && slots[slot] == warrior) return slot;
+    }
+    for (int slot = 0; slot < slots.length; slot++) {
+      if (slots[slot] == warrior) return slot;
+    }
+    throw new IllegalArgumentException("El guerrero no pertenece a esta batalla.");
   }
 
   public boolean isOwnWarrior(IWarrior w) {
-    return currentTurnArmy.getWarriors().contains(w);
+    return w.isAlive() && w.getArmy() == currentTurnArmy;
   }
 
   public List<IWarrior> getCurrentWarriors() {
@@ -267,59 +427,208 @@ public class InteractiveBattle {
   }
   
   /**
-   * Serializa las posiciones actuales de todos los guerreros.
-   * Formato: warriorId:row:col;warriorId:row:col;...
+   * Cambios desde la versión indicada, como campos separados por '|':
+   * desde|versión|turno|slot|casilla|vida|escudo|nivelArma|slot|casilla|...
+   * La casilla es row * gridSize + col, o -1 fuera del tablero; el turno es
+   * 1 o 2 según el ejército. Solo van los slots que cambiaron, así que el
+   * tamaño depende de lo ocurrido y no del tamaño de los ejércitos.
    */
-  public String serializePositions() {
+  public String encodeDelta(long since) {
     StringBuilder sb = new StringBuilder();
-    for (Map.Entry<Position, IWarrior> entry : gridPositions.entrySet()) {
-      Position pos = entry.getKey();
-      IWarrior w = entry.getValue();
-      if (sb.length() > 0) sb.append(";");
-      sb.append(w.getId()).append(":").append(pos.row).append(":").append(pos.col);
+    sb.append(since).append('|').append(version).append('|').append(currentTurnArmy == army2 ? 2 : 1);
+    for (int slot = 0; slot < slots.length; slot++) {
+      if (changedAt[slot] <= since) continue;
+      IWarrior w = slots[slot];
+      Position p = w.getPosition();
+      sb.append('|').append(slot)
+        .append('|').append(p != null ? cellIndex(p) : -1)
+        .append('|').append(w.getHealth())
+        .append('|').append(w.getShield())
+        .append('|').append(w.getWeapon().getLevel());
     }
     return sb.toString();
   }
-  
+
   /**
-   * Restaura las posiciones de todos los guerreros desde una cadena serializada.
+   * Estado completo: un delta desde -1 que incluye todos los slots.
    */
-  public void deserializePositions(String positionsData) {
-    gridPositions.clear();
-    if (positionsData == null || positionsData.isEmpty()) return;
-    
-    String[] entries = positionsData.split(";");
-    for (String entry : entries) {
-      String[] parts = entry.split(":");
-      if (parts.length != 3) continue;
-      
-      String warriorId = parts[0];
-      int row = Integer.parseInt(parts[1]);
-      int col = Integer.parseInt(parts[2]);
-      
-      IWarrior warrior = findWarriorById(warriorId);
-      if (warrior != null) {
-        Position pos = new Position(row, col);
-        warrior.setPosition(pos);
-        gridPositions.put(pos, warrior);
+  public String encodeSnapshot() {
+    return encodeDelta(-1);
+  }
+
+  /**
+   * Une dos deltas consecutivos de la misma batalla en uno solo que produce
+   * el mismo estado que aplicarlos en orden. Devuelve null si no se pueden
+   * unir porque entre los dos faltan versiones.
+   */
+  public static String mergeDeltas(String older, String newer) {
+    String[] a = older.split("\\|");
+    String[] b = newer.split("\\|");
+    long olderSince = Long.parseLong(a[0]);
+    long olderVersion = Long.parseLong(a[1]);
+    long newerSince = Long.parseLong(b[0]);
+    long newerVersion = Long.parseLong(b[1]);
+    // El nuevo ya incluye todo lo del anterior
+    if (newerSince < 0 || (olderSince >= 0 && newerSince <= olderSince)) return newer;
+    if (newerSince > olderVersion || newerVersion < olderVersion) return null;
+    // Por slot, los valores del delta nuevo sustituyen a los del anterior
+    Map<Integer, String[]> entries = new TreeMap<>();
+    for (String[] f : new String[][] {a, b}) {
+      for (int i = 3; i + ENTRY_FIELDS <= f.length; i += ENTRY_FIELDS) {
+        entries.put(Integer.parseInt(f[i]), Arrays.copyOfRange(f, i, i + ENTRY_FIELDS));
       }
     }
-    
-    // Establecer turno inicial
-    currentTurnArmy = army1;
+    StringBuilder sb = new StringBuilder();
+    sb.append(olderSince).append('|').append(newerVersion).append('|').append(b[2]);
+    for (String[] entry : entries.values()) {
+      for (String field : entry) {
+        sb.append('|').append(field);
+      }
+    }
+    return sb.toString();
+  }
+
+  /**
+   * Aplica un delta de encodeDelta (o una instantánea). Devuelve false si la
+   * versión local es anterior a la base del delta: faltan turnos intermedios
+   * y hace falta una instantánea. Un delta ya superado se ignora; uno de la
+   * misma versión se reaplica (los valores son absolutos) y corrige diferencias.
+   */
+  public boolean applyDelta(String data) {
+    String[] f = data.split("\\|");
+    if (f.length < 3 || (f.length - 3) % ENTRY_FIELDS != 0) {
+      throw new IllegalArgumentException("Delta de batalla mal formado: " + f.length + " campos");
+    }
+    long since = Long.parseLong(f[0]);
+    long target = Long.parseLong(f[1]);
+    boolean snapshot = since < 0;
+    if (!snapshot && since > version) return false;
+    if (!snapshot && target < version) return true;
+
+    int entries = (f.length - 3) / ENTRY_FIELDS;
+    int[] entrySlots = new int[entries];
+    int[] entryCells = new int[entries];
+    for (int e = 0; e < entries; e++) {
+      int slot = Integer.parseInt(f[3 + e * ENTRY_FIELDS]);
+      int cell = Integer.parseInt(f[4 + e * ENTRY_FIELDS]);
+      if (slot < 0 || slot >= slots.length || cell < -1 || cell >= cells.length) {
+        throw new IllegalArgumentException("Delta de batalla fuera de rango: slot " + slot + ", casilla " + cell);
+      }
+      entrySlots[e] = slot;
+      entryCells[e] = cell;
+    }
+    foldPending();
+    if (snapshot) {
+      Arrays.fill(cells, EMPTY);
+    } else {
+      // Primero vaciar las casillas antiguas: un guerrero puede ocupar la que otro deja
+      for (int slot : entrySlots) {
+        slotsHash ^= slotHash(slot);
+        Position p = slots[slot].getPosition();
+        if (p != null && isInside(p.row, p.col) && cells[cellIndex(p)] == slot) {
+          clearCell(p);
+        }
+      }
+    }
+    for (int e = 0; e < entries; e++) {
+      int slot = entrySlots[e];
+      int cell = entryCells[e];
+      IWarrior w = slots[slot];
+      w.setHealth(Integer.parseInt(f[5 + e * ENTRY_FIELDS]));
+      w.setShield(Integer.parseInt(f[6 + e * ENTRY_FIELDS]));
+      setWeaponLevel(w.getWeapon(), Integer.parseInt(f[7 + e * ENTRY_FIELDS]));
+      if (cell >= 0) {
+        w.setPosition(new Position(cell / gridSize, cell % gridSize));
+        cells[cell] = slot;
+      } else {
+        w.setPosition(null);
+      }
+      changedAt[slot] = target;
+      if (!snapshot) {
+        slotsHash ^= slotHash(slot);
+      }
+    }
+    if (snapshot) {
+      rebuildHash();
+    }
+    version = target;
+    currentTurnArmy = "2".equals(f[2]) ? army2 : army1;
+    if (snapshot) {
+      winner = null;
+    }
+    checkBattleOver();
+    return true;
+  }
+
+  private static void setWeaponLevel(IWeapon weapon, int level) {
+    if (weapon.getLevel() == level) return;
+    weapon.reset();
+    for (int l = 1; l < level; l++) {
+      weapon.upgrade();
+    }
+  }
+
+  /**
+   * Huella de 64 bits del estado (versión, turno, casilla, vida, escudo y
+   * arma de cada guerrero). Dos jugadores con el mismo valor tienen la misma
+   * batalla sin necesidad de comparar el estado completo. Se mantiene de forma
+   * incremental: cada ataque o movimiento solo rehace la huella de los slots
+   * que tocó.
+   */
+  public long getStateHash() {
+    foldPending();
+    return slotsHash ^ mix(version * 31 + (currentTurnArmy == army2 ? 2 : 1));
+  }
+
+  /**
+   * El mismo valor que getStateHash, recalculado desde cero (para comprobar).
+   */
+  public long computeStateHash() {
+    long h = mix(version * 31 + (currentTurnArmy == army2 ? 2 : 1));
+    for (int slot = 0; slot < slots.length; slot++) {
+      h ^= slotHash(slot);
+    }
+    return h;
+  }
+
+  private long slotHash(int slot) {
+    IWarrior w = slots[slot];
+    Position p = w.getPosition();
+    long v = slot;
+    v = v * 31 + (p != null ? cellIndex(p) : -1);
+    v = v * 31 + w.getHealth();
+    v = v * 31 + w.getShield();
+    v = v * 31 + w.getWeapon().getLevel();
+    return mix(v);
+  }
+
+  // Finalizador de SplitMix64
+  static long mix(long z) {
+    z += 0x9E3779B97F4A7C15L;
+    z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+    z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+    return z ^ (z >>> 31);
   }
 
   public String getTurnDescription() {
     return "Turno: Ejército " + currentTurnArmy.getId() + " (" + currentTurnArmy.getClan().getName() + ")";
   }
   
+  /**
+   * Índice estable del guerrero en esta batalla; ambos jugadores construyen la
+   * batalla con los mismos ejércitos en el mismo orden, así que coincide en los
+   * dos lados y se puede enviar en lugar del id completo.
+   */
+  public int getWarriorSlot(IWarrior warrior) {
+    return slotOf(warrior);
+  }
+
+  public IWarrior getWarriorBySlot(int slot) {
+    return slot >= 0 && slot < slots.length ? slots[slot] : null;
+  }
+  
   public IWarrior findWarriorById(String warriorId) {
-    for (IWarrior w : army1.getAllWarriors()) {
-      if (w.getId().equals(warriorId)) {
-        return w;
-      }
-    }
-    for (IWarrior w : army2.getAllWarriors()) {
+    for (IWarrior w : slots) {
       if (w.getId().equals(warriorId)) {
         return w;
       }
@@ -329,21 +638,39 @@ public class InteractiveBattle {
   
   // Método para sincronizar movimiento de guerrero (usado en multijugador)
   public void moveWarrior(IWarrior warrior, Position newPosition) {
+    int slot = slotOf(warrior);
+    markChanged(slot);
     Position oldPos = warrior.getPosition();
-    if (oldPos != null) {
-      gridPositions.remove(oldPos);
+    if (oldPos != null && isInside(oldPos.row, oldPos.col) && cells[cellIndex(oldPos)] == slot) {
+      clearCell(oldPos);
     }
     warrior.setPosition(newPosition);
-    gridPositions.put(newPosition, warrior);
+    cells[cellIndex(newPosition)] = slot;
+  }
+  
+  // Método para sincronizar el daño recibido (usado en multijugador)
+  // (los valores negativos indican que el mensaje no los trae)
+  public void syncDamage(IWarrior warrior, int health, int shield, int weaponLevel) {
+    markChanged(slotOf(warrior));
+    warrior.setHealth(health);
+    if (shield >= 0) {
+      warrior.setShield(shield);
+    }
+    if (weaponLevel > 0) {
+      setWeaponLevel(warrior.getWeapon(), weaponLevel);
+    }
   }
   
   // Método para eliminar un guerrero muerto del grid
   public void removeFromGrid(Position pos) {
-    if (pos != null) {
-      IWarrior removed = gridPositions.remove(pos);
+    if (pos != null && isInside(pos.row, pos.col)) {
+      int slot = cells[cellIndex(pos)];
+      IWarrior removed = getWarriorAt(pos);
+      clearCell(pos);
       if (removed != null) {
+        markChanged(slot);
         removed.setPosition(null);
-        System.out.println("[BATTLE] Eliminado del grid: " + removed.getId() + " de posición " + pos.row + "," + pos.col);
+        if (loggingEnabled) System.out.println("[BATTLE] Eliminado del grid: " + removed.getId() + " de posición " + pos.row + "," + pos.col);
       }
     }
   }
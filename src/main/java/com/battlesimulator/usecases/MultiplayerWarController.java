@@ -19,6 +19,9 @@ public class MultiplayerWarController extends JFrame {
   private final Clan clan2;
   private final GameClient client;
   private final boolean isHost;
+  // Este jugador empareja y sincroniza las batallas (host en modo relé); con
+  // el servidor autoritativo ambos jugadores solo aplican lo que llega
+  private final boolean simulatesWar;
   private final JTextArea warLogArea = new JTextArea();
   private final JLabel statusLabel1 = new JLabel();
   private final JLabel statusLabel2 = new JLabel();
@@ -27,6 +30,10 @@ public class MultiplayerWarController extends JFrame {
   private final List<InteractiveBattle> allBattles = new ArrayList<>();
   private final Map<InteractiveBattle, String> battleWinners = new HashMap<>();
   private final Map<InteractiveBattle, MultiplayerBattleFrame> battleFrames = new HashMap<>();
+  // Quien simula: última versión de cada batalla enviada al otro jugador
+  private final Map<InteractiveBattle, Long> syncedVersions = new HashMap<>();
+  // Quien no simula: SYNC_REQUEST enviado y aún sin respuesta
+  private boolean syncRequested;
   private final JTextArea chatArea = new JTextArea();
   private final JTextField chatInput = new JTextField();
   private final User currentUser;
@@ -37,18 +44,28 @@ public class MultiplayerWarController extends JFrame {
   }
   
   public MultiplayerWarController(Clan clan1, Clan clan2, GameClient client, boolean isHost, User currentUser, String username) {
+    this(clan1, clan2, client, isHost, isHost, currentUser, username);
+  }
+
+  public MultiplayerWarController(Clan clan1, Clan clan2, GameClient client, boolean isHost, boolean simulatesWar,
+      User currentUser, String username) {
     this.clan1 = clan1;
     this.clan2 = clan2;
     this.client = client;
     this.isHost = isHost;
+    this.simulatesWar = simulatesWar;
     this.currentUser = currentUser;
     this.myUsername = username != null ? username : "Jugador";
     initUI();
     resetClans();
-    if (isHost) {
+    if (simulatesWar) {
       initializeBattles();
     }
     setupNetworkListeners();
+    if (!simulatesWar) {
+      // Al unirse, pedir el estado de todas las batallas en un solo mensaje
+      requestSync();
+    }
     
     // Mensaje inicial en el registro de guerra
     warLogArea.append("⚔️ GUERRA INICIADA: " + clan1.getName() + " vs " + clan2.getName() + "\n\n");
@@ -221,6 +238,10 @@ public class MultiplayerWarController extends JFrame {
           }
           break;
         case WAR_END:
+          if (!simulatesWar && currentUser != null) {
+            // Quien simula ya guardó el resultado al terminar la guerra
+            saveWarResult(clan1.getName().equals(message.getData()) ? clan1 : clan2);
+          }
           JOptionPane.showMessageDialog(MultiplayerWarController.this,
             "¡La guerra ha terminado! Ganador: " + message.getData(),
             "Fin de la Guerra", JOptionPane.INFORMATION_MESSAGE);
@@ -228,11 +249,29 @@ public class MultiplayerWarController extends JFrame {
         case BATTLE_END:
           warLogArea.append("Batalla finalizada. Ganador: " + message.getData() + "\n");
           break;
+        case TURN_END:
+          // Ignorar mis propios turnos
+          String turnSenderId = message.getPlayerId();
+          if (turnSenderId != null && client != null && turnSenderId.equals(client.getPlayerId())) {
+            break;
+          }
+          // La acción de este turno ya la aplicó la ventana de batalla
+          verifyRemoteTurn(message.getData());
+          break;
+        case SYNC_REQUEST:
+          if (simulatesWar) {
+            sendSyncResponse();
+          }
+          break;
+        case SYNC_RESPONSE:
+          if (!simulatesWar) {
+            handleSyncResponse(message.getData());
+          }
+          break;
         case BATTLE_UPDATE:
           // Actualizar lista de batallas para el cliente
           System.out.println("[" + (isHost ? "HOST" : "CLIENTE") + "] Recibido BATTLE_UPDATE: " + message.getData());
-          System.out.println("[" + (isHost ? "HOST" : "CLIENTE") + "] isHost=" + isHost + ", procesará: " + !isHost);
-          if (!isHost) {
+          if (!simulatesWar) {
             handleBattleUpdate(message.getData());
           } else {
             System.out.println("[HOST] Ignorando BATTLE_UPDATE propio");
@@ -263,25 +302,104 @@ public class MultiplayerWarController extends JFrame {
     allBattles.clear();
     battleWinners.clear();
     battleFrames.clear();
+    syncedVersions.clear();
     pairNewBattles(false); // false = no enviar a cliente durante inicialización
   }
   
   public void syncBattlesToClient() {
-    // Enviar todas las batallas existentes al cliente
-    if (client != null && isHost) {
+    // Enviar al cliente lo que cambió en cada batalla desde el último envío
+    if (client != null && simulatesWar) {
       System.out.println("[HOST] Sincronizando " + allBattles.size() + " batallas al cliente");
       for (int i = 0; i < allBattles.size(); i++) {
         InteractiveBattle battle = allBattles.get(i);
         if (battle != null) {
-          String battleData = serializeBattle(battle, i);
-          System.out.println("[HOST] Enviando BATTLE_UPDATE: " + battleData);
-          Message msg = new Message(Message.Type.BATTLE_UPDATE, battleData);
-          client.sendMessage(msg);
+          sendBattleUpdate(battle, i);
         }
       }
     }
   }
 
+  /**
+   * Llamado por la ventana de batalla tras cada acción (propia o remota): el
+   * host en modo relé envía el delta del turno para que el cliente corrija
+   * cualquier diferencia (por ejemplo el escudo) sin reenviar el tablero
+   * completo. Con servidor autoritativo los deltas los envía el servidor.
+   */
+  public void battleStateChanged(InteractiveBattle battle) {
+    if (client != null && simulatesWar) {
+      int index = getBattleIndex(battle);
+      if (index >= 0) {
+        sendBattleUpdate(battle, index);
+      }
+    }
+  }
+
+  /**
+   * Llamado por la ventana tras una acción propia: envía TURN_END con la
+   * versión y el hash resultantes para que el otro jugador compruebe que
+   * llegó al mismo estado (lockstep), y después el delta si simula la guerra.
+   */
+  public void localTurnPlayed(InteractiveBattle battle) {
+    int index = getBattleIndex(battle);
+    if (client != null && index >= 0) {
+      String data = index + "|" + battle.getVersion() + "|" + Long.toHexString(battle.getStateHash());
+      Message msg = new Message(Message.Type.TURN_END, data);
+      msg.setPlayerId(client.getPlayerId());
+      msg.setUsername(myUsername);
+      client.sendMessage(msg);
+    }
+    battleStateChanged(battle);
+  }
+
+  // TURN_END: index|versión|hash
+  private void verifyRemoteTurn(String data) {
+    try {
+      String[] parts = data.split("\\|");
+      int index = Integer.parseInt(parts[0]);
+      long version = Long.parseLong(parts[1]);
+      long expectedHash = Long.parseUnsignedLong(parts[2], 16);
+      InteractiveBattle battle = getBattleByIndex(index);
+      if (battle == null) {
+        onDesync(index, "batalla desconocida");
+        return;
+      }
+      if (battle.getVersion() < version) {
+        onDesync(index, "faltan turnos (local " + battle.getVersion() + ", remoto " + version + ")");
+      } else if (battle.getVersion() == version && battle.getStateHash() != expectedHash) {
+        onDesync(index, "hash distinto en la versión " + version);
+      }
+      // Versión local posterior: ya se jugó otro turno, no hay nada que comparar
+    } catch (Exception e) {
+      e.printStackTrace();
+      System.err.println("Error al verificar TURN_END: " + e.getMessage());
+    }
+  }
+
+  /**
+   * Quien simula reenvía la instantánea de la batalla; el otro la pide.
+   */
+  private void onDesync(int index, String reason) {
+    System.err.println("[" + (isHost ? "HOST" : "CLIENTE") + "] Desincronización en batalla " + index + ": " + reason);
+    InteractiveBattle battle = getBattleByIndex(index);
+    if (simulatesWar && battle != null) {
+      syncedVersions.remove(battle);
+      sendBattleUpdate(battle, index);
+    } else if (!simulatesWar) {
+      requestSync();
+    }
+  }
+
+  private void sendBattleUpdate(InteractiveBattle battle, int index) {
+    Long synced = syncedVersions.get(battle);
+    if (synced != null && synced == battle.getVersion()) {
+      return; // Sin cambios desde el último envío
+    }
+    String battleData = serializeBattle(battle, index);
+    System.out.println("[HOST] Enviando BATTLE_UPDATE: " + battleData);
+    Message msg = new Message(Message.Type.BATTLE_UPDATE, battleData);
+    client.sendMessage(msg);
+  }
+
   private void pairNewBattles() {
     pairNewBattles(true); // Por defecto sí enviar al cliente
   }
@@ -304,10 +422,7 @@ public class MultiplayerWarController extends JFrame {
       
       // Sincronizar batalla completa al cliente solo si se solicita
       if (sendToClient && client != null) {
-        String battleData = serializeBattle(battle, allBattles.size() - 1);
-        System.out.println("[HOST] Enviando BATTLE_UPDATE: " + battleData);
-        Message msg = new Message(Message.Type.BATTLE_UPDATE, battleData);
-        client.sendMessage(msg);
+        sendBattleUpdate(battle, allBattles.size() - 1);
       }
     }
     if (isWarOver()) {
@@ -413,7 +528,7 @@ public class MultiplayerWarController extends JFrame {
       }
       warLogArea.setCaretPosition(warLogArea.getDocument().getLength());
       
-      if (isHost) {
+      if (simulatesWar) {
         pairNewBattles();
       }
       updateStatus();
@@ -473,39 +588,86 @@ public class MultiplayerWarController extends JFrame {
   }
   
   private String serializeBattle(InteractiveBattle battle, int index) {
-    // Formato: index|clan1Army|army1Id|clan2Army|army2Id|positions|description
-    // clan1Army/clan2Army indica de qué clan viene cada ejército (1 o 2)
-    StringBuilder sb = new StringBuilder();
-    sb.append(index).append("|");
-    
-    Army army1 = battle.getArmy1();
-    Army army2 = battle.getArmy2();
-    
-    System.out.println("[HOST] Serializando batalla " + index + ": " + army1.getId() + " vs " + army2.getId());
-    System.out.println("[HOST] Army1 clan: " + army1.getClan().getName() + ", Army2 clan: " + army2.getClan().getName());
-    
-    // Determinar de qué clan es cada ejército
-    int clan1Index = clan1.getAllArmies().contains(army1) ? 1 : 2;
-    int clan2Index = clan1.getAllArmies().contains(army2) ? 1 : 2;
-    
-    System.out.println("[HOST] clan1Index=" + clan1Index + ", clan2Index=" + clan2Index);
-    
-    sb.append(clan1Index).append("|");
-    sb.append(army1.getId()).append("|");
-    sb.append(clan2Index).append("|");
-    sb.append(army2.getId()).append("|");
-    sb.append(battle.serializePositions()).append("|"); // Enviar posiciones en lugar de semilla
-    sb.append(getBattleDescription(battle));
-    
-    String result = sb.toString();
+    // El delta es una instantánea completa la primera vez (al unirse el
+    // cliente a la batalla) y después solo los cambios desde el último envío.
+    String result = BattleProtocol.battleUpdate(index, battle, clan1, getBattleDescription(battle),
+        syncedVersions.getOrDefault(battle, -1L));
+    syncedVersions.put(battle, battle.getVersion());
     System.out.println("[HOST] Resultado serialización: " + result);
     return result;
   }
+
+  public void requestSync() {
+    if (client != null && !simulatesWar && !syncRequested) {
+      syncRequested = true;
+      System.out.println("[CLIENTE] Enviando SYNC_REQUEST");
+      Message msg = new Message(Message.Type.SYNC_REQUEST, "");
+      msg.setPlayerId(client.getPlayerId());
+      client.sendMessage(msg);
+    }
+  }
+
+  private void sendSyncResponse() {
+    if (client == null) return;
+    String data = BattleProtocol.syncResponse(allBattles, clan1);
+    for (InteractiveBattle battle : allBattles) {
+      syncedVersions.put(battle, battle.getVersion());
+    }
+    System.out.println("[HOST] Enviando SYNC_RESPONSE con " + allBattles.size() + " batallas");
+    Message msg = new Message(Message.Type.SYNC_RESPONSE, data);
+    msg.setPlayerId(client.getPlayerId());
+    client.sendMessage(msg);
+  }
+
+  private void handleSyncResponse(String data) {
+    try {
+      syncRequested = false;
+      String[] f = data.split("\\|");
+      long expectedHash = Long.parseUnsignedLong(f[0], 16);
+      int count = Integer.parseInt(f[1]);
+      int pos = 2;
+      for (int b = 0; b < count; b++) {
+        int index = Integer.parseInt(f[pos]);
+        int clan1Index = Integer.parseInt(f[pos + 1]);
+        String army1Id = f[pos + 2];
+        int clan2Index = Integer.parseInt(f[pos + 3]);
+        String army2Id = f[pos + 4];
+        int fields = Integer.parseInt(f[pos + 5]);
+        String snapshot = String.join("|", Arrays.copyOfRange(f, pos + 6, pos + 6 + fields));
+        pos += 6 + fields;
+        
+        InteractiveBattle battle = ensureBattle(index, clan1Index, army1Id, clan2Index, army2Id);
+        if (battle == null) continue;
+        battle.applyDelta(snapshot);
+        battleStateApplied(battle, index, getBattleDescription(battle));
+      }
+      updateStatus();
+      
+      long actualHash = computeWarStateHash();
+      if (actualHash != expectedHash) {
+        System.err.println("[CLIENTE] Hash tras SYNC_RESPONSE distinto: host=" + Long.toHexString(expectedHash)
+            + " local=" + Long.toHexString(actualHash));
+        addChatMessage("[Sistema] No se pudo sincronizar el estado con el host.");
+      } else {
+        System.out.println("[CLIENTE] Estado sincronizado con el host (" + count + " batallas, hash " + f[0] + ")");
+      }
+    } catch (Exception e) {
+      e.printStackTrace();
+      System.err.println("Error al procesar SYNC_RESPONSE: " + e.getMessage());
+    }
+  }
+
+  /**
+   * Huella de la guerra completa: combina la de cada batalla con su índice.
+   */
+  public long computeWarStateHash() {
+    return BattleProtocol.warStateHash(allBattles);
+  }
   
   private void handleBattleUpdate(String data) {
     try {
       System.out.println("[CLIENTE] handleBattleUpdate llamado con data: " + data);
-      String[] parts = data.split("\\|", 8);
+      String[] parts = data.split("\\|", 7);
       System.out.println("[CLIENTE] Parts divididos: " + parts.length);
       if (parts.length < 7) {
         System.err.println("[CLIENTE] Error: datos insuficientes, solo " + parts.length + " partes");
@@ -517,56 +679,84 @@ public class MultiplayerWarController extends JFrame {
       String army1Id = parts[2];
       int clan2Index = Integer.parseInt(parts[3]);
       String army2Id = parts[4];
-      String positionsData = parts[5]; // Posiciones de todos los guerreros
-      String description = parts.length > 6 ? parts[6] : "";
+      String description = parts[5];
+      String delta = parts[6]; // Instantánea o cambios desde la última versión
       
-      System.out.println("[CLIENTE] Buscando ejércitos: clan" + clan1Index + "." + army1Id + " y clan" + clan2Index + "." + army2Id);
-      System.out.println("[CLIENTE] Posiciones recibidas: " + positionsData);
+      InteractiveBattle battle = ensureBattle(index, clan1Index, army1Id, clan2Index, army2Id);
+      if (battle == null) return;
       
-      // Buscar los ejércitos en el clan correcto
-      Army a1 = findArmyById(clan1Index == 1 ? clan1 : clan2, army1Id);
-      Army a2 = findArmyById(clan2Index == 1 ? clan1 : clan2, army2Id);
-      
-      System.out.println("[CLIENTE] Ejércitos encontrados: a1=" + (a1 != null ? a1.getId() : "null") + ", a2=" + (a2 != null ? a2.getId() : "null"));
-      
-      if (a1 != null && a2 != null) {
-        // Marcar ejércitos como usados
-        a1.setHasFought(true);
-        a2.setHasFought(true);
-        
-        // Crear la batalla en el cliente
-        InteractiveBattle battle = new InteractiveBattle(a1, a2);
-        // Deserializar las posiciones exactas del host
-        battle.deserializePositions(positionsData);
-        
-        // Asegurar que el índice sea correcto
-        while (allBattles.size() <= index) {
-          allBattles.add(null);
-        }
-        allBattles.set(index, battle);
-        
-        // Actualizar la lista visual
-        while (battleListModel.size() <= index) {
-          battleListModel.addElement("");
-        }
-        battleListModel.set(index, description);
-        
-        System.out.println("[CLIENTE] Batalla creada en índice " + index + ": " + description);
-        System.out.println("[CLIENTE] Total batallas ahora: " + allBattles.size());
-        
-        // Imprimir posiciones para debug
-        for (IWarrior w : a1.getAllWarriors()) {
-          System.out.println("[CLIENTE] Guerrero " + w.getId() + " en posición " + w.getPosition());
-        }
-      } else {
-        System.err.println("[CLIENTE] No se pudieron encontrar los ejércitos");
+      // Aplicar el estado exacto del host
+      if (!battle.applyDelta(delta)) {
+        System.err.println("[CLIENTE] Batalla " + index + " desincronizada (versión local "
+            + battle.getVersion() + "): pidiendo instantánea");
+        requestSync();
+        return;
       }
+      battleStateApplied(battle, index, description);
+      
+      System.out.println("[CLIENTE] Batalla " + index + " en versión " + battle.getVersion() + ": " + description);
+      System.out.println("[CLIENTE] Total batallas ahora: " + allBattles.size());
     } catch (Exception e) {
       e.printStackTrace();
       System.err.println("Error al procesar actualización de batalla: " + e.getMessage());
     }
   }
   
+  /**
+   * Batalla del cliente en ese índice; la crea si aún no existe o si el host
+   * puso otra batalla en su lugar.
+   */
+  private InteractiveBattle ensureBattle(int index, int clan1Index, String army1Id, int clan2Index, String army2Id) {
+    InteractiveBattle battle = getBattleByIndex(index);
+    if (battle != null && battle.getArmy1().getId().equals(army1Id)
+        && battle.getArmy2().getId().equals(army2Id)) {
+      return battle;
+    }
+    System.out.println("[CLIENTE] Buscando ejércitos: clan" + clan1Index + "." + army1Id + " y clan" + clan2Index + "." + army2Id);
+    
+    // Buscar los ejércitos en el clan correcto
+    Army a1 = findArmyById(clan1Index == 1 ? clan1 : clan2, army1Id);
+    Army a2 = findArmyById(clan2Index == 1 ? clan1 : clan2, army2Id);
+    
+    System.out.println("[CLIENTE] Ejércitos encontrados: a1=" + (a1 != null ? a1.getId() : "null") + ", a2=" + (a2 != null ? a2.getId() : "null"));
+    if (a1 == null || a2 == null) {
+      System.err.println("[CLIENTE] No se pudieron encontrar los ejércitos");
+      return null;
+    }
+    
+    // Marcar ejércitos como usados
+    a1.setHasFought(true);
+    a2.setHasFought(true);
+    
+    // Crear la batalla en el cliente
+    battle = new InteractiveBattle(a1, a2);
+    
+    // Asegurar que el índice sea correcto
+    while (allBattles.size() <= index) {
+      allBattles.add(null);
+    }
+    allBattles.set(index, battle);
+    return battle;
+  }
+  
+  // Lista y ventana abierta reflejan el estado recién aplicado
+  private void battleStateApplied(InteractiveBattle battle, int index, String description) {
+    if (battle.isBattleOver() && !battleWinners.containsKey(battle)) {
+      Army winArmy = battle.getWinner();
+      battleWinners.put(battle, winArmy.getClan().getName() + " (" + winArmy.getId() + ")");
+      description = getBattleDescription(battle);
+    }
+    while (battleListModel.size() <= index) {
+      battleListModel.addElement("");
+    }
+    battleListModel.set(index, description);
+    
+    MultiplayerBattleFrame frame = battleFrames.get(battle);
+    if (frame != null && frame.isDisplayable()) {
+      frame.stateUpdated();
+    }
+  }
+  
   private Army findArmyById(Clan clan, String armyId) {
     for (Army army : clan.getAllArmies()) {
       if (army.getId().equals(armyId)) {
@@ -0,0 +1,97 @@
+package com.battlesimulator.usecases;
+
+/**
+ * Resultado de una estimación Monte Carlo de una guerra entre dos clanes.
+ * Los intervalos son del 95%: Wilson para la probabilidad de victoria y
+ * aproximación normal para las medias de supervivientes.
+ */
+public class OutcomeEstimate {
+  private static final double Z_95 = 1.96;
+
+  private final int simulations;
+  private final int clan1Wins;
+  private final double clan1SurvivorsMean;
+  private final double clan1SurvivorsMargin;
+  private final double clan2SurvivorsMean;
+  private final double clan2SurvivorsMargin;
+  private final long elapsedMillis;
+
+  OutcomeEstimate(int simulations, int clan1Wins, int[] clan1Survivors, int[] clan2Survivors, long elapsedMillis) {
+    this.simulations = simulations;
+    this.clan1Wins = clan1Wins;
+    this.clan1SurvivorsMean = mean(clan1Survivors);
+    this.clan1SurvivorsMargin = margin(clan1Survivors, clan1SurvivorsMean);
+    this.clan2SurvivorsMean = mean(clan2Survivors);
+    this.clan2SurvivorsMargin = margin(clan2Survivors, clan2SurvivorsMean);
+    this.elapsedMillis = elapsedMillis;
+  }
+
+  private static double mean(int[] values) {
+    long sum = 0;
+    for (int v : values) sum += v;
+    return values.length == 0 ? 0 : (double) sum / values.length;
+  }
+
+  private static double margin(int[] values, double mean) {
+    if (values.length < 2) return 0;
+    double squares = 0;
+    for (int v : values) {
+      squares += (v - mean) * (v - mean);
+    }
+    double stdDev = Math.sqrt(squares / (values.length - 1));
+    return Z_95 * stdDev / Math.sqrt(values.length);
+  }
+
+  public int getSimulations() {
+    return simulations;
+  }
+
+  public double getClan1WinProbability() {
+    return simulations == 0 ? 0 : (double) clan1Wins / simulations;
+  }
+
+  public double getClan2WinProbability() {
+    return simulations == 0 ? 0 : 1.0 - getClan1WinProbability();
+  }
+
+  /**
+   * Límite inferior del intervalo de Wilson para la victoria de clan1.
+   */
+  public double getClan1WinLower() {
+    return wilson(-1);
+  }
+
+  public double getClan1WinUpper() {
+    return wilson(1);
+  }
+
+  private double wilson(int sign) {
+    if (simulations == 0) return 0;
+    double n = simulations;
+    double p = getClan1WinProbability();
+    double z2 = Z_95 * Z_95;
+    double center = p + z2 / (2 * n);
+    double spread = Z_95 * Math.sqrt(p * (1 - p) / n + z2 / (4 * n * n));
+    return (center + sign * spread) / (1 + z2 / n);
+  }
+
+  public double getClan1SurvivorsMean() {
+    return clan1SurvivorsMean;
+  }
+
+  public double getClan1SurvivorsMargin() {
+    return clan1SurvivorsMargin;
+  }
+
+  public double getClan2SurvivorsMean() {
+    return clan2SurvivorsMean;
+  }
+
+  public double getClan2SurvivorsMargin() {
+    return clan2SurvivorsMargin;
+  }
+
+  public long getElapsedMillis() {
+    return elapsedMillis;
+  }
+}
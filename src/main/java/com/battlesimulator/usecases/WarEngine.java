@@ -0,0 +1,101 @@
+package com.battlesimulator.usecases;
+
+import com.battlesimulator.domain.Army;
+import com.battlesimulator.domain.Clan;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Guerra completa entre dos clanes sin interfaz gráfica. Empareja ejércitos
+ * igual que WarController y resuelve cada batalla con BattleEngine.
+ * Los clanes se modifican durante la simulación; el llamador decide si los reinicia.
+ */
+public class WarEngine {
+  public static final int DEFAULT_MAX_BATTLES = 1_000;
+
+  private final Clan clan1;
+  private final Clan clan2;
+  private final Random rand;
+  private final BattleEngine battleEngine;
+  private int maxBattles = DEFAULT_MAX_BATTLES;
+  private int battlesFought;
+  private long totalTurns;
+
+  public WarEngine(Clan clan1, Clan clan2, BattlePolicy policy1, BattlePolicy policy2, long seed) {
+    this.clan1 = clan1;
+    this.clan2 = clan2;
+    this.rand = new Random(seed);
+    this.battleEngine = new BattleEngine(policy1, policy2, rand);
+  }
+
+  public WarEngine(Clan clan1, Clan clan2, long seed) {
+    this(clan1, clan2, new GreedyBattlePolicy(), new GreedyBattlePolicy(), seed);
+  }
+
+  public void setMaxBattles(int maxBattles) {
+    this.maxBattles = maxBattles;
+  }
+
+  public void setMaxTurnsPerBattle(int maxTurns) {
+    battleEngine.setMaxTurns(maxTurns);
+  }
+
+  /**
+   * Simula la guerra hasta que un clan quede sin ejércitos activos.
+   * Si se alcanza el límite de batallas gana el clan con mayor nivel total.
+   */
+  public Clan simulate() {
+    battlesFought = 0;
+    totalTurns = 0;
+    while (!clan1.isDefeated() && !clan2.isDefeated() && battlesFought < maxBattles) {
+      Army a1 = selectArmy(clan1);
+      Army a2 = selectArmy(clan2);
+      if (a1 == null || a2 == null)
+        break;
+
+      a1.setHasFought(true);
+      a2.setHasFought(true);
+
+      // El ejército de clan1 siempre es army1 para que cada política controle a su clan
+      battleEngine.run(a1, a2);
+      battlesFought++;
+      totalTurns += battleEngine.getTurnsPlayed();
+    }
+
+    if (clan1.isDefeated()) return clan2;
+    if (clan2.isDefeated()) return clan1;
+    return totalLevel(clan1) >= totalLevel(clan2) ? clan1 : clan2;
+  }
+
+  private Army selectArmy(Clan clan) {
+    List<Army> available = clan.getActiveArmies();
+    List<Army> fresh = new ArrayList<>();
+    for (Army a : available) {
+      if (!a.hasFought()) fresh.add(a);
+    }
+    if (!fresh.isEmpty()) {
+      available = fresh;
+    }
+    if (available.isEmpty())
+      return null;
+    available.sort((a, b) -> Integer.compare(b.getLevel(), a.getLevel()));
+    return available.get(rand.nextInt(Math.min(3, available.size())));
+  }
+
+  private static int totalLevel(Clan clan) {
+    int level = 0;
+    for (Army a : clan.getActiveArmies()) {
+      level += a.getLevel();
+    }
+    return level;
+  }
+
+  public int getBattlesFought() {
+    return battlesFought;
+  }
+
+  public long getTotalTurns() {
+    return totalTurns;
+  }
+}
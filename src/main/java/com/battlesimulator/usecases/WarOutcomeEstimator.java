@@ -0,0 +1,64 @@
+package com.battlesimulator.usecases;
+
+import com.battlesimulator.domain.Army;
+import com.battlesimulator.domain.Clan;
+import java.util.stream.IntStream;
+
+/**
+ * Estima el resultado de una guerra simulándola N veces en paralelo con
+ * WarEngine. Cada simulación trabaja sobre copias de los clanes en estado
+ * inicial, así que los clanes configurados nunca se modifican.
+ */
+public class WarOutcomeEstimator {
+  private final Clan template1;
+  private final Clan template2;
+
+  public WarOutcomeEstimator(Clan clan1, Clan clan2) {
+    // Se copian una vez: las simulaciones solo leen estas plantillas
+    this.template1 = clan1.copy();
+    this.template2 = clan2.copy();
+  }
+
+  /**
+   * Ejecuta las simulaciones repartidas en todos los núcleos (fork-join).
+   * Con la misma semilla el resultado es idéntico sin importar el paralelismo.
+   */
+  public OutcomeEstimate estimate(int simulations, long seed) {
+    long start = System.nanoTime();
+    boolean[] clan1Won = new boolean[simulations];
+    int[] clan1Survivors = new int[simulations];
+    int[] clan2Survivors = new int[simulations];
+
+    IntStream.range(0, simulations).parallel().forEach(i -> {
+      Clan c1 = template1.copy();
+      Clan c2 = template2.copy();
+      WarEngine engine = new WarEngine(c1, c2, simulationSeed(seed, i));
+      clan1Won[i] = engine.simulate() == c1;
+      clan1Survivors[i] = survivors(c1);
+      clan2Survivors[i] = survivors(c2);
+    });
+
+    int wins = 0;
+    for (boolean won : clan1Won) {
+      if (won) wins++;
+    }
+    long elapsed = (System.nanoTime() - start) / 1_000_000;
+    return new OutcomeEstimate(simulations, wins, clan1Survivors, clan2Survivors, elapsed);
+  }
+
+  private static int survivors(Clan clan) {
+    int alive = 0;
+    for (Army a : clan.getAllArmies()) {
+      alive += a.getAliveCount();
+    }
+    return alive;
+  }
+
+  // Semillas independientes por simulación (mezcla de SplitMix64)
+  private static long simulationSeed(long seed, int index) {
+    long z = seed + (index + 1) * 0x9E3779B97F4A7C15L;
+    z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+    z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+    return z ^ (z >>> 31);
+  }
+}